@@ -0,0 +1,41 @@
+import java.nio.LongBuffer;
+
+
+/**
+ * A packed DNA sequence whose words are held in a LongBuffer, which can live off the heap in a mapped file.
+ * Only the word accessors differ from PackedDnaSequence, so the scoring code is shared.
+ */
+class BufferedPackedDnaSequence extends PackedDnaSequence {
+
+	private LongBuffer wordBuffer;
+	
+	/**
+	 * Constructor
+	 * @param wordBuffer - packed bases outside of the heap, for example a slice of a mapped file, which the
+	 * sequence reads in place. A read only buffer makes the sequence read only.
+	 * @param length - number of bases in the buffer
+	 */
+	BufferedPackedDnaSequence(LongBuffer wordBuffer, int length) {
+		
+		super(null, length);
+		this.wordBuffer = wordBuffer;
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see PackedDnaSequence#getStoredWord(int)
+	 */
+	@Override
+	long getStoredWord(int wordIndex) {
+		return this.wordBuffer.get(wordIndex);
+	}
+	
+	/* (non-Javadoc)
+	 * @see PackedDnaSequence#setStoredWord(int, long)
+	 */
+	@Override
+	void setStoredWord(int wordIndex, long word) {
+		this.wordBuffer.put(wordIndex, word);
+	}
+	
+}
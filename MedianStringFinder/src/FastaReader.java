@@ -0,0 +1,246 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+
+/**
+ * Reads the records of a FASTA file one at a time straight into packed DNA sequences. The file is
+ * memory mapped a fixed size region at a time and read in one pass, so the memory used besides the
+ * record being returned does not depend on the size of the file.
+ *
+ * By default a record with an N or any other IUPAC ambiguity code is an error, since it has no packed
+ * form. When ambiguous bases are split out, each run of them instead ends the DNA sequence being read,
+ * and the bases after it start a new one under the same header. No window of a median string can then
+ * span an ambiguous base, but the pieces of a record count as separate DNA sequences in a score.
+ */
+public class FastaReader implements Closeable {
+
+	public static final byte HEADER_MARKER = '>';
+	public static final byte LINE_FEED = '\n';
+	public static final byte CARRIAGE_RETURN = '\r';
+	public static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+	public static final int INITIAL_NUMBER_OF_WORDS = 1024;
+	public static final String AMBIGUOUS_BASES = "NRYKMSWBDHVnrykmswbdhv";
+	
+	private static final byte[] BASE_CODES = getBaseCodes();
+	
+	private RandomAccessFile fastaFile;
+	private FileChannel fastaChannel;
+	private long fileSize;
+	private long mappedRegionStart;
+	private MappedByteBuffer mappedRegion;
+	private StringBuffer header;
+	private String nextHeader;
+	private long[] words;
+	private boolean ambiguousBasesSplit;
+	private int minimumLength = 1;
+	private boolean recordSplit;
+	private int recordPosition;
+	private int fragmentStart;
+	
+	/**
+	 * Constructor
+	 * @param fastaFile
+	 * @throws IOException
+	 */
+	public FastaReader(File fastaFile) throws IOException {
+		
+		this.fastaFile = new RandomAccessFile(fastaFile, "r");
+		this.fastaChannel = this.fastaFile.getChannel();
+		this.fileSize = this.fastaChannel.size();
+		this.mappedRegionStart = 0;
+		this.header = new StringBuffer();
+		this.words = new long[INITIAL_NUMBER_OF_WORDS];
+		mapRegion();
+		
+	}
+	
+	/**
+	 * @return a table from ASCII byte to base code, with -1 for bytes that are not bases
+	 */
+	private static byte[] getBaseCodes() {
+		
+		byte[] baseCodes = new byte[256];
+		Arrays.fill(baseCodes, (byte) -1);
+		for (int byteValue = 0; byteValue < baseCodes.length; ++byteValue) {
+			try {
+				baseCodes[byteValue] = (byte) Nucleotide.getBaseCode((char) byteValue);
+			} catch (Exception e) {
+				//Not a base
+			}
+		}
+		return baseCodes;
+		
+	}
+	
+	/**
+	 * @param ambiguousBasesSplit - true to end the DNA sequence at each run of N or other IUPAC ambiguity codes
+	 * and go on with the rest of the record as another one, false to reject records that hold any
+	 */
+	public void setAmbiguousBasesSplit(boolean ambiguousBasesSplit) {
+		this.ambiguousBasesSplit = ambiguousBasesSplit;
+	}
+	
+	/**
+	 * @param minimumLength - fewest bases a DNA sequence needs to be returned. Shorter records, and shorter
+	 * pieces of split records, are skipped, so that they do not rule out longer median strings.
+	 */
+	public void setMinimumLength(int minimumLength) {
+		this.minimumLength = Math.max(1, minimumLength);
+	}
+	
+	/**
+	 * @return the header of the record returned by the last call to nextDnaSequence, without the marker
+	 */
+	public String getHeader() {
+		return this.header.toString();
+	}
+	
+	/**
+	 * @return position in its record of the first base of the DNA sequence returned by the last call to
+	 * nextDnaSequence, counting ambiguous bases. It is 0 unless ambiguous bases are split out.
+	 */
+	public int getRecordPosition() {
+		return this.fragmentStart;
+	}
+	
+	/**
+	 * @return the bases of the next record, or the next piece of a record split at ambiguous bases, that has
+	 * at least the minimum length, or null at the end of the file
+	 * @throws Exception if the record holds something other than bases and line breaks, or ambiguous bases
+	 * that are not split out
+	 */
+	public PackedDnaSequence nextDnaSequence() throws Exception {
+		
+		while (hasRemaining()) {
+			
+			//The rest of a split record keeps its header
+			if (this.recordSplit) {
+				this.recordSplit = false;
+			} else {
+				this.header.setLength(0);
+				if (this.nextHeader != null) {
+					this.header.append(this.nextHeader);
+					this.nextHeader = null;
+				}
+				this.recordPosition = 0;
+			}
+			
+			int length = 0;
+			boolean recordEnded = false;
+			while (!recordEnded && !this.recordSplit && hasRemaining()) {
+				
+				byte nextByte = this.mappedRegion.get();
+				if (nextByte == HEADER_MARKER) {
+					String recordHeader = readHeader();
+					if (length == 0 && this.header.length() == 0) {
+						this.header.append(recordHeader);
+					} else {
+						this.nextHeader = recordHeader;
+						recordEnded = true;
+					}
+				} else if (nextByte == LINE_FEED || nextByte == CARRIAGE_RETURN || nextByte == ' ' || nextByte == '\t') {
+					continue;
+				} else {
+					byte baseCode = BASE_CODES[nextByte & 0xff];
+					if (baseCode < 0) {
+						if (AMBIGUOUS_BASES.indexOf((char) nextByte) < 0) {
+							throw new Exception((char) nextByte + " is not a valid base.");
+						}
+						if (!this.ambiguousBasesSplit) {
+							throw new Exception((char) nextByte + " is an ambiguous base, which is only read when ambiguous bases are split out.");
+						}
+						
+						//A run of ambiguous bases ends the piece before it, if there is one
+						++this.recordPosition;
+						this.recordSplit = length > 0;
+						continue;
+					}
+					if (length == 0) {
+						this.fragmentStart = this.recordPosition;
+					}
+					if (length / PackedDnaSequence.BASES_PER_WORD == this.words.length) {
+						this.words = Arrays.copyOf(this.words, this.words.length * 2);
+					}
+					this.words[length / PackedDnaSequence.BASES_PER_WORD] |= ((long) baseCode) << ((length % PackedDnaSequence.BASES_PER_WORD) * PackedDnaSequence.BITS_PER_BASE);
+					++length;
+					++this.recordPosition;
+				}
+				
+			}
+			
+			int numberOfWords = PackedDnaSequence.getNumberOfWords(length);
+			PackedDnaSequence dnaSequence = length >= this.minimumLength ? new PackedDnaSequence(Arrays.copyOf(this.words, numberOfWords), length) : null;
+			Arrays.fill(this.words, 0, numberOfWords, 0L);
+			if (dnaSequence != null) {
+				return dnaSequence;
+			}
+			
+		}
+		
+		return null;
+		
+	}
+	
+	/**
+	 * @return the rest of the current line, which is a record header
+	 * @throws IOException
+	 */
+	private String readHeader() throws IOException {
+		
+		StringBuffer recordHeader = new StringBuffer();
+		while (hasRemaining()) {
+			byte nextByte = this.mappedRegion.get();
+			if (nextByte == LINE_FEED) {
+				break;
+			}
+			if (nextByte != CARRIAGE_RETURN) {
+				recordHeader.append((char) nextByte);
+			}
+		}
+		return recordHeader.toString();
+		
+	}
+	
+	/**
+	 * @return true if there are bytes left, mapping the next region of the file when the current one is used up
+	 * @throws IOException
+	 */
+	private boolean hasRemaining() throws IOException {
+		
+		if (this.mappedRegion.hasRemaining()) {
+			return true;
+		}
+		if (this.mappedRegionStart + this.mappedRegion.capacity() >= this.fileSize) {
+			return false;
+		}
+		this.mappedRegionStart += this.mappedRegion.capacity();
+		mapRegion();
+		return true;
+		
+	}
+	
+	/**
+	 * Map the region of the file that starts at the current region start
+	 * @throws IOException
+	 */
+	private void mapRegion() throws IOException {
+		this.mappedRegion = this.fastaChannel.map(FileChannel.MapMode.READ_ONLY, this.mappedRegionStart, Math.min(MAPPED_REGION_SIZE, this.fileSize - this.mappedRegionStart));
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		
+		this.fastaChannel.close();
+		this.fastaFile.close();
+		
+	}
+	
+}
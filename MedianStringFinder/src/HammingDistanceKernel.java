@@ -0,0 +1,37 @@
+/**
+ * Compares a pattern against the windows of a packed DNA sequence. MedianStringFinder scores candidate
+ * median strings through this interface, so a faster kernel can be swapped in where the platform has one.
+ */
+public interface HammingDistanceKernel {
+
+	public static final String VECTOR_KERNEL_MODULE = "jdk.incubator.vector";
+	public static final String VECTOR_KERNEL_CLASS = "VectorHammingDistanceKernel";
+	
+	/**
+	 * @param dnaSequence
+	 * @param pattern
+	 * @param reverseComplementPattern - the reverse complement of the pattern, or null to only scan the forward strand
+	 * @param numberOfWindows - number of start positions to try, beginning at 0
+	 * @return the minimum hamming distance between the pattern and any window of the DNA sequence
+	 */
+	public int getMinimumHammingDistance(PackedDnaSequence dnaSequence, PackedDnaSequence pattern, PackedDnaSequence reverseComplementPattern, int numberOfWindows);
+	
+	/**
+	 * @return the vector kernel if it was built with the vector profile and the JVM was started with the Vector
+	 * API module, otherwise the scalar kernel. Finders use the scalar kernel unless this one is set on them.
+	 * The vector kernel is loaded by name so that nothing links against the Vector API when it is missing.
+	 */
+	public static HammingDistanceKernel getFastestAvailable() {
+		
+		if (ModuleLayer.boot().findModule(VECTOR_KERNEL_MODULE).isPresent()) {
+			try {
+				return (HammingDistanceKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				//Fall through to the scalar kernel
+			}
+		}
+		return new ScalarHammingDistanceKernel();
+		
+	}
+	
+}
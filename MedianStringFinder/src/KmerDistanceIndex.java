@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+
+/**
+ * For every possible k-mer, the minimum hamming distance to any window of each DNA sequence. K-mers are
+ * coded the same way as packed sequences, with the first base in the lowest two bits. Hamming distance
+ * is a sum of independent per position distances, so the table for a sequence is filled by a dynamic
+ * program that starts with zero for every window and infinity elsewhere, and then relaxes one base
+ * position at a time: each k-mer takes the smaller of its own value and one more than the best value
+ * among the k-mers that differ from it only at that position. Matching a k-mer against the reverse strand
+ * is the same as matching it against the reverse complements of the windows, so those simply start at zero too.
+ */
+class KmerDistanceIndex {
+
+	private int numberOfDnaSequences;
+	private int numberOfKmers;
+	private byte[][] minimumHammingDistances;
+	
+	/**
+	 * Constructor
+	 * @param dnaSequences
+	 * @param kmerLength
+	 * @param numberOfWindows - number of window start positions of each DNA sequence
+	 * @param reverseComplementScored - true to also measure k-mers against the reverse strand
+	 */
+	KmerDistanceIndex(PackedDnaSequence[] dnaSequences, int kmerLength, int[] numberOfWindows, boolean reverseComplementScored) {
+		
+		this.numberOfDnaSequences = dnaSequences.length;
+		this.numberOfKmers = 1 << (kmerLength * PackedDnaSequence.BITS_PER_BASE);
+		this.minimumHammingDistances = new byte[this.numberOfDnaSequences][];
+		
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < this.numberOfDnaSequences; ++dnaSequenceCounter) {
+			
+			byte[] minimumHammingDistance = new byte[this.numberOfKmers];
+			Arrays.fill(minimumHammingDistance, (byte) (kmerLength + 1));
+			
+			//Every window is at distance zero, and so is its reverse complement when the reverse strand counts
+			long kmerMask = this.numberOfKmers - 1;
+			for (int windowStartPosition = 0; windowStartPosition < numberOfWindows[dnaSequenceCounter]; ++windowStartPosition) {
+				int window = (int) (dnaSequences[dnaSequenceCounter].getWord(windowStartPosition) & kmerMask);
+				minimumHammingDistance[window] = 0;
+				if (reverseComplementScored) {
+					minimumHammingDistance[getReverseComplement(window, kmerLength)] = 0;
+				}
+			}
+			
+			//Relax each position over the groups of four k-mers that only differ at that position
+			for (int position = 0; position < kmerLength; ++position) {
+				int stride = 1 << (position * PackedDnaSequence.BITS_PER_BASE), groupSize = stride * Nucleotide.validBases.length;
+				for (int groupStart = 0; groupStart < this.numberOfKmers; groupStart += groupSize) {
+					for (int kmer = groupStart; kmer < groupStart + stride; ++kmer) {
+						int neighbourDistance = Math.min(Math.min(minimumHammingDistance[kmer], minimumHammingDistance[kmer + stride]), Math.min(minimumHammingDistance[kmer + 2 * stride], minimumHammingDistance[kmer + 3 * stride])) + 1;
+						for (int kmerWithBase = kmer; kmerWithBase < kmer + groupSize; kmerWithBase += stride) {
+							if (neighbourDistance < minimumHammingDistance[kmerWithBase]) {
+								minimumHammingDistance[kmerWithBase] = (byte) neighbourDistance;
+							}
+						}
+					}
+				}
+			}
+			
+			this.minimumHammingDistances[dnaSequenceCounter] = minimumHammingDistance;
+			
+		}
+		
+	}
+	
+	/**
+	 * @param kmer - coded k-mer
+	 * @param kmerLength
+	 * @return the coded reverse complement of the k-mer
+	 */
+	static int getReverseComplement(int kmer, int kmerLength) {
+		
+		int reverseComplement = 0;
+		for (int position = 0; position < kmerLength; ++position) {
+			reverseComplement = (reverseComplement << PackedDnaSequence.BITS_PER_BASE) | ((int) PackedDnaSequence.BASE_CODE_MASK - (kmer & (int) PackedDnaSequence.BASE_CODE_MASK));
+			kmer >>>= PackedDnaSequence.BITS_PER_BASE;
+		}
+		return reverseComplement;
+		
+	}
+	
+	/**
+	 * @param numberOfDnaSequences
+	 * @param kmerLength
+	 * @param memoryBudget - bytes the index may use
+	 * @return true if an index for k-mers of the length fits in the memory budget
+	 */
+	static boolean fitsInMemoryBudget(int numberOfDnaSequences, int kmerLength, long memoryBudget) {
+		
+		if (kmerLength * PackedDnaSequence.BITS_PER_BASE >= Integer.SIZE - 1) {
+			return false;
+		}
+		long numberOfKmers = 1L << (kmerLength * PackedDnaSequence.BITS_PER_BASE);
+		return numberOfKmers * numberOfDnaSequences <= memoryBudget;
+		
+	}
+	
+	/**
+	 * @param kmer - coded k-mer
+	 * @return the total minimum hamming distance of the k-mer against all DNA sequences
+	 */
+	int getTotalMinimumHammingDistance(int kmer) {
+		
+		int totalMinimumHammingDistance = 0;
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < this.numberOfDnaSequences; ++dnaSequenceCounter) {
+			totalMinimumHammingDistance += this.minimumHammingDistances[dnaSequenceCounter][kmer];
+		}
+		return totalMinimumHammingDistance;
+		
+	}
+	
+}
@@ -0,0 +1,172 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Runs many median string problems in one JVM. Each line of the manifest is one job:
+ * 
+ *   jobId targetLength inputFile[,inputFile...] [parallelism=N]
+ * 
+ * Input files are FASTA files, or plain files holding one sequence, and every record in them is one DNA
+ * sequence of the job. Blank lines and lines starting with # are skipped. Jobs run on a fixed number of
+ * workers. The manifest is only read ahead as far as there are free slots, and each result is written to
+ * the output file as soon as its job finishes, as jobId, median string, score and run time in milliseconds.
+ */
+public class MedianStringBatchRunner {
+
+	public static final String COMMENT_MARKER = "#";
+	public static final String FIELD_SEPARATOR_REGEX = "\\s+";
+	public static final String INPUT_FILE_SEPARATOR = ",";
+	public static final String PARALLELISM_OPTION = "parallelism=";
+	public static final String OUTPUT_FIELD_SEPARATOR = "\t";
+	public static final String ERROR_RESULT = "ERROR";
+	public static final int QUEUED_JOBS_PER_WORKER = 2;
+	
+	private int numberOfWorkers;
+	
+	/**
+	 * Constructor
+	 * @param numberOfWorkers - number of jobs that run at the same time
+	 * @throws Exception
+	 */
+	public MedianStringBatchRunner(int numberOfWorkers) throws Exception {
+		
+		if (numberOfWorkers <= 0) {
+			throw new Exception("At least one worker is needed to run jobs.");
+		}
+		this.numberOfWorkers = numberOfWorkers;
+		
+	}
+	
+	/**
+	 * @param manifestFile
+	 * @param outputFile
+	 * @return number of jobs run
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public int run(File manifestFile, File outputFile) throws IOException, InterruptedException {
+		
+		ExecutorService workers = Executors.newFixedThreadPool(this.numberOfWorkers);
+		Semaphore freeSlots = new Semaphore(this.numberOfWorkers * QUEUED_JOBS_PER_WORKER);
+		int numberOfJobs = 0;
+		
+		try (PrintWriter resultWriter = new PrintWriter(new BufferedWriter(new FileWriter(outputFile)));
+				BufferedReader manifestReader = new BufferedReader(new FileReader(manifestFile))) {
+			try {
+				String line = null;
+				while ((line = manifestReader.readLine()) != null) {
+					
+					final String jobLine = line.trim();
+					if (jobLine.length() == 0 || jobLine.startsWith(COMMENT_MARKER)) {
+						continue;
+					}
+					
+					//Wait for a free slot so that a long manifest does not pile up in memory
+					freeSlots.acquire();
+					++numberOfJobs;
+					workers.execute(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								runJob(jobLine, resultWriter);
+							} finally {
+								freeSlots.release();
+							}
+						}
+					});
+					
+				}
+			} finally {
+				//Every job has to write its result before the output file is closed
+				workers.shutdown();
+				workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			}
+		}
+		
+		return numberOfJobs;
+		
+	}
+	
+	/**
+	 * @param jobLine - one line of the manifest
+	 * @param resultWriter - output file of the run
+	 * Run the job and write its result line
+	 */
+	private void runJob(String jobLine, PrintWriter resultWriter) {
+		
+		String[] fields = jobLine.split(FIELD_SEPARATOR_REGEX);
+		String jobId = fields[0];
+		long timeBeforeRun = System.currentTimeMillis();
+		try {
+			
+			if (fields.length < 3) {
+				throw new Exception("Job needs an id, a target length and input files.");
+			}
+			int targetLength = Integer.parseInt(fields[1]);
+			int parallelism = 1;
+			for (int fieldCounter = 3; fieldCounter < fields.length; ++fieldCounter) {
+				if (fields[fieldCounter].startsWith(PARALLELISM_OPTION)) {
+					parallelism = Integer.parseInt(fields[fieldCounter].substring(PARALLELISM_OPTION.length()));
+				} else {
+					throw new Exception(fields[fieldCounter] + " is not a valid option.");
+				}
+			}
+			
+			MedianStringFinder medianStringFinder = new MedianStringFinder(getDnaSequences(fields[2].split(INPUT_FILE_SEPARATOR)));
+			ScoredMedianString scoredMedianString = medianStringFinder.findScoredMedianString(targetLength, parallelism);
+			writeResult(resultWriter, jobId + OUTPUT_FIELD_SEPARATOR + scoredMedianString.getMedianString() + OUTPUT_FIELD_SEPARATOR + scoredMedianString.getScore() + OUTPUT_FIELD_SEPARATOR + (System.currentTimeMillis() - timeBeforeRun));
+			
+		} catch (Exception e) {
+			//Some exceptions, such as a NullPointerException, have no message, and their class is all there is to report
+			writeResult(resultWriter, jobId + OUTPUT_FIELD_SEPARATOR + ERROR_RESULT + OUTPUT_FIELD_SEPARATOR + (e.getMessage() != null ? e.getMessage() : e.toString()));
+		}
+		
+	}
+	
+	/**
+	 * @param inputFileNames
+	 * @return every record of every input file
+	 * @throws Exception
+	 */
+	private PackedDnaSequence[] getDnaSequences(String[] inputFileNames) throws Exception {
+		
+		List<PackedDnaSequence> dnaSequences = new ArrayList<PackedDnaSequence>();
+		for (String inputFileName : inputFileNames) {
+			try (FastaReader fastaReader = new FastaReader(new File(inputFileName))) {
+				PackedDnaSequence dnaSequence = null;
+				while ((dnaSequence = fastaReader.nextDnaSequence()) != null) {
+					dnaSequences.add(dnaSequence);
+				}
+			}
+		}
+		return dnaSequences.toArray(new PackedDnaSequence[dnaSequences.size()]);
+		
+	}
+	
+	/**
+	 * @param resultWriter - output file of the run, shared by its jobs
+	 * @param resultLine
+	 * Write one result line and flush it so that finished jobs are visible right away
+	 */
+	private static void writeResult(PrintWriter resultWriter, String resultLine) {
+		
+		synchronized (resultWriter) {
+			resultWriter.println(resultLine);
+			resultWriter.flush();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,219 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Cache of median string results keyed by a hash of the packed DNA sequences and the target length.
+ * Entries are kept in memory in least recently used order up to a maximum number of entries. If a
+ * folder is given, entries are also written there as small text files so that a new JVM can reuse them.
+ */
+public class MedianStringCache {
+
+	public static final String DIGEST_ALGORITHM = "SHA-256";
+	public static final String CACHE_FILE_EXTENSION = ".median";
+	public static final String CACHE_FILE_SEPARATOR = "\t";
+	public static final int DEFAULT_MAXIMUM_NUMBER_OF_ENTRIES = 1024;
+	
+	private Map<String, ScoredMedianString> entries;
+	private File cacheFolder;
+	
+	/**
+	 * Constructor
+	 * @param maximumNumberOfEntries - number of entries kept in memory before the least recently used is dropped
+	 * @param cacheFolder - folder for the persistent tier, or null to keep entries in memory only
+	 * @throws Exception
+	 */
+	public MedianStringCache(final int maximumNumberOfEntries, File cacheFolder) throws Exception {
+		
+		if (maximumNumberOfEntries <= 0) {
+			throw new Exception("The cache needs room for at least one entry.");
+		}
+		
+		if (cacheFolder != null && !cacheFolder.isDirectory() && !cacheFolder.mkdirs()) {
+			throw new Exception("Cache folder " + cacheFolder + " could not be created.");
+		}
+		
+		this.entries = new LinkedHashMap<String, ScoredMedianString>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ScoredMedianString> eldest) {
+				return size() > maximumNumberOfEntries;
+			}
+		};
+		this.cacheFolder = cacheFolder;
+		
+	}
+	
+	/**
+	 * Constructor for a memory only cache with the default size
+	 * @throws Exception
+	 */
+	public MedianStringCache() throws Exception {
+		this(DEFAULT_MAXIMUM_NUMBER_OF_ENTRIES, null);
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @return a hex digest of the lengths and packed words of the DNA sequences. Two sets of sequences only
+	 * share a digest if they hold the same bases in the same order.
+	 */
+	public static String getDigest(PackedDnaSequence[] dnaSequences) {
+		
+		MessageDigest messageDigest = null;
+		try {
+			messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		byte[] wordBytes = new byte[Long.BYTES];
+		for (PackedDnaSequence dnaSequence : dnaSequences) {
+			int dnaSequenceLength = dnaSequence.getLength();
+			updateDigest(messageDigest, wordBytes, dnaSequenceLength);
+			for (int position = 0; position < dnaSequenceLength; position += PackedDnaSequence.BASES_PER_WORD) {
+				updateDigest(messageDigest, wordBytes, dnaSequence.getWord(position));
+			}
+		}
+		
+		StringBuffer digest = new StringBuffer();
+		for (byte digestByte : messageDigest.digest()) {
+			digest.append(Character.forDigit((digestByte >>> 4) & 0xf, 16)).append(Character.forDigit(digestByte & 0xf, 16));
+		}
+		return digest.toString();
+		
+	}
+	
+	/**
+	 * @param messageDigest
+	 * @param wordBytes - scratch buffer
+	 * @param word
+	 */
+	private static void updateDigest(MessageDigest messageDigest, byte[] wordBytes, long word) {
+		
+		for (int byteCounter = 0; byteCounter < Long.BYTES; ++byteCounter) {
+			wordBytes[byteCounter] = (byte) (word >>> (byteCounter * Byte.SIZE));
+		}
+		messageDigest.update(wordBytes);
+		
+	}
+	
+	/**
+	 * @param dnaSequencesDigest
+	 * @param targetLength
+	 * @return the key of a cache entry
+	 */
+	private static String getKey(String dnaSequencesDigest, int targetLength) {
+		return dnaSequencesDigest + "-" + targetLength;
+	}
+	
+	/**
+	 * @param dnaSequencesDigest
+	 * @param targetLength
+	 * @return the cached median string, or null if there is none in memory or on disk
+	 */
+	public ScoredMedianString get(String dnaSequencesDigest, int targetLength) {
+		
+		String key = getKey(dnaSequencesDigest, targetLength);
+		synchronized (this.entries) {
+			ScoredMedianString scoredMedianString = this.entries.get(key);
+			if (scoredMedianString != null || this.cacheFolder == null) {
+				return scoredMedianString;
+			}
+		}
+		
+		ScoredMedianString scoredMedianString = readEntry(key);
+		if (scoredMedianString != null) {
+			synchronized (this.entries) {
+				this.entries.put(key, scoredMedianString);
+			}
+		}
+		return scoredMedianString;
+		
+	}
+	
+	/**
+	 * @param dnaSequencesDigest
+	 * @param targetLength
+	 * @param scoredMedianString
+	 * Add the median string to memory and, if there is a cache folder, to disk
+	 */
+	public void put(String dnaSequencesDigest, int targetLength, ScoredMedianString scoredMedianString) {
+		
+		String key = getKey(dnaSequencesDigest, targetLength);
+		synchronized (this.entries) {
+			this.entries.put(key, scoredMedianString);
+		}
+		if (this.cacheFolder != null) {
+			writeEntry(key, scoredMedianString);
+		}
+		
+	}
+	
+	/**
+	 * @return number of entries in memory
+	 */
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+	
+	/**
+	 * @param key
+	 * @return the entry stored on disk, or null if there is none or it cannot be read
+	 */
+	private ScoredMedianString readEntry(String key) {
+		
+		Path entryFile = new File(this.cacheFolder, key + CACHE_FILE_EXTENSION).toPath();
+		if (!Files.isRegularFile(entryFile)) {
+			return null;
+		}
+		
+		try {
+			String[] fields = new String(Files.readAllBytes(entryFile), StandardCharsets.US_ASCII).trim().split(CACHE_FILE_SEPARATOR);
+			return new ScoredMedianString(fields[0], Integer.parseInt(fields[1]));
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+			return null;
+		}
+		
+	}
+	
+	/**
+	 * @param key
+	 * @param scoredMedianString
+	 * Write the entry to a temporary file and move it into place, so that readers in other processes never
+	 * see half an entry. If the write or the move fails, the temporary file is removed again.
+	 */
+	private void writeEntry(String key, ScoredMedianString scoredMedianString) {
+		
+		Path temporaryFile = null;
+		try {
+			temporaryFile = Files.createTempFile(this.cacheFolder.toPath(), key, null);
+			Files.write(temporaryFile, (scoredMedianString.getMedianString() + CACHE_FILE_SEPARATOR + scoredMedianString.getScore()).getBytes(StandardCharsets.US_ASCII));
+			Files.move(temporaryFile, new File(this.cacheFolder, key + CACHE_FILE_EXTENSION).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			//After a successful move there is nothing left to delete
+			if (temporaryFile != null) {
+				try {
+					Files.deleteIfExists(temporaryFile);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		
+	}
+	
+}
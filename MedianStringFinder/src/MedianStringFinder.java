@@ -1,10 +1,18 @@
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 
 public class MedianStringFinder {
@@ -12,52 +20,92 @@ public class MedianStringFinder {
 	public static final String EMPTY_STRING = "";
 	public static final String MEDIAN_STRING_KEY = "MEDIAN_STRING_KEY";
 	public static final String DNA_SEQUENCE_KEY = "DNA_SEQUENCE_KEY";
-	public static int BRANCH_AND_BOUND_TEST_START_LENGTH = 4;
+	public static final String PACKED_DNA_SEQUENCE_KEY = "PACKED_DNA_SEQUENCE_KEY";
+	public static final int GENERATED_DNA_SEQUENCES_PER_BATCH = 4096;
+	public static final String REVERSE_COMPLEMENT_DIGEST_SUFFIX = "-rc";
+	public static int BRANCH_AND_BOUND_TEST_START_LENGTH = 1;
+	public static int SUFFIX_LOWER_BOUND_EXACT_LENGTH = 6;
+	public static long KMER_DISTANCE_INDEX_MEMORY_BUDGET = 64L * 1024 * 1024;
 	
 	private int numberOfDnaSequences;
-	private int dnaSequenceLength;
-	private List<List<Nucleotide>> dnaSequences;
-	private String bestMedianString;
-	private int globalBestScore;
+	private int shortestDnaSequenceLength;
+	private PackedDnaSequence[] dnaSequences;
+	private SearchStatistics searchStatistics;
+	private MedianStringCache medianStringCache;
+	private String dnaSequencesDigest;
+	private boolean heuristicSeedingEnabled = true;
+	private boolean searchMetricsEnabled;
+	private boolean reverseComplementScored;
+	private SearchMetrics searchMetrics;
+	private HammingDistanceKernel hammingDistanceKernel = new ScalarHammingDistanceKernel();
 	
 	/**
 	 * Constructor
-	 * @param DnaSequences - list of DNA sequences. Each DNA sequence needs to be of the same length.
+	 * @param DnaSequences - list of DNA sequences, which may be of different lengths
 	 * @throws Exception 
 	 */
 	public MedianStringFinder(List<List<Nucleotide>> dnaSequences) throws Exception {
 		
+		this(getPackedDnaSequences(dnaSequences));
+		
+	}
+	
+	/**
+	 * Constructor
+	 * @param dnaSequences - packed DNA sequences, which may be of different lengths
+	 * @throws Exception 
+	 */
+	public MedianStringFinder(PackedDnaSequence[] dnaSequences) throws Exception {
+		
 		//The DNA sequence need to exist
 		if (dnaSequences == null) {
 			throw new Exception("DNA Sequences were not passed in.");
 		}
 		
-		this.numberOfDnaSequences = dnaSequences.size();
-		int testDnaSequenceLength = 0;
-		boolean dnaSequenceFound = false;
+		this.numberOfDnaSequences = dnaSequences.length;
+		int shortestDnaSequenceLength = dnaSequences.length == 0 ? 0 : Integer.MAX_VALUE;
 		
-		//Look at all the DNA sequences to make sure they all exist and are of the same length
-		for (List<Nucleotide> dnaSequence : dnaSequences) {
+		//Look at all the DNA sequences to make sure they all exist. Each one keeps its own length.
+		for (PackedDnaSequence dnaSequence : dnaSequences) {
 			
 			//Each DNA sequence needs to be not null
 			if (dnaSequence == null) {
 				throw new Exception("One DNA Sequence in the list of sequences does not exist.");
 			}
+			shortestDnaSequenceLength = Math.min(shortestDnaSequenceLength, dnaSequence.getLength());
 			
-			if (!dnaSequenceFound) {
-				dnaSequenceFound = true;
-				testDnaSequenceLength = dnaSequence.size();
-				continue;
-			}
+		}
+		
+		this.shortestDnaSequenceLength = shortestDnaSequenceLength;
+		this.dnaSequences = dnaSequences;
+		
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @return packed copies of the nucleotide lists
+	 * @throws Exception
+	 */
+	private static PackedDnaSequence[] getPackedDnaSequences(List<List<Nucleotide>> dnaSequences) throws Exception {
+		
+		//The DNA sequence need to exist
+		if (dnaSequences == null) {
+			throw new Exception("DNA Sequences were not passed in.");
+		}
+		
+		PackedDnaSequence[] packedDnaSequences = new PackedDnaSequence[dnaSequences.size()];
+		int dnaSequenceCounter = 0;
+		for (List<Nucleotide> dnaSequence : dnaSequences) {
 			
-			if (testDnaSequenceLength != dnaSequence.size()) {
-				throw new Exception("All DNA Sequences need to be of the same size");
+			//Each DNA sequence needs to be not null
+			if (dnaSequence == null) {
+				throw new Exception("One DNA Sequence in the list of sequences does not exist.");
 			}
+			packedDnaSequences[dnaSequenceCounter++] = Nucleotide.getPackedDnaSequence(dnaSequence);
 			
 		}
 		
-		this.dnaSequenceLength = testDnaSequenceLength;
-		this.dnaSequences = dnaSequences;
+		return packedDnaSequences;
 		
 	}
 
@@ -65,104 +113,429 @@ public class MedianStringFinder {
 		return numberOfDnaSequences;
 	}
 
+	/**
+	 * @return length of the shortest DNA sequence, which is also the longest median string that can be searched for
+	 */
 	public int getDnaSequenceLength() {
-		return dnaSequenceLength;
+		return shortestDnaSequenceLength;
 	}
 
 	
+	/**
+	 * @return pruning counts of the last search started
+	 */
+	public SearchStatistics getSearchStatistics() {
+		return searchStatistics;
+	}
+	
+	/**
+	 * @return detailed counters of the last search started, or null if metrics were not enabled
+	 */
+	public SearchMetrics getSearchMetrics() {
+		return searchMetrics;
+	}
+	
 	/**
 	 * @param targetLength
 	 * @return a median string of the required target length
 	 */
 	public String findMedianString(int targetLength) {
+		return findMedianString(targetLength, 1);
+	}
+	
+	/**
+	 * @param targetLength
+	 * @param parallelism - number of worker threads
+	 * @return a median string of the required target length found by splitting the top levels of the
+	 * search tree into fork join tasks. The result is the same as the one returned by the sequential search.
+	 */
+	public String findMedianString(int targetLength, int parallelism) {
+		return findScoredMedianString(targetLength, parallelism).getMedianString();
+	}
+	
+	/**
+	 * @param targetLength
+	 * @param parallelism - number of worker threads
+	 * @return a median string of the required target length together with its total minimum hamming distance
+	 */
+	public ScoredMedianString findScoredMedianString(int targetLength, int parallelism) {
+		return findMedianString(targetLength, parallelism, SearchBudget.UNLIMITED, null).getScoredMedianString();
+	}
+	
+	/**
+	 * @param targetLength
+	 * @param parallelism - number of worker threads
+	 * @param searchBudget - time and node limits of the search
+	 * @param searchListener - told about each improved median string and about progress, or null
+	 * @return the best median string found before the budget ran out, and whether it is proven optimal
+	 */
+	public MedianStringSearchResult findMedianString(int targetLength, int parallelism, SearchBudget searchBudget, MedianStringSearchListener searchListener) {
+		
+		checkTargetLength(targetLength);
+		long startTime = System.currentTimeMillis();
+		
+		//The search works on its own statistics, so searches of the same finder can run at the same time
+		SearchStatistics searchStatistics = new SearchStatistics();
+		SearchMetrics searchMetrics = this.searchMetricsEnabled ? new SearchMetrics(targetLength) : null;
+		this.searchStatistics = searchStatistics;
+		this.searchMetrics = searchMetrics;
 		
-		this.globalBestScore = Integer.MAX_VALUE;
-		bestMedianString = EMPTY_STRING;
-		findMedianStringAtDepth(targetLength, EMPTY_STRING);
-		return this.bestMedianString;
+		//Reuse the result of an earlier search of the same DNA sequences
+		if (this.medianStringCache != null) {
+			ScoredMedianString cachedMedianString = this.medianStringCache.get(getDnaSequencesDigest(), targetLength);
+			if (cachedMedianString != null) {
+				return new MedianStringSearchResult(cachedMedianString, true, searchStatistics);
+			}
+		}
+		
+		//The suffix lower bounds are only safe if their searches finish, so they are not limited by the budget
+		int[] suffixLowerBounds = getSuffixLowerBounds(targetLength, parallelism);
+		
+		MedianStringSearchResult medianStringSearchResult = search(targetLength, suffixLowerBounds, parallelism, searchStatistics, searchMetrics, searchBudget, searchListener, startTime, new MedianStringIncumbent(searchListener), getSeed(targetLength, searchStatistics));
+		if (this.medianStringCache != null && medianStringSearchResult.isProvenOptimal()) {
+			this.medianStringCache.put(getDnaSequencesDigest(), targetLength, medianStringSearchResult.getScoredMedianString());
+		}
+		return medianStringSearchResult;
 		
 	}
 	
 	/**
-	 * @param numberOfCharsInRemainingMedianString
-	 * @param medianString
-	 * recursively find a median string of the required length
+	 * @param targetLength
+	 * @param numberOfMedianStrings - how many of the best median strings to return
+	 * @param parallelism - number of worker threads
+	 * @return the median strings of the required target length with the lowest total minimum hamming distances,
+	 * best first. They all come out of one walk of the search tree, which prunes against the score of the worst
+	 * median string kept so far instead of the best one. Ties are broken lexicographically, so the list is the
+	 * same whatever the parallelism.
 	 */
-	private void findMedianStringAtDepth(int numberOfCharsInRemainingMedianString, String medianString) {
+	public List<ScoredMedianString> findTopMedianStrings(int targetLength, int numberOfMedianStrings, int parallelism) {
+		return findTopMedianStrings(targetLength, numberOfMedianStrings, parallelism, null, new ArrayList<ScoredMedianString>());
+	}
+	
+	/**
+	 * @param targetLength
+	 * @param numberOfMedianStrings - how many of the best median strings to return
+	 * @param parallelism - number of worker threads
+	 * @param suffixLowerBounds - suffix lower bounds known to hold for these DNA sequences, or null to compute them
+	 * @param seeds - median strings of the target length with their exact scores for these DNA sequences, which the
+	 * incumbent starts out with. Once there are as many as the number of median strings, the search prunes against
+	 * the worst of them from the first node.
+	 * @return the best median strings, best first
+	 */
+	List<ScoredMedianString> findTopMedianStrings(int targetLength, int numberOfMedianStrings, int parallelism, int[] suffixLowerBounds, List<ScoredMedianString> seeds) {
 		
-		int currentScore = 0;
-		if (numberOfCharsInRemainingMedianString == 0) {
-			currentScore = getTotalMinimumHammingDistance(medianString);
-			if (currentScore < this.globalBestScore) {
-				this.globalBestScore = currentScore;
-				this.bestMedianString = medianString;
-			}
-			return;
+		checkTargetLength(targetLength);
+		SearchStatistics searchStatistics = new SearchStatistics();
+		SearchMetrics searchMetrics = this.searchMetricsEnabled ? new SearchMetrics(targetLength) : null;
+		this.searchStatistics = searchStatistics;
+		this.searchMetrics = searchMetrics;
+		
+		if (suffixLowerBounds == null) {
+			suffixLowerBounds = getSuffixLowerBounds(targetLength, parallelism);
+		}
+		MedianStringIncumbent incumbent = new MedianStringIncumbent(numberOfMedianStrings, null);
+		for (ScoredMedianString seed : seeds) {
+			incumbent.offer(seed.getMedianString(), seed.getScore());
 		}
+		search(targetLength, suffixLowerBounds, parallelism, searchStatistics, searchMetrics, SearchBudget.UNLIMITED, null, System.currentTimeMillis(), incumbent, getSeed(targetLength, searchStatistics));
+		return incumbent.getTopScoredMedianStrings();
 		
-		//Check for the bound condition
-		if (medianString.length() >= BRANCH_AND_BOUND_TEST_START_LENGTH && getTotalMinimumHammingDistance(medianString) > this.globalBestScore) {
-			return;
+	}
+	
+	/**
+	 * @param minimumLength - shortest median string length to search for
+	 * @param maximumLength - longest median string length to search for, no shorter than the minimum length
+	 * @param parallelism - number of worker threads
+	 * @return a median string of every length in the range, shortest first. This runs one full branch and bound
+	 * search per length, from the shortest to the longest, and does not share any search tree between them. Each
+	 * search passes on only two things to the longer ones. Its score becomes the exact lower bound for suffixes
+	 * of its length. Its median string, extended by one base on either end, is offered as a seed for the next length.
+	 */
+	public List<ScoredMedianString> findMedianStrings(int minimumLength, int maximumLength, int parallelism) {
+		
+		if (minimumLength < 1 || minimumLength > maximumLength) {
+			throw new IllegalArgumentException("Median string lengths " + minimumLength + " to " + maximumLength + " are not a range of positive lengths.");
+		}
+		checkTargetLength(maximumLength);
+		SearchStatistics searchStatistics = new SearchStatistics();
+		this.searchStatistics = searchStatistics;
+		this.searchMetrics = null;
+		
+		int[] suffixLowerBounds = Arrays.copyOf(getSuffixLowerBounds(minimumLength, parallelism), maximumLength + 1);
+		List<ScoredMedianString> scoredMedianStrings = new ArrayList<ScoredMedianString>();
+		ScoredMedianString previousMedianString = null;
+		for (int targetLength = minimumLength; targetLength <= maximumLength; ++targetLength) {
+			
+			ScoredMedianString scoredMedianString = this.medianStringCache == null ? null : this.medianStringCache.get(getDnaSequencesDigest(), targetLength);
+			if (scoredMedianString == null) {
+				ScoredMedianString seed = this.heuristicSeedingEnabled ? getBetterSeed(getSeed(targetLength, searchStatistics), getExtendedSeed(previousMedianString)) : null;
+				if (seed != null) {
+					searchStatistics.setSeedScore(seed.getScore());
+				}
+				scoredMedianString = search(targetLength, suffixLowerBounds, parallelism, searchStatistics, null, SearchBudget.UNLIMITED, null, System.currentTimeMillis(), new MedianStringIncumbent(), seed).getScoredMedianString();
+				if (this.medianStringCache != null) {
+					this.medianStringCache.put(getDnaSequencesDigest(), targetLength, scoredMedianString);
+				}
+			}
+			
+			suffixLowerBounds[targetLength] = scoredMedianString.getScore();
+			scoredMedianStrings.add(scoredMedianString);
+			previousMedianString = scoredMedianString;
+			
 		}
+		return scoredMedianStrings;
+		
+	}
+	
+	/**
+	 * @param medianString - median string one base shorter than the one being searched for, or null
+	 * @return the best of the median strings made by adding one base to either end of the median string, or null
+	 */
+	private ScoredMedianString getExtendedSeed(ScoredMedianString medianString) {
 		
-		//Append all possible base combinations to current median string and add nodes to the search tree
+		if (medianString == null) {
+			return null;
+		}
+		ScoredMedianString extendedSeed = null;
 		for (char base : Nucleotide.validBases) {
-			findMedianStringAtDepth(numberOfCharsInRemainingMedianString - 1, (new StringBuffer().append(medianString).append(base)).toString());
+			String appendedMedianString = medianString.getMedianString() + base, prependedMedianString = base + medianString.getMedianString();
+			extendedSeed = getBetterSeed(extendedSeed, new ScoredMedianString(appendedMedianString, getTotalMinimumHammingDistance(appendedMedianString)));
+			extendedSeed = getBetterSeed(extendedSeed, new ScoredMedianString(prependedMedianString, getTotalMinimumHammingDistance(prependedMedianString)));
 		}
+		return extendedSeed;
 		
 	}
 	
 	/**
-	 * @param proposedMedianString
-	 * @return the minimum possible total hamming distance between the proposed median string and the DNA
-	 * sequences by (1) finding the minimum hamming distance for each DNA sequence corresponding to all 
-	 * possible starting points (2) finding the sum of all the minimum values found in the step above.
+	 * @param seed
+	 * @param otherSeed
+	 * @return the better of the two seeds, either of which may be null
 	 */
-	private int getTotalMinimumHammingDistance(String proposedMedianString) {
+	private static ScoredMedianString getBetterSeed(ScoredMedianString seed, ScoredMedianString otherSeed) {
 		
-		int proposedMedianStringLength = proposedMedianString.length(), maximumMedianStringStartPosition = this.dnaSequenceLength - proposedMedianStringLength, totalMinimumHammingDistance = 0;
+		if (seed == null) {
+			return otherSeed;
+		}
+		return otherSeed == null || seed.compareTo(otherSeed) <= 0 ? seed : otherSeed;
 		
-		//Find the minimum hamming distance between the proposed median string and each DNA sequence
-		for (int dnaSequenceCounter = 0; dnaSequenceCounter < this.numberOfDnaSequences; ++dnaSequenceCounter) {
-			int minimumHamingDistance = Integer.MAX_VALUE, currentMinimumHamingDistance = 0;
-			for (int medianStringStartPosition = 0; medianStringStartPosition < maximumMedianStringStartPosition; ++medianStringStartPosition) {
-				
-				List<Nucleotide> dnaSubSequence = this.dnaSequences.get(dnaSequenceCounter).subList(medianStringStartPosition, medianStringStartPosition + proposedMedianStringLength);
-				try {
-					currentMinimumHamingDistance = getHammingDistance(Nucleotide.getDnaSequence(proposedMedianString), dnaSubSequence);
-					if (currentMinimumHamingDistance < minimumHamingDistance) {
-						minimumHamingDistance = currentMinimumHamingDistance;
-					}
-				} catch (Exception e) {
-					System.err.println(proposedMedianString + " is not a valid nucleotide sequence.");
-					System.exit(0);
-				}
+	}
+	
+	/**
+	 * @param targetLength
+	 * @param searchStatistics - statistics of the search that the seed score is recorded in
+	 * @return a quick heuristic median string for the exact search to start from so that it prunes well from
+	 * the first node, or null if seeding is turned off
+	 */
+	ScoredMedianString getSeed(int targetLength, SearchStatistics searchStatistics) {
+		
+		if (!this.heuristicSeedingEnabled) {
+			return null;
+		}
+		ScoredMedianString seed = new MedianStringSeeder(this.dnaSequences, getNumberOfWindows(targetLength), this.reverseComplementScored, this.hammingDistanceKernel).getSeed(targetLength);
+		if (seed != null) {
+			searchStatistics.setSeedScore(seed.getScore());
+		}
+		return seed;
+		
+	}
+	
+	/**
+	 * @param heuristicSeedingEnabled - false to start the exact search without a heuristic upper bound
+	 */
+	public void setHeuristicSeedingEnabled(boolean heuristicSeedingEnabled) {
+		this.heuristicSeedingEnabled = heuristicSeedingEnabled;
+	}
+	
+	/**
+	 * @param reverseComplementScored - true to let each median string match a window on either strand, by taking
+	 * the better of the median string and its reverse complement against every window
+	 */
+	public void setReverseComplementScored(boolean reverseComplementScored) {
+		this.reverseComplementScored = reverseComplementScored;
+	}
+	
+	/**
+	 * @return true if median strings may match each DNA sequence on either strand
+	 */
+	boolean isReverseComplementScored() {
+		return reverseComplementScored;
+	}
+	
+	/**
+	 * @return the packed DNA sequences that median strings are scored against
+	 */
+	PackedDnaSequence[] getDnaSequences() {
+		return dnaSequences;
+	}
+	
+	/**
+	 * @param hammingDistanceKernel - kernel that scores complete median strings against the DNA sequences
+	 */
+	public void setHammingDistanceKernel(HammingDistanceKernel hammingDistanceKernel) {
+		this.hammingDistanceKernel = hammingDistanceKernel;
+	}
+	
+	/**
+	 * @param searchMetricsEnabled - true to collect per depth node counts and scoring time in later searches
+	 */
+	public void setSearchMetricsEnabled(boolean searchMetricsEnabled) {
+		this.searchMetricsEnabled = searchMetricsEnabled;
+	}
+	
+	/**
+	 * @param medianStringCache - cache to look results up in before searching, or null to always search
+	 */
+	public void setMedianStringCache(MedianStringCache medianStringCache) {
+		this.medianStringCache = medianStringCache;
+	}
+	
+	/**
+	 * @return digest of the DNA sequences, computed on first use. Results that count the reverse strand get
+	 * a key of their own because they score differently.
+	 */
+	private String getDnaSequencesDigest() {
+		
+		if (this.dnaSequencesDigest == null) {
+			this.dnaSequencesDigest = MedianStringCache.getDigest(this.dnaSequences);
+		}
+		return this.reverseComplementScored ? this.dnaSequencesDigest + REVERSE_COMPLEMENT_DIGEST_SUFFIX : this.dnaSequencesDigest;
+		
+	}
+	
+	/**
+	 * @param targetLength
+	 * @param parallelism
+	 * @return for every length shorter than the target length, a score that no median string of that length
+	 * can beat using any window start position that a suffix of that length could fall on. Short lengths are
+	 * solved exactly by a search that uses the entries before it as its own bounds. Longer lengths add up the
+	 * entries of two shorter lengths, which is safe because the best score of a median string is at least the
+	 * sum of the best scores of its two halves.
+	 */
+	int[] getSuffixLowerBounds(int targetLength, int parallelism) {
+		
+		int[] suffixLowerBounds = new int[targetLength + 1];
+		for (int suffixLength = 1; suffixLength < targetLength; ++suffixLength) {
 			
+			if (suffixLength <= SUFFIX_LOWER_BOUND_EXACT_LENGTH) {
+				suffixLowerBounds[suffixLength] = search(suffixLength, suffixLowerBounds, parallelism, new SearchStatistics(), null, SearchBudget.UNLIMITED, null, System.currentTimeMillis(), new MedianStringIncumbent(), null).getScoredMedianString().getScore();
+				continue;
+			}
 			
+			for (int firstPartLength = 1; firstPartLength < suffixLength; ++firstPartLength) {
+				suffixLowerBounds[suffixLength] = Math.max(suffixLowerBounds[suffixLength], suffixLowerBounds[firstPartLength] + suffixLowerBounds[suffixLength - firstPartLength]);
 			}
-			totalMinimumHammingDistance += minimumHamingDistance;
+			
 		}
+		return suffixLowerBounds;
 		
-		return totalMinimumHammingDistance;
 	}
 	
 	/**
-	 * @param nucleotideSequence1
-	 * @param nucleotideSequence2
-	 * @return hamming distance between the two nucleotide sequences
+	 * @param targetLength
+	 * @param suffixLowerBounds
+	 * @param parallelism
+	 * @param searchStatistics
+	 * @param searchMetrics - detailed counters, or null to skip collecting them
+	 * @param searchBudget
+	 * @param searchListener
+	 * @param startTime - time in milliseconds that the time budget is counted from
+	 * @param incumbent - keeps the best median strings found
+	 * @param seed - median string the incumbent starts out with, or null
+	 * @return the best median string of the target length that was found and its score
 	 */
-	private int getHammingDistance(List<Nucleotide> nucleotideSequence1, List<Nucleotide> nucleotideSequence2) {
+	private MedianStringSearchResult search(int targetLength, int[] suffixLowerBounds, int parallelism, SearchStatistics searchStatistics, SearchMetrics searchMetrics, SearchBudget searchBudget, MedianStringSearchListener searchListener, long startTime, MedianStringIncumbent incumbent, ScoredMedianString seed) {
 		
-		int hammingDistance = 0;
-		int testLength = nucleotideSequence1.size();
-		for (int offsetCounter = 0; offsetCounter < testLength; ++offsetCounter) {
-			if (!nucleotideSequence1.get(offsetCounter).equals(nucleotideSequence2.get(offsetCounter))) {
-				++hammingDistance;
+		MedianStringSearchContext searchContext = getSearchContext(targetLength, suffixLowerBounds, searchStatistics, searchMetrics, searchBudget, searchListener, startTime, incumbent);
+		if (seed != null) {
+			searchContext.getIncumbent().offer(seed.getMedianString(), seed.getScore());
+		}
+		if (parallelism <= 1) {
+			new MedianStringSearch(searchContext).search(EMPTY_STRING);
+		} else {
+			ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+			try {
+				forkJoinPool.invoke(new MedianStringSearchTask(searchContext, MedianStringSearchTask.getSplitLength(targetLength, parallelism), EMPTY_STRING));
+			} finally {
+				forkJoinPool.shutdown();
 			}
 		}
+		return new MedianStringSearchResult(searchContext.getIncumbent().getBestScoredMedianString(), !searchContext.isStopped(), searchStatistics);
+		
+	}
+	
+	/**
+	 * @param targetLength
+	 * @param suffixLowerBounds
+	 * @param searchStatistics
+	 * @param searchMetrics - detailed counters, or null to skip collecting them
+	 * @param searchBudget
+	 * @param searchListener
+	 * @param startTime - time in milliseconds that the time budget is counted from
+	 * @param incumbent - keeps the best median strings found
+	 * @return settings and shared state for searches of any prefixes of the target length
+	 */
+	MedianStringSearchContext getSearchContext(int targetLength, int[] suffixLowerBounds, SearchStatistics searchStatistics, SearchMetrics searchMetrics, SearchBudget searchBudget, MedianStringSearchListener searchListener, long startTime, MedianStringIncumbent incumbent) {
+		
+		//Leaves can be scored with table lookups when a table of every median string of the target length fits in memory
+		boolean kmerDistanceIndexAllowed = targetLength > 0 && KmerDistanceIndex.fitsInMemoryBudget(this.numberOfDnaSequences, targetLength, KMER_DISTANCE_INDEX_MEMORY_BUDGET);
+		return new MedianStringSearchContext(this.dnaSequences, getNumberOfWindows(targetLength), targetLength, suffixLowerBounds, incumbent, searchStatistics, searchMetrics, this.reverseComplementScored, kmerDistanceIndexAllowed, searchBudget, searchListener, startTime);
+		
+	}
+	
+	/**
+	 * @param targetLength
+	 * @return for each DNA sequence, the number of window start positions for a median string of the target length.
+	 * A window can start anywhere from the first base up to and including the start of the last full window.
+	 */
+	private int[] getNumberOfWindows(int targetLength) {
+		
+		int[] numberOfWindows = new int[this.numberOfDnaSequences];
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < this.numberOfDnaSequences; ++dnaSequenceCounter) {
+			numberOfWindows[dnaSequenceCounter] = Math.max(0, this.dnaSequences[dnaSequenceCounter].getLength() - targetLength + 1);
+		}
+		return numberOfWindows;
+		
+	}
+	
+	/**
+	 * @param targetLength
+	 * Make sure that every DNA sequence is long enough to hold a median string of the target length
+	 */
+	void checkTargetLength(int targetLength) {
+		
+		if (targetLength > this.shortestDnaSequenceLength) {
+			throw new IllegalArgumentException("Median string length " + targetLength + " is longer than the shortest DNA sequence, which has " + this.shortestDnaSequenceLength + " bases.");
+		}
+		
+	}
+	
+	/**
+	 * @param proposedMedianString
+	 * @return the minimum possible total hamming distance between the proposed median string and the DNA
+	 * sequences by (1) finding the minimum hamming distance for each DNA sequence corresponding to all 
+	 * possible starting points (2) finding the sum of all the minimum values found in the step above.
+	 * When the reverse strand is scored each starting point takes the better of the two strands.
+	 */
+	public int getTotalMinimumHammingDistance(String proposedMedianString) {
+		
+		checkTargetLength(proposedMedianString.length());
+		int[] numberOfWindows = getNumberOfWindows(proposedMedianString.length());
+		int totalMinimumHammingDistance = 0;
+		PackedDnaSequence packedMedianString = null;
+		try {
+			packedMedianString = Nucleotide.getPackedDnaSequence(proposedMedianString);
+		} catch (Exception e) {
+			System.err.println(proposedMedianString + " is not a valid nucleotide sequence.");
+			System.exit(0);
+		}
 		
-		return hammingDistance;
+		//Find the minimum hamming distance between the proposed median string and each DNA sequence
+		PackedDnaSequence reverseComplementMedianString = this.reverseComplementScored ? packedMedianString.getReverseComplement() : null;
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < this.numberOfDnaSequences; ++dnaSequenceCounter) {
+			totalMinimumHammingDistance += this.hammingDistanceKernel.getMinimumHammingDistance(this.dnaSequences[dnaSequenceCounter], packedMedianString, reverseComplementMedianString, numberOfWindows[dnaSequenceCounter]);
+		}
 		
+		return totalMinimumHammingDistance;
 	}
 	
 	/**
@@ -171,7 +544,9 @@ public class MedianStringFinder {
 	 * @param medianStringLength
 	 * @param numberOfMedianStringMutations
 	 * @param randomNumberGenerator
-	 * @return DNA sequences with embedded mutated median strings and original median string
+	 * @return DNA sequences with embedded mutated median strings and original median string. The client generates
+	 * its data with generatePackedDnaSequences. This generator stays for the JMH benchmarks, which build their data
+	 * with it from a fixed seed so that their results compare with the ones of the baseline build.
 	 */
 	public static Map<String, Object> generateDnaSequences(int dnaSequenceLength, int numberOfDnaSequences, int medianStringLength, int numberOfMedianStringMutations, Random randomNumberGenerator) {
 		
@@ -217,6 +592,200 @@ public class MedianStringFinder {
 		
 	}
 	
+	/**
+	 * @param dnaSequenceLength
+	 * @param numberOfDnaSequences
+	 * @param medianStringLength
+	 * @param numberOfMedianStringMutations
+	 * @param seed - the same seed gives the same DNA sequences whatever the parallelism
+	 * @param parallelism - number of generating threads
+	 * @return packed DNA sequences with embedded mutated median strings under PACKED_DNA_SEQUENCE_KEY and the
+	 * original median string under MEDIAN_STRING_KEY. The sequences are laid out like the ones of
+	 * generateDnaSequences, but their bases are written straight into packed words.
+	 * @throws Exception
+	 */
+	public static Map<String, Object> generatePackedDnaSequences(int dnaSequenceLength, int numberOfDnaSequences, int medianStringLength, int numberOfMedianStringMutations, long seed, int parallelism) throws Exception {
+		
+		checkGeneratedDnaSequenceSizes(dnaSequenceLength, medianStringLength, numberOfMedianStringMutations);
+		SplittableRandom randomNumberGenerator = new SplittableRandom(seed);
+		int[] medianStringCodes = getRandomBaseCodes(medianStringLength, randomNumberGenerator);
+		PackedDnaSequence[] dnaSequences = new PackedDnaSequence[numberOfDnaSequences];
+		
+		ExecutorService generatorThreads = Executors.newFixedThreadPool(Math.max(1, parallelism));
+		try {
+			generatePackedDnaSequences(dnaSequences, dnaSequenceLength, medianStringCodes, numberOfMedianStringMutations, randomNumberGenerator, generatorThreads, parallelism);
+		} finally {
+			generatorThreads.shutdown();
+		}
+		
+		Map<String, Object> returnValue = new HashMap<String, Object>();
+		returnValue.put(MEDIAN_STRING_KEY, getMedianString(medianStringCodes));
+		returnValue.put(PACKED_DNA_SEQUENCE_KEY, dnaSequences);
+		return returnValue;
+		
+	}
+	
+	/**
+	 * @param storeFile - packed sequence store to create or overwrite
+	 * @param dnaSequenceLength
+	 * @param numberOfDnaSequences
+	 * @param medianStringLength
+	 * @param numberOfMedianStringMutations
+	 * @param seed - the same seed gives the same store as generatePackedDnaSequences gives sequences
+	 * @param parallelism - number of generating threads
+	 * @return the original median string. The DNA sequences are generated and written in batches, so the
+	 * number of sequences is limited by the disk and not by the heap.
+	 * @throws Exception
+	 */
+	public static String generateDnaSequences(File storeFile, int dnaSequenceLength, int numberOfDnaSequences, int medianStringLength, int numberOfMedianStringMutations, long seed, int parallelism) throws Exception {
+		
+		checkGeneratedDnaSequenceSizes(dnaSequenceLength, medianStringLength, numberOfMedianStringMutations);
+		SplittableRandom randomNumberGenerator = new SplittableRandom(seed);
+		int[] medianStringCodes = getRandomBaseCodes(medianStringLength, randomNumberGenerator);
+		
+		ExecutorService generatorThreads = Executors.newFixedThreadPool(Math.max(1, parallelism));
+		try (PackedSequenceStore.Writer writer = new PackedSequenceStore.Writer(storeFile)) {
+			for (int firstDnaSequence = 0; firstDnaSequence < numberOfDnaSequences; firstDnaSequence += GENERATED_DNA_SEQUENCES_PER_BATCH) {
+				PackedDnaSequence[] dnaSequences = new PackedDnaSequence[Math.min(GENERATED_DNA_SEQUENCES_PER_BATCH, numberOfDnaSequences - firstDnaSequence)];
+				generatePackedDnaSequences(dnaSequences, dnaSequenceLength, medianStringCodes, numberOfMedianStringMutations, randomNumberGenerator, generatorThreads, parallelism);
+				for (PackedDnaSequence dnaSequence : dnaSequences) {
+					writer.add(dnaSequence);
+				}
+			}
+			writer.finish();
+		} finally {
+			generatorThreads.shutdown();
+		}
+		
+		return getMedianString(medianStringCodes);
+		
+	}
+	
+	/**
+	 * @param dnaSequenceLength
+	 * @param medianStringLength
+	 * @param numberOfMedianStringMutations
+	 * Make sure that there is room to insert the median string and enough distinct bases to mutate
+	 */
+	private static void checkGeneratedDnaSequenceSizes(int dnaSequenceLength, int medianStringLength, int numberOfMedianStringMutations) {
+		
+		if (dnaSequenceLength < 1 || medianStringLength < 0) {
+			throw new IllegalArgumentException("DNA sequence length " + dnaSequenceLength + " and median string length " + medianStringLength + " cannot be generated.");
+		}
+		if (numberOfMedianStringMutations < 0 || numberOfMedianStringMutations > medianStringLength) {
+			throw new IllegalArgumentException(numberOfMedianStringMutations + " mutations cannot be made in a median string of " + medianStringLength + " bases.");
+		}
+		
+	}
+	
+	/**
+	 * @param dnaSequences - filled with generated DNA sequences
+	 * @param dnaSequenceLength
+	 * @param medianStringCodes
+	 * @param numberOfMedianStringMutations
+	 * @param randomNumberGenerator - gives one seed per DNA sequence, so that each sequence is the same whichever
+	 * thread generates it
+	 * @param generatorThreads
+	 * @param parallelism - number of ranges of DNA sequences to generate at once
+	 * @throws Exception
+	 */
+	private static void generatePackedDnaSequences(PackedDnaSequence[] dnaSequences, int dnaSequenceLength, int[] medianStringCodes, int numberOfMedianStringMutations, SplittableRandom randomNumberGenerator, ExecutorService generatorThreads, int parallelism) throws Exception {
+		
+		long[] dnaSequenceSeeds = new long[dnaSequences.length];
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < dnaSequences.length; ++dnaSequenceCounter) {
+			dnaSequenceSeeds[dnaSequenceCounter] = randomNumberGenerator.nextLong();
+		}
+		
+		int numberOfRanges = Math.max(1, Math.min(parallelism, dnaSequences.length));
+		List<Callable<Object>> rangeTasks = new ArrayList<Callable<Object>>(numberOfRanges);
+		for (int rangeCounter = 0; rangeCounter < numberOfRanges; ++rangeCounter) {
+			final int rangeStart = (int) ((long) dnaSequences.length * rangeCounter / numberOfRanges), rangeEnd = (int) ((long) dnaSequences.length * (rangeCounter + 1) / numberOfRanges);
+			rangeTasks.add(Executors.callable(new Runnable() {
+				@Override
+				public void run() {
+					for (int dnaSequenceCounter = rangeStart; dnaSequenceCounter < rangeEnd; ++dnaSequenceCounter) {
+						dnaSequences[dnaSequenceCounter] = generatePackedDnaSequence(dnaSequenceLength, medianStringCodes, numberOfMedianStringMutations, new SplittableRandom(dnaSequenceSeeds[dnaSequenceCounter]));
+					}
+				}
+			}));
+		}
+		for (Future<Object> rangeResult : generatorThreads.invokeAll(rangeTasks)) {
+			rangeResult.get();
+		}
+		
+	}
+	
+	/**
+	 * @param dnaSequenceLength
+	 * @param medianStringCodes
+	 * @param numberOfMedianStringMutations
+	 * @param randomNumberGenerator
+	 * @return random bases with a mutated copy of the median string inserted at a random position
+	 */
+	private static PackedDnaSequence generatePackedDnaSequence(int dnaSequenceLength, int[] medianStringCodes, int numberOfMedianStringMutations, SplittableRandom randomNumberGenerator) {
+		
+		//Every random word is 32 random bases. Writing the median string over the bases at the insert position
+		//is the same as inserting it, because the bases it would push along are as random as the ones it covers.
+		int medianStringLength = medianStringCodes.length, length = dnaSequenceLength + medianStringLength;
+		long[] words = new long[PackedDnaSequence.getNumberOfWords(length)];
+		for (int wordCounter = 0; wordCounter < words.length; ++wordCounter) {
+			words[wordCounter] = randomNumberGenerator.nextLong();
+		}
+		int unusedBits = words.length * Long.SIZE - length * PackedDnaSequence.BITS_PER_BASE;
+		words[words.length - 1] &= -1L >>> unusedBits;
+		PackedDnaSequence dnaSequence = new PackedDnaSequence(words, length);
+		
+		int insertPosition = randomNumberGenerator.nextInt(dnaSequenceLength);
+		for (int position = 0; position < medianStringLength; ++position) {
+			dnaSequence.setBaseCode(insertPosition + position, medianStringCodes[position]);
+		}
+		
+		//Mutate distinct positions picked by a partial shuffle, each to one of the other three bases
+		int[] mutationPositions = new int[medianStringLength];
+		for (int position = 0; position < medianStringLength; ++position) {
+			mutationPositions[position] = position;
+		}
+		int numberOfOtherBases = Nucleotide.validBases.length - 1;
+		for (int mutationCounter = 0; mutationCounter < numberOfMedianStringMutations; ++mutationCounter) {
+			int swapIndex = mutationCounter + randomNumberGenerator.nextInt(medianStringLength - mutationCounter), mutationPosition = mutationPositions[swapIndex];
+			mutationPositions[swapIndex] = mutationPositions[mutationCounter];
+			mutationPositions[mutationCounter] = mutationPosition;
+			dnaSequence.setBaseCode(insertPosition + mutationPosition, (medianStringCodes[mutationPosition] + 1 + randomNumberGenerator.nextInt(numberOfOtherBases)) % Nucleotide.validBases.length);
+		}
+		
+		return dnaSequence;
+		
+	}
+	
+	/**
+	 * @param numberOfBases
+	 * @param randomNumberGenerator
+	 * @return random base codes
+	 */
+	private static int[] getRandomBaseCodes(int numberOfBases, SplittableRandom randomNumberGenerator) {
+		
+		int[] baseCodes = new int[numberOfBases];
+		for (int position = 0; position < numberOfBases; ++position) {
+			baseCodes[position] = randomNumberGenerator.nextInt(Nucleotide.validBases.length);
+		}
+		return baseCodes;
+		
+	}
+	
+	/**
+	 * @param medianStringCodes
+	 * @return the median string spelled out in bases
+	 */
+	private static String getMedianString(int[] medianStringCodes) {
+		
+		char[] medianString = new char[medianStringCodes.length];
+		for (int position = 0; position < medianStringCodes.length; ++position) {
+			medianString[position] = Nucleotide.validBases[medianStringCodes[position]];
+		}
+		return new String(medianString);
+		
+	}
+	
 	/**
 	 * @param medianStringCopy
 	 * @param numberOfMedianStringMutations
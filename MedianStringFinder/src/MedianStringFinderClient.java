@@ -2,8 +2,12 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -16,13 +20,27 @@ public class MedianStringFinderClient {
 	public static final String ERROR_MESSAGE_FOR_MEDIAN_STRING_NOT_FOUND = "Median string could not be found!!!";
 	public static final String DNA_SEQUENCE_FILES_PREFIX = "DnaSequence";
 	public static final String HUMAN_DNA_SEQUENCES_FILE = "HumanSequence.txt";
-	public static final String HUMAN_DNA_SEQUENCES_REGEX = ">hg38[A-Za-z_0-9\\.]*";
 	public static final String USE_DNA_SEQUENCE_FROM_TEXT_FILE = "T";
 	public static final String USE_HUMAN_DNA_SEQUENCE = "H";
 	public static final String USE_GENERATED_DNA_SEQUENCE = "G";
+	public static final String USE_GENERATED_DNA_SEQUENCE_IN_PARALLEL = "P";
 	public static final String REPEAT_TILL_FAILURE_TO_FIND_MEDIAN_STRING = "F";
 	public static final String TIMING_WITH_DNA_SEQUENCE_LENGTH = "L";
 	public static final String TIMING_WITH_MEDIAN_STRING_LENGTH = "M";
+	public static final String RUN_BATCH_MANIFEST = "B";
+	public static final String USE_GENERATED_DNA_SEQUENCE_WITH_TIME_BUDGET = "A";
+	public static final String COMPARE_HEURISTIC_SEEDING = "S";
+	public static final String PRINT_SEARCH_METRICS = "I";
+	public static final String FIND_TOP_MEDIAN_STRINGS = "K";
+	public static final String USE_BOTH_DNA_STRANDS = "R";
+	public static final String SWEEP_MEDIAN_STRING_LENGTHS = "W";
+	public static final String USE_PACKED_SEQUENCE_STORE = "O";
+	public static final String COORDINATE_SHARDED_SEARCH = "D";
+	public static final String RUN_SHARD_WORKER = "X";
+	public static final String GENERATE_PACKED_SEQUENCE_STORE = "N";
+	public static final String UPDATE_MEDIAN_STRING_ONLINE = "U";
+	public static final String RUN_FINDER_SERVICE = "V";
+	public static final String SEND_SERVICE_REQUESTS = "Q";
 	public static final int DEFAULT_TARGET_MEDIAN_STRING_LENGTH = 10;
 	
 	public static void main(String[] args) {
@@ -35,15 +53,45 @@ public class MedianStringFinderClient {
 			} else if (USE_DNA_SEQUENCE_FROM_TEXT_FILE.equals(args[0].trim())) {
 				System.out.println(medianStringFinderClient.findMedianString(medianStringFinderClient.getDnaSequences(), DEFAULT_TARGET_MEDIAN_STRING_LENGTH));
 			} else if (USE_HUMAN_DNA_SEQUENCE.equals(args[0].trim())) {
-				System.out.println(medianStringFinderClient.findMedianString(medianStringFinderClient.getHumanDnaSequences(), DEFAULT_TARGET_MEDIAN_STRING_LENGTH));
+				System.out.println(medianStringFinderClient.findMedianString(medianStringFinderClient.getHumanDnaSequences(DEFAULT_TARGET_MEDIAN_STRING_LENGTH), DEFAULT_TARGET_MEDIAN_STRING_LENGTH));
 			} else if (USE_GENERATED_DNA_SEQUENCE.equals(args[0].trim())) {
 				System.out.println(medianStringFinderClient.findMedianString(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[3])));
+			} else if (USE_GENERATED_DNA_SEQUENCE_IN_PARALLEL.equals(args[0].trim())) {
+				System.out.println(medianStringFinderClient.findMedianStringInParallel(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[3])));
 			} else if (REPEAT_TILL_FAILURE_TO_FIND_MEDIAN_STRING.equals(args[0].trim())) {
 				medianStringFinderClient.repeatTillFailureToFindMedianString();
 			} else if (TIMING_WITH_DNA_SEQUENCE_LENGTH.equals(args[0].trim())) {
 				medianStringFinderClient.timingWithDnaSequenceLength();
 			} else if (TIMING_WITH_MEDIAN_STRING_LENGTH.equals(args[0].trim())) {
 				medianStringFinderClient.timingWithMedianStringLength();
+			} else if (USE_GENERATED_DNA_SEQUENCE_WITH_TIME_BUDGET.equals(args[0].trim())) {
+				System.out.println(medianStringFinderClient.findMedianStringWithTimeBudget(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[3]), Long.parseLong(args[5])));
+			} else if (COMPARE_HEURISTIC_SEEDING.equals(args[0].trim())) {
+				medianStringFinderClient.compareHeuristicSeeding(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[3]));
+			} else if (PRINT_SEARCH_METRICS.equals(args[0].trim())) {
+				System.out.println(medianStringFinderClient.getSearchMetrics(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[3])));
+			} else if (FIND_TOP_MEDIAN_STRINGS.equals(args[0].trim())) {
+				System.out.println(medianStringFinderClient.findTopMedianStrings(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[3]), Integer.parseInt(args[5])));
+			} else if (USE_BOTH_DNA_STRANDS.equals(args[0].trim())) {
+				System.out.println(medianStringFinderClient.findMedianStringOnBothStrands(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[3])));
+			} else if (SWEEP_MEDIAN_STRING_LENGTHS.equals(args[0].trim())) {
+				medianStringFinderClient.sweepMedianStringLengths(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[5]), Integer.parseInt(args[6]));
+			} else if (USE_PACKED_SEQUENCE_STORE.equals(args[0].trim())) {
+				System.out.println(medianStringFinderClient.findMedianString(medianStringFinderClient.getStoredDnaSequences(args[1], args[2], Integer.parseInt(args[3])), Integer.parseInt(args[3])));
+			} else if (COORDINATE_SHARDED_SEARCH.equals(args[0].trim())) {
+				medianStringFinderClient.coordinateShardedSearch(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[3]), Integer.parseInt(args[5]), args.length > 6 ? Integer.parseInt(args[6]) : MedianStringShardCoordinator.DEFAULT_SHARD_LENGTH);
+			} else if (RUN_SHARD_WORKER.equals(args[0].trim())) {
+				medianStringFinderClient.runShardWorker(args[1], Integer.parseInt(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors());
+			} else if (GENERATE_PACKED_SEQUENCE_STORE.equals(args[0].trim())) {
+				medianStringFinderClient.generatePackedSequenceStore(args);
+			} else if (UPDATE_MEDIAN_STRING_ONLINE.equals(args[0].trim())) {
+				medianStringFinderClient.updateMedianStringOnline(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[3]));
+			} else if (RUN_FINDER_SERVICE.equals(args[0].trim())) {
+				medianStringFinderClient.runFinderService(Integer.parseInt(args[1]), args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors());
+			} else if (SEND_SERVICE_REQUESTS.equals(args[0].trim())) {
+				medianStringFinderClient.sendServiceRequests(args[1], Integer.parseInt(args[2]), args);
+			} else if (RUN_BATCH_MANIFEST.equals(args[0].trim())) {
+				medianStringFinderClient.runBatchManifest(args);
 			} else {
 				System.out.println(medianStringFinderClient.findMedianString(medianStringFinderClient.getGeneratedDnaSequences(args), Integer.parseInt(args[3])));
 			}
@@ -72,6 +120,345 @@ public class MedianStringFinderClient {
 		return ERROR_MESSAGE_FOR_MEDIAN_STRING_NOT_FOUND;
 	}
 	
+	/**
+	 * @param dnaSequences
+	 * @return a median string 
+	 */
+	private String findMedianString(PackedDnaSequence[] dnaSequences, int medianStringLength) {
+				
+		try {
+			MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+			return medianStringFinder.findMedianString(medianStringLength);
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		return ERROR_MESSAGE_FOR_MEDIAN_STRING_NOT_FOUND;
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @return a median string found using all available processors
+	 */
+	private String findMedianStringInParallel(PackedDnaSequence[] dnaSequences, int medianStringLength) {
+				
+		try {
+			MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+			return medianStringFinder.findMedianString(medianStringLength, Runtime.getRuntime().availableProcessors());
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		return ERROR_MESSAGE_FOR_MEDIAN_STRING_NOT_FOUND;
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @param medianStringLength
+	 * @return a median string that may match each DNA sequence on either strand, with its score
+	 */
+	private ScoredMedianString findMedianStringOnBothStrands(PackedDnaSequence[] dnaSequences, int medianStringLength) {
+		
+		try {
+			MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+			medianStringFinder.setReverseComplementScored(true);
+			return medianStringFinder.findScoredMedianString(medianStringLength, Runtime.getRuntime().availableProcessors());
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @param medianStringLength
+	 * @param numberOfMedianStrings
+	 * @return the best median strings, best first
+	 */
+	private List<ScoredMedianString> findTopMedianStrings(PackedDnaSequence[] dnaSequences, int medianStringLength, int numberOfMedianStrings) {
+		
+		try {
+			MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+			return medianStringFinder.findTopMedianStrings(medianStringLength, numberOfMedianStrings, Runtime.getRuntime().availableProcessors());
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @param medianStringLength
+	 * @return the median string and the metrics of its search as a JSON object
+	 */
+	private String getSearchMetrics(PackedDnaSequence[] dnaSequences, int medianStringLength) {
+		
+		try {
+			MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+			medianStringFinder.setSearchMetricsEnabled(true);
+			ScoredMedianString scoredMedianString = medianStringFinder.findScoredMedianString(medianStringLength, Runtime.getRuntime().availableProcessors());
+			SearchStatistics searchStatistics = medianStringFinder.getSearchStatistics();
+			return "{\"medianString\":\"" + scoredMedianString.getMedianString() + "\",\"score\":" + scoredMedianString.getScore() + ",\"nodesVisited\":" + searchStatistics.getNodesVisited() + ",\"nodesPrunedByPrefixBound\":" + searchStatistics.getNodesPrunedByPrefixBound() + ",\"nodesPrunedBySuffixBound\":" + searchStatistics.getNodesPrunedBySuffixBound() + ",\"metrics\":" + medianStringFinder.getSearchMetrics().toJson() + "}";
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		return ERROR_MESSAGE_FOR_MEDIAN_STRING_NOT_FOUND;
+	}
+	
+	/**
+	 * Add the DNA sequences one at a time and then take the first half back out, printing the median string after
+	 * every change and whether it took a search
+	 * @param dnaSequences
+	 * @param medianStringLength
+	 */
+	private void updateMedianStringOnline(PackedDnaSequence[] dnaSequences, int medianStringLength) {
+		
+		try {
+			OnlineMedianStringFinder onlineMedianStringFinder = new OnlineMedianStringFinder(medianStringLength, Runtime.getRuntime().availableProcessors());
+			for (PackedDnaSequence dnaSequence : dnaSequences) {
+				onlineMedianStringFinder.addSequence(dnaSequence);
+				printOnlineMedianString("Added", onlineMedianStringFinder);
+			}
+			for (PackedDnaSequence dnaSequence : Arrays.asList(dnaSequences).subList(0, dnaSequences.length / 2)) {
+				onlineMedianStringFinder.removeSequence(dnaSequence);
+				printOnlineMedianString("Removed", onlineMedianStringFinder);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+	}
+	
+	/**
+	 * @param change - what happened to the DNA sequences
+	 * @param onlineMedianStringFinder
+	 */
+	private void printOnlineMedianString(String change, OnlineMedianStringFinder onlineMedianStringFinder) {
+		
+		int numberOfSearches = onlineMedianStringFinder.getNumberOfSearches();
+		long startTime = System.currentTimeMillis();
+		ScoredMedianString scoredMedianString = onlineMedianStringFinder.getScoredMedianString();
+		String searchText = onlineMedianStringFinder.getNumberOfSearches() > numberOfSearches ? "searched" : "kept from the frontier";
+		System.out.println(change + ", " + onlineMedianStringFinder.getNumberOfDnaSequences() + " sequences: " + scoredMedianString + " " + searchText + " in " + (System.currentTimeMillis() - startTime) + " (ms).");
+		
+	}
+	
+	/**
+	 * Generate DNA sequences straight into a packed sequence store and print the median string planted in them.
+	 * The arguments are the ones of a generated search followed by the store file and an optional seed.
+	 * @param args
+	 */
+	private void generatePackedSequenceStore(String[] args) {
+		
+		try {
+			int numberOfDnaSequences = Integer.parseInt(args[2]);
+			long seed = args.length > 6 ? Long.parseLong(args[6]) : System.currentTimeMillis();
+			long startTime = System.currentTimeMillis();
+			String medianString = MedianStringFinder.generateDnaSequences(new File(args[5]), Integer.parseInt(args[1]), numberOfDnaSequences, Integer.parseInt(args[3]), Integer.parseInt(args[4]), seed, Runtime.getRuntime().availableProcessors());
+			System.out.println("Stored " + numberOfDnaSequences + " DNA sequences around median string " + medianString + " from seed " + seed + " in " + args[5] + " in " + (System.currentTimeMillis() - startTime) + " (ms).");
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+	}
+	
+	/**
+	 * Warm the search code up and then serve median string requests on the port of this machine until a client asks for a shutdown
+	 * @param port
+	 * @param maximumConcurrentSearches
+	 */
+	private void runFinderService(int port, int maximumConcurrentSearches) {
+		
+		try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+			MedianStringService medianStringService = new MedianStringService(maximumConcurrentSearches, Runtime.getRuntime().availableProcessors(), new MedianStringCache());
+			long startTime = System.currentTimeMillis();
+			medianStringService.warmUp();
+			System.out.println("Warmed up in " + (System.currentTimeMillis() - startTime) + " (ms). Serving requests on port " + serverSocket.getLocalPort());
+			medianStringService.serve(serverSocket);
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+	}
+	
+	/**
+	 * Send the request in the arguments after the port to a median string service and print the response. Without
+	 * one, send every line of the standard input as a request over the same connection.
+	 * @param host
+	 * @param port
+	 * @param args
+	 */
+	private void sendServiceRequests(String host, int port, String[] args) {
+		
+		try (MedianStringServiceClient medianStringServiceClient = new MedianStringServiceClient(host, port)) {
+			if (args.length > 3) {
+				System.out.println(medianStringServiceClient.send(String.join(MedianStringService.FIELD_SEPARATOR, Arrays.asList(args).subList(3, args.length))));
+				return;
+			}
+			BufferedReader requestReader = new BufferedReader(new InputStreamReader(System.in));
+			String request = null;
+			while ((request = requestReader.readLine()) != null) {
+				if (request.trim().length() > 0) {
+					System.out.println(medianStringServiceClient.send(request.trim()));
+				}
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+	}
+	
+	/**
+	 * Find the median string with shard workers that connect to the port, then again in this process, and print both
+	 * @param dnaSequences
+	 * @param medianStringLength
+	 * @param port
+	 * @param shardLength
+	 */
+	private void coordinateShardedSearch(PackedDnaSequence[] dnaSequences, int medianStringLength, int port, int shardLength) {
+		
+		try (ServerSocket serverSocket = new ServerSocket(port)) {
+			MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+			MedianStringShardCoordinator medianStringShardCoordinator = new MedianStringShardCoordinator(medianStringFinder, medianStringLength, shardLength, Runtime.getRuntime().availableProcessors());
+			System.out.println("Waiting for shard workers on port " + serverSocket.getLocalPort());
+			
+			long startTime = System.currentTimeMillis();
+			ScoredMedianString shardedMedianString = medianStringShardCoordinator.search(serverSocket);
+			long shardedRunTime = System.currentTimeMillis() - startTime;
+			System.out.println("Sharded: " + shardedMedianString + " in " + shardedRunTime + " (ms). " + medianStringShardCoordinator.getSearchStatistics());
+			
+			startTime = System.currentTimeMillis();
+			ScoredMedianString localMedianString = medianStringFinder.findScoredMedianString(medianStringLength, Runtime.getRuntime().availableProcessors());
+			long localRunTime = System.currentTimeMillis() - startTime;
+			System.out.println("Local: " + localMedianString + " in " + localRunTime + " (ms). " + medianStringFinder.getSearchStatistics());
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+	}
+	
+	/**
+	 * Search shards for a coordinator until it has no more
+	 * @param host
+	 * @param port
+	 * @param numberOfThreads
+	 */
+	private void runShardWorker(String host, int port, int numberOfThreads) {
+		
+		try {
+			System.out.println("Searched " + new MedianStringShardWorker(numberOfThreads).run(host, port) + " shards.");
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+	}
+	
+	/**
+	 * Find the median strings of a range of lengths with one sweep and with separate searches, and print both run times
+	 * @param dnaSequences
+	 * @param minimumLength
+	 * @param maximumLength
+	 */
+	private void sweepMedianStringLengths(PackedDnaSequence[] dnaSequences, int minimumLength, int maximumLength) {
+		
+		try {
+			MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+			
+			long startTime = System.currentTimeMillis();
+			List<ScoredMedianString> sweptMedianStrings = medianStringFinder.findMedianStrings(minimumLength, maximumLength, Runtime.getRuntime().availableProcessors());
+			long sweepRunTime = System.currentTimeMillis() - startTime;
+			System.out.println("Sweep: " + sweptMedianStrings + " in " + sweepRunTime + " (ms). " + medianStringFinder.getSearchStatistics());
+			
+			List<ScoredMedianString> separateMedianStrings = new ArrayList<ScoredMedianString>();
+			long separateNodesVisited = 0;
+			startTime = System.currentTimeMillis();
+			for (int medianStringLength = minimumLength; medianStringLength <= maximumLength; ++medianStringLength) {
+				separateMedianStrings.add(medianStringFinder.findScoredMedianString(medianStringLength, Runtime.getRuntime().availableProcessors()));
+				separateNodesVisited += medianStringFinder.getSearchStatistics().getNodesVisited();
+			}
+			long separateRunTime = System.currentTimeMillis() - startTime;
+			System.out.println("Separate: " + separateMedianStrings + " in " + separateRunTime + " (ms). Nodes visited: " + separateNodesVisited);
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+	}
+	
+	/**
+	 * Find the median string with and without a heuristic seed and print how many fewer nodes the seeded search visited
+	 * @param dnaSequences
+	 * @param medianStringLength
+	 */
+	private void compareHeuristicSeeding(PackedDnaSequence[] dnaSequences, int medianStringLength) {
+		
+		try {
+			MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+			
+			medianStringFinder.setHeuristicSeedingEnabled(false);
+			long startTime = System.currentTimeMillis();
+			String unseededMedianString = medianStringFinder.findMedianString(medianStringLength);
+			long unseededRunTime = System.currentTimeMillis() - startTime;
+			long unseededNodesVisited = medianStringFinder.getSearchStatistics().getNodesVisited();
+			System.out.println("Without seed: " + unseededMedianString + " in " + unseededRunTime + " (ms). " + medianStringFinder.getSearchStatistics());
+			
+			medianStringFinder.setHeuristicSeedingEnabled(true);
+			startTime = System.currentTimeMillis();
+			String seededMedianString = medianStringFinder.findMedianString(medianStringLength);
+			long seededRunTime = System.currentTimeMillis() - startTime;
+			long seededNodesVisited = medianStringFinder.getSearchStatistics().getNodesVisited();
+			System.out.println("With seed: " + seededMedianString + " in " + seededRunTime + " (ms). " + medianStringFinder.getSearchStatistics());
+			
+			System.out.println("Seed reduced nodes visited by " + (unseededNodesVisited - seededNodesVisited) + " (" + String.format("%.1f", unseededNodesVisited == 0 ? 0.0 : 100.0 * (unseededNodesVisited - seededNodesVisited) / unseededNodesVisited) + "%).");
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @param medianStringLength
+	 * @param timeBudgetMilliseconds
+	 * @return the best median string found within the time budget, printing each improvement and progress along the way
+	 */
+	private MedianStringSearchResult findMedianStringWithTimeBudget(PackedDnaSequence[] dnaSequences, int medianStringLength, long timeBudgetMilliseconds) {
+		
+		try {
+			MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+			return medianStringFinder.findMedianString(medianStringLength, Runtime.getRuntime().availableProcessors(), new SearchBudget(timeBudgetMilliseconds, SearchBudget.NO_LIMIT), new MedianStringSearchListener() {
+				@Override
+				public void improvedMedianStringFound(ScoredMedianString scoredMedianString) {
+					System.out.println("Improved median string: " + scoredMedianString);
+				}
+				@Override
+				public void progressReported(SearchStatistics searchStatistics, ScoredMedianString bestScoredMedianString, long elapsedMilliseconds) {
+					System.out.println(elapsedMilliseconds + " (ms): best " + bestScoredMedianString + ". " + searchStatistics);
+				}
+			});
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		return null;
+	}
+	
 	/**
 	 * @return list of DNA sequences from a text file
 	 */
@@ -98,32 +485,27 @@ public class MedianStringFinderClient {
 	}
 	
 	/**
-	 * @return human DNA sequences from a text file
+	 * @param minimumLength - fewest bases a DNA sequence needs to be kept
+	 * @return human DNA sequences from a FASTA file, read one record at a time into packed storage. Assembled
+	 * genomes hold runs of N, so records are split at ambiguous bases.
 	 */
-	private List<List<Nucleotide>> getHumanDnaSequences() {
+	private PackedDnaSequence[] getHumanDnaSequences(int minimumLength) {
 		
+		List<PackedDnaSequence> dnaSequences = new ArrayList<PackedDnaSequence>();
+		if (!fileExists(HUMAN_DNA_SEQUENCES_FILE)) {
+			return new PackedDnaSequence[0];
+		}
 		
-		List<List<Nucleotide>> dnaSequences = new ArrayList<List<Nucleotide>>();
+		FastaReader fastaReader = null;
 		try {
-			
-			//Get file contents and make a single string
-			List<String> humanDnaSequences = getFileContents(HUMAN_DNA_SEQUENCES_FILE);
-			StringBuffer humanDnaSequencesStringBuffer = new StringBuffer(); 
-			for (String humanDnaSequenceString : humanDnaSequences) {
-				humanDnaSequencesStringBuffer.append(humanDnaSequenceString);
+			fastaReader = new FastaReader(new File(HUMAN_DNA_SEQUENCES_FILE));
+			fastaReader.setAmbiguousBasesSplit(true);
+			fastaReader.setMinimumLength(minimumLength);
+			PackedDnaSequence dnaSequence = null;
+			while ((dnaSequence = fastaReader.nextDnaSequence()) != null) {
+				dnaSequences.add(dnaSequence);
 			}
-			
-			//Split the string into multiple sequences
-			String humanDnaSequencesString = humanDnaSequencesStringBuffer.toString();
-			String[] humanDnaSequence = humanDnaSequencesString.split(HUMAN_DNA_SEQUENCES_REGEX);
-			
-			//Create the list of list of nucleotides
-			for (String nucleotideString : humanDnaSequence) {
-				if (nucleotideString.trim().length() != 0) {
-					dnaSequences.add(Nucleotide.getDnaSequence(nucleotideString.trim()));
-				}
-			}
-			
+			fastaReader.close();
 		} catch (IOException e) {
 			e.printStackTrace();
 			System.exit(0);
@@ -132,16 +514,53 @@ public class MedianStringFinderClient {
 			System.exit(0);
 		}
 		
-		return dnaSequences;
+		return dnaSequences.toArray(new PackedDnaSequence[dnaSequences.size()]);
+		
+	}
+	
+	/**
+	 * @param fastaFileName - FASTA file to build the store from if it does not exist yet
+	 * @param storeFileName - packed sequence store
+	 * @param minimumLength - fewest bases a stored DNA sequence needs to be searched
+	 * @return the DNA sequences of the store that are at least the minimum length, read in place from the mapped
+	 * file. Records of the FASTA file are split at ambiguous bases, and the store keeps every piece whatever its
+	 * length, so that it does not depend on the target length of the run that built it.
+	 */
+	private PackedDnaSequence[] getStoredDnaSequences(String fastaFileName, String storeFileName, int minimumLength) {
+		
+		try {
+			File storeFile = new File(storeFileName);
+			if (!storeFile.exists()) {
+				try (FastaReader fastaReader = new FastaReader(new File(fastaFileName))) {
+					fastaReader.setAmbiguousBasesSplit(true);
+					System.out.println("Stored " + PackedSequenceStore.write(storeFile, fastaReader) + " DNA sequences in " + storeFileName);
+				}
+			}
+			
+			//The mappings stay valid after the file is closed
+			List<PackedDnaSequence> dnaSequences = new ArrayList<PackedDnaSequence>();
+			try (PackedSequenceStore packedSequenceStore = new PackedSequenceStore(storeFile)) {
+				for (PackedDnaSequence dnaSequence : packedSequenceStore.getDnaSequences()) {
+					if (dnaSequence.getLength() >= minimumLength) {
+						dnaSequences.add(dnaSequence);
+					}
+				}
+			}
+			return dnaSequences.toArray(new PackedDnaSequence[dnaSequences.size()]);
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		return new PackedDnaSequence[0];
 		
 	}
 	
 	
 	/**
-	 * @return a list of generated DNA sequences
+	 * @return generated packed DNA sequences, made on all available processors
 	 */
-	@SuppressWarnings("unchecked")
-	private List<List<Nucleotide>> getGeneratedDnaSequences(String[] args) {
+	private PackedDnaSequence[] getGeneratedDnaSequences(String[] args) {
 		
 		//Retrieve parameters for determining DNA sequence size
 		try {
@@ -149,10 +568,9 @@ public class MedianStringFinderClient {
 			int numberOfDnaSequences = Integer.parseInt(args[2]);
 			int medianStringLength = Integer.parseInt(args[3]);
 			int numberOfMedianStringMutations = Integer.parseInt(args[4]);
-			Random randomNumberGenerator = new Random(System.currentTimeMillis());
-			return (List<List<Nucleotide>>) MedianStringFinder.generateDnaSequences(dnaSequenceLength, numberOfDnaSequences, medianStringLength, numberOfMedianStringMutations, randomNumberGenerator).get(MedianStringFinder.DNA_SEQUENCE_KEY);
+			return (PackedDnaSequence[]) MedianStringFinder.generatePackedDnaSequences(dnaSequenceLength, numberOfDnaSequences, medianStringLength, numberOfMedianStringMutations, System.currentTimeMillis(), Runtime.getRuntime().availableProcessors()).get(MedianStringFinder.PACKED_DNA_SEQUENCE_KEY);
 			
-		} catch (NumberFormatException e) {
+		} catch (Exception e) {
 			e.printStackTrace();
 			System.exit(0);
 		}
@@ -164,7 +582,6 @@ public class MedianStringFinderClient {
 	/**
 	 * Keep increasing number of mutations till median string cannot be found
 	 */
-	@SuppressWarnings("unchecked")
 	private void repeatTillFailureToFindMedianString() {
 		
 		int DNA_SEQUENCE_LENGTH = 200;
@@ -181,9 +598,9 @@ public class MedianStringFinderClient {
 		for (int medianStringLength = START_MEDIAN_STRING_LENGTH; medianStringLength <= END_MEDIAN_STRING_LENGTH; ++medianStringLength) {
 			medianStringLengthSettings.add(Integer.valueOf(medianStringLength));
 			for (int numberOfMedianStringMutations = 0; numberOfMedianStringMutations <= medianStringLength; ++numberOfMedianStringMutations) {
-				generatedDnaSequencesAndMedianString = MedianStringFinder.generateDnaSequences(DNA_SEQUENCE_LENGTH, NUMBER_OF_DNA_SEQUENCES, medianStringLength, numberOfMedianStringMutations, randomNumberGenerator);
 				try {
-					MedianStringFinder medianStringFinder = new MedianStringFinder((List<List<Nucleotide>>) generatedDnaSequencesAndMedianString.get(MedianStringFinder.DNA_SEQUENCE_KEY));
+					generatedDnaSequencesAndMedianString = MedianStringFinder.generatePackedDnaSequences(DNA_SEQUENCE_LENGTH, NUMBER_OF_DNA_SEQUENCES, medianStringLength, numberOfMedianStringMutations, randomNumberGenerator.nextLong(), Runtime.getRuntime().availableProcessors());
+					MedianStringFinder medianStringFinder = new MedianStringFinder((PackedDnaSequence[]) generatedDnaSequencesAndMedianString.get(MedianStringFinder.PACKED_DNA_SEQUENCE_KEY));
 					medianStringFound = medianStringFinder.findMedianString(medianStringLength);
 					if (!medianStringFound.equals(generatedDnaSequencesAndMedianString.get(MedianStringFinder.MEDIAN_STRING_KEY))) {
 						System.err.println("Median string length " + medianStringLength + ", could not find median string with " + numberOfMedianStringMutations + " mutations.");
@@ -208,7 +625,6 @@ public class MedianStringFinderClient {
 	/**
 	 * Capture run time versus DNA Sequence Length
 	 */
-	@SuppressWarnings("unchecked")
 	private void timingWithDnaSequenceLength() {
 		
 		List<Integer> dnaSequenceLengths = new ArrayList<Integer>();
@@ -229,10 +645,10 @@ public class MedianStringFinderClient {
 		//Collect DNA sequence length vs run time statistics
 		for (int dnaSequenceLength = DNA_SEQUENCE_START_LENGTH; dnaSequenceLength <= DNA_SEQUENCE_MAXIMUM_LENGTH; dnaSequenceLength += 1) {
 			
-			generatedDnaSequencesAndMedianString = MedianStringFinder.generateDnaSequences(dnaSequenceLength, NUMBER_OF_DNA_SEQUENCES, MEDIAN_STRING_LENGTH, NUMBER_OF_MEDIAN_STRING_MUTATIONS, randomNumberGenerator);
 			try {
+				generatedDnaSequencesAndMedianString = MedianStringFinder.generatePackedDnaSequences(dnaSequenceLength, NUMBER_OF_DNA_SEQUENCES, MEDIAN_STRING_LENGTH, NUMBER_OF_MEDIAN_STRING_MUTATIONS, randomNumberGenerator.nextLong(), Runtime.getRuntime().availableProcessors());
 				timeBeforeRun = System.currentTimeMillis();
-				medianStringFinder = new MedianStringFinder((List<List<Nucleotide>>) generatedDnaSequencesAndMedianString.get(MedianStringFinder.DNA_SEQUENCE_KEY));
+				medianStringFinder = new MedianStringFinder((PackedDnaSequence[]) generatedDnaSequencesAndMedianString.get(MedianStringFinder.PACKED_DNA_SEQUENCE_KEY));
 				medianStringFound = medianStringFinder.findMedianString(MEDIAN_STRING_LENGTH);
 				runTime = System.currentTimeMillis() - timeBeforeRun;
 				System.out.println(sdf.format(new Date()) + ": Median string " + medianStringFound + " found in " + runTime + " (ms) for DNA sequence length of " + dnaSequenceLength + ".");
@@ -254,7 +670,6 @@ public class MedianStringFinderClient {
 	/**
 	 * Capture run time versus Median String Length
 	 */
-	@SuppressWarnings("unchecked")
 	private void timingWithMedianStringLength() {
 	
 		List<Integer> medianStringLengths = new ArrayList<Integer>();
@@ -279,10 +694,10 @@ public class MedianStringFinderClient {
 			
 			//Do 10 iterations per median string length
 			for (int iterationConter = 0; iterationConter < NUMBER_OF_ITERATIONS; ++iterationConter) {
-				generatedDnaSequencesAndMedianString = MedianStringFinder.generateDnaSequences(DNA_SEQUENCE_LENGTH, NUMBER_OF_DNA_SEQUENCES, medianStringLength, NUMBER_OF_MEDIAN_STRING_MUTATIONS, randomNumberGenerator);
 				try {
+					generatedDnaSequencesAndMedianString = MedianStringFinder.generatePackedDnaSequences(DNA_SEQUENCE_LENGTH, NUMBER_OF_DNA_SEQUENCES, medianStringLength, NUMBER_OF_MEDIAN_STRING_MUTATIONS, randomNumberGenerator.nextLong(), Runtime.getRuntime().availableProcessors());
 					timeBeforeRun = System.currentTimeMillis();
-					medianStringFinder = new MedianStringFinder((List<List<Nucleotide>>) generatedDnaSequencesAndMedianString.get(MedianStringFinder.DNA_SEQUENCE_KEY));
+					medianStringFinder = new MedianStringFinder((PackedDnaSequence[]) generatedDnaSequencesAndMedianString.get(MedianStringFinder.PACKED_DNA_SEQUENCE_KEY));
 					medianStringFound = medianStringFinder.findMedianString(medianStringLength);
 					runTime = System.currentTimeMillis() - timeBeforeRun;
 					System.out.println(sdf.format(new Date()) + ": Median string " + medianStringFound + " found in " + runTime + " (ms) for median string length of " + medianStringLength + ".");
@@ -302,6 +717,24 @@ public class MedianStringFinderClient {
 		
 	}
 	
+	/**
+	 * Run every job of a manifest. Arguments are the manifest file, the output file and optionally the
+	 * number of workers, which defaults to the number of available processors.
+	 */
+	private void runBatchManifest(String[] args) {
+		
+		try {
+			int numberOfWorkers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+			MedianStringBatchRunner medianStringBatchRunner = new MedianStringBatchRunner(numberOfWorkers);
+			int numberOfJobs = medianStringBatchRunner.run(new File(args[1]), new File(args[2]));
+			System.out.println("Ran " + numberOfJobs + " jobs.");
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+	}
+	
 	/**
 	 * @param fileName
 	 * @return a string containing the contents of the file
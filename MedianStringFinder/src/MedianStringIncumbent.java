@@ -0,0 +1,190 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * The best median strings found so far, shared by every worker of a search. The score and the string
+ * are swapped together as one immutable pair, so readers never see a score from one result and a
+ * string from another. When only the best median string is kept it is swapped in without locking.
+ * When several are kept they sit in a sorted set behind a lock, and the worst of them is published
+ * for the workers to prune against once the set is full.
+ */
+class MedianStringIncumbent {
+
+	static final ScoredMedianString NO_MEDIAN_STRING = new ScoredMedianString(MedianStringFinder.EMPTY_STRING, Integer.MAX_VALUE);
+	
+	private int numberOfMedianStrings;
+	private AtomicReference<ScoredMedianString> bestScoredMedianString;
+	private TreeSet<ScoredMedianString> topScoredMedianStrings;
+	private MedianStringSearchListener searchListener;
+	
+	/**
+	 * Constructor
+	 * Start out with no median string and the worst possible score
+	 */
+	MedianStringIncumbent() {
+		this(null);
+	}
+	
+	/**
+	 * Constructor
+	 * @param searchListener - told about every improvement, or null
+	 */
+	MedianStringIncumbent(MedianStringSearchListener searchListener) {
+		this(1, searchListener);
+	}
+	
+	/**
+	 * Constructor
+	 * @param numberOfMedianStrings - how many of the best median strings to keep
+	 * @param searchListener - told about every improvement of the best median string, or null
+	 */
+	MedianStringIncumbent(int numberOfMedianStrings, MedianStringSearchListener searchListener) {
+		
+		this.numberOfMedianStrings = Math.max(1, numberOfMedianStrings);
+		this.bestScoredMedianString = new AtomicReference<ScoredMedianString>(NO_MEDIAN_STRING);
+		if (this.numberOfMedianStrings > 1) {
+			this.topScoredMedianStrings = new TreeSet<ScoredMedianString>();
+		}
+		this.searchListener = searchListener;
+		
+	}
+	
+	/**
+	 * @return the score that a median string has to match or beat to be kept. With a single median string
+	 * this is the best score, otherwise it is the score of the worst kept median string once all are found.
+	 */
+	int getBestScore() {
+		return this.bestScoredMedianString.get().getScore();
+	}
+	
+	/**
+	 * @return the best median string found so far
+	 */
+	ScoredMedianString getBestScoredMedianString() {
+		
+		if (this.topScoredMedianStrings == null) {
+			return this.bestScoredMedianString.get();
+		}
+		synchronized (this) {
+			return this.topScoredMedianStrings.isEmpty() ? NO_MEDIAN_STRING : this.topScoredMedianStrings.first();
+		}
+		
+	}
+	
+	/**
+	 * @return the median strings kept so far, best first
+	 */
+	List<ScoredMedianString> getTopScoredMedianStrings() {
+		
+		List<ScoredMedianString> topScoredMedianStrings = new ArrayList<ScoredMedianString>();
+		if (this.topScoredMedianStrings == null) {
+			if (this.bestScoredMedianString.get() != NO_MEDIAN_STRING) {
+				topScoredMedianStrings.add(this.bestScoredMedianString.get());
+			}
+			return topScoredMedianStrings;
+		}
+		synchronized (this) {
+			topScoredMedianStrings.addAll(this.topScoredMedianStrings);
+		}
+		return topScoredMedianStrings;
+		
+	}
+	
+	/**
+	 * @param medianString
+	 * @param score
+	 * @return true if the median string was kept. Ties go to the lexicographically smaller string so that
+	 * the result does not depend on the order in which workers finish.
+	 */
+	boolean offer(String medianString, int score) {
+		
+		if (this.topScoredMedianStrings != null) {
+			return offerToTopMedianStrings(new ScoredMedianString(medianString, score));
+		}
+		
+		ScoredMedianString currentBest = this.bestScoredMedianString.get();
+		if (score > currentBest.getScore()) {
+			return false;
+		}
+		
+		ScoredMedianString proposedBest = new ScoredMedianString(medianString, score);
+		while (proposedBest.compareTo(currentBest) < 0) {
+			if (this.bestScoredMedianString.compareAndSet(currentBest, proposedBest)) {
+				if (this.searchListener != null) {
+					this.searchListener.improvedMedianStringFound(proposedBest);
+				}
+				return true;
+			}
+			currentBest = this.bestScoredMedianString.get();
+		}
+		
+		return false;
+		
+	}
+	
+	/**
+	 * @param proposedMedianString
+	 * @return true if the median string is now one of the kept median strings
+	 */
+	private synchronized boolean offerToTopMedianStrings(ScoredMedianString proposedMedianString) {
+		
+		if (this.topScoredMedianStrings.size() == this.numberOfMedianStrings) {
+			if (proposedMedianString.compareTo(this.topScoredMedianStrings.last()) >= 0) {
+				return false;
+			}
+			if (!this.topScoredMedianStrings.add(proposedMedianString)) {
+				return false;
+			}
+			this.topScoredMedianStrings.pollLast();
+		} else if (!this.topScoredMedianStrings.add(proposedMedianString)) {
+			return false;
+		}
+		
+		//Once the set is full nothing worse than its last median string can be kept, so that is what the workers prune against
+		if (this.topScoredMedianStrings.size() == this.numberOfMedianStrings) {
+			this.bestScoredMedianString.set(this.topScoredMedianStrings.last());
+		}
+		if (this.searchListener != null && this.topScoredMedianStrings.first() == proposedMedianString) {
+			this.searchListener.improvedMedianStringFound(proposedMedianString);
+		}
+		return true;
+		
+	}
+	
+	/**
+	 * @param medianString - bases of a median string that the caller keeps editing
+	 * @param score
+	 * @return true if the median string was kept. A string is only created when the median string can
+	 * actually be kept, so that losing leaves cost no allocation.
+	 */
+	boolean offer(char[] medianString, int score) {
+		
+		ScoredMedianString currentBest = this.bestScoredMedianString.get();
+		if (score > currentBest.getScore() || (score == currentBest.getScore() && !isLexicographicallySmaller(medianString, currentBest.getMedianString()))) {
+			return false;
+		}
+		return offer(new String(medianString), score);
+		
+	}
+	
+	/**
+	 * @param medianString
+	 * @param otherMedianString
+	 * @return true if the first median string sorts before the second one
+	 */
+	private static boolean isLexicographicallySmaller(char[] medianString, String otherMedianString) {
+		
+		int commonLength = Math.min(medianString.length, otherMedianString.length());
+		for (int position = 0; position < commonLength; ++position) {
+			if (medianString[position] != otherMedianString.charAt(position)) {
+				return medianString[position] < otherMedianString.charAt(position);
+			}
+		}
+		return medianString.length < otherMedianString.length();
+		
+	}
+	
+}
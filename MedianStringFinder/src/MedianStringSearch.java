@@ -0,0 +1,341 @@
+import java.util.Arrays;
+
+
+/**
+ * Branch and bound search below one median string prefix. Each search keeps its own partial hamming
+ * distances and shares only the incumbent, so several searches can run on different threads at once.
+ */
+class MedianStringSearch {
+
+	public static final long NODE_REPORTING_INTERVAL = 4096;
+
+	private PackedDnaSequence[] dnaSequences;
+	private int numberOfDnaSequences;
+	private int[] numberOfWindows;
+	private int targetLength;
+	private int[] suffixLowerBounds;
+	private int[][] partialHammingDistances;
+	private int[][] reversePartialHammingDistances;
+	private MedianStringIncumbent incumbent;
+	private SearchStatistics searchStatistics;
+	private char[] medianString;
+	private int[] nextBaseCodes;
+	private int[] medianStringCodes;
+	private MedianStringSearchContext searchContext;
+	private KmerDistanceIndex kmerDistanceIndex;
+	private long numberOfScannedLeaves;
+	private long numberOfUnreportedNodes;
+	private SearchMetrics searchMetrics;
+	private long[] nodesVisitedPerDepth;
+	private long[] nodesPrunedPerDepth;
+	private long leafEvaluations;
+	private long incumbentImprovements;
+	private long scoringNanoseconds;
+	
+	/**
+	 * Constructor
+	 * @param searchContext - settings and shared state of the findMedianString call
+	 */
+	MedianStringSearch(MedianStringSearchContext searchContext) {
+		
+		this.dnaSequences = searchContext.getDnaSequences();
+		this.numberOfDnaSequences = this.dnaSequences.length;
+		this.numberOfWindows = searchContext.getNumberOfWindows();
+		this.targetLength = searchContext.getTargetLength();
+		this.suffixLowerBounds = searchContext.getSuffixLowerBounds();
+		this.partialHammingDistances = getPartialHammingDistances();
+		if (searchContext.isReverseComplementScored()) {
+			this.reversePartialHammingDistances = getPartialHammingDistances();
+		}
+		this.incumbent = searchContext.getIncumbent();
+		this.searchStatistics = searchContext.getSearchStatistics();
+		this.medianString = new char[this.targetLength];
+		this.nextBaseCodes = new int[this.targetLength];
+		this.medianStringCodes = new int[this.targetLength + 1];
+		this.searchContext = searchContext;
+		this.searchMetrics = searchContext.getSearchMetrics();
+		if (this.searchMetrics != null) {
+			this.nodesVisitedPerDepth = new long[this.targetLength + 1];
+			this.nodesPrunedPerDepth = new long[this.targetLength + 1];
+		}
+		
+	}
+	
+	/**
+	 * @return one partial hamming distance per window of each DNA sequence. The rows are only as long as their
+	 * own DNA sequence needs, so a short sequence costs no more than its own windows.
+	 */
+	private int[][] getPartialHammingDistances() {
+		
+		int[][] partialHammingDistances = new int[this.numberOfDnaSequences][];
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < this.numberOfDnaSequences; ++dnaSequenceCounter) {
+			partialHammingDistances[dnaSequenceCounter] = new int[this.numberOfWindows[dnaSequenceCounter]];
+		}
+		return partialHammingDistances;
+		
+	}
+	
+	/**
+	 * @param medianStringPrefix - bases that all median strings in this search start with
+	 * Search every median string that starts with the prefix. The tree is walked with an explicit stack
+	 * and the median string is edited in place, so visiting a node allocates nothing. A string is only
+	 * created when a leaf replaces the incumbent.
+	 */
+	void search(String medianStringPrefix) {
+		
+		if (this.searchMetrics == null) {
+			searchBelowPrefix(medianStringPrefix);
+			return;
+		}
+		
+		long searchStartTime = System.nanoTime();
+		searchBelowPrefix(medianStringPrefix);
+		this.searchMetrics.add(this.nodesVisitedPerDepth, this.nodesPrunedPerDepth, this.leafEvaluations, this.incumbentImprovements, this.scoringNanoseconds, System.nanoTime() - searchStartTime);
+		Arrays.fill(this.nodesVisitedPerDepth, 0);
+		Arrays.fill(this.nodesPrunedPerDepth, 0);
+		this.leafEvaluations = this.incumbentImprovements = this.scoringNanoseconds = 0;
+		
+	}
+	
+	/**
+	 * @param medianStringPrefix - bases that all median strings in this search start with
+	 */
+	private void searchBelowPrefix(String medianStringPrefix) {
+		
+		if (this.searchContext.isStopped()) {
+			return;
+		}
+		
+		int currentScore = 0, prefixLength = medianStringPrefix.length();
+		try {
+			for (int position = 0; position < prefixLength; ++position) {
+				this.medianString[position] = medianStringPrefix.charAt(position);
+				int baseCode = Nucleotide.getBaseCode(this.medianString[position]);
+				this.medianStringCodes[position + 1] = getMedianStringCode(position, baseCode);
+				currentScore = updatePartialHammingDistances(position, baseCode, 1);
+			}
+		} catch (Exception e) {
+			System.err.println(medianStringPrefix + " is not a valid nucleotide sequence.");
+			System.exit(0);
+		}
+		
+		if (prefixLength == this.targetLength) {
+			offer(currentScore);
+			return;
+		}
+		if (isPruned(prefixLength, currentScore)) {
+			return;
+		}
+		
+		int depth = prefixLength, numberOfBases = Nucleotide.validBases.length, lastPosition = this.targetLength - 1;
+		this.nextBaseCodes[depth] = 0;
+		while (depth >= prefixLength) {
+			
+			//All children of the node have been visited, so take its base back out and go up a level
+			int baseCode = this.nextBaseCodes[depth];
+			if (baseCode == numberOfBases) {
+				--depth;
+				if (depth >= prefixLength) {
+					scorePartialHammingDistances(depth, this.nextBaseCodes[depth] - 1, -1);
+				}
+				continue;
+			}
+			
+			//Check the budget every few thousand nodes
+			if (++this.numberOfUnreportedNodes == NODE_REPORTING_INTERVAL) {
+				this.searchContext.reportNodesVisited(this.numberOfUnreportedNodes);
+				this.numberOfUnreportedNodes = 0;
+				if (this.searchContext.isStopped()) {
+					return;
+				}
+			}
+			
+			//Append the next base and either score the leaf, prune the child or descend into it
+			++this.nextBaseCodes[depth];
+			this.medianString[depth] = Nucleotide.validBases[baseCode];
+			this.medianStringCodes[depth + 1] = getMedianStringCode(depth, baseCode);
+			if (this.searchMetrics != null) {
+				++this.nodesVisitedPerDepth[depth + 1];
+			}
+			if (depth == lastPosition && this.kmerDistanceIndex == null && ++this.numberOfScannedLeaves > this.searchContext.getKmerDistanceIndexLeafThreshold()) {
+				long indexStartTime = this.searchMetrics == null ? 0 : System.nanoTime();
+				this.kmerDistanceIndex = this.searchContext.getKmerDistanceIndex();
+				if (this.searchMetrics != null) {
+					this.scoringNanoseconds += System.nanoTime() - indexStartTime;
+				}
+			}
+			if (depth == lastPosition && this.kmerDistanceIndex != null) {
+				offer(this.kmerDistanceIndex.getTotalMinimumHammingDistance(this.medianStringCodes[depth + 1]));
+				continue;
+			}
+			int childScore = scorePartialHammingDistances(depth, baseCode, 1);
+			if (depth == lastPosition) {
+				offer(childScore);
+			} else if (!isPruned(depth + 1, childScore)) {
+				++depth;
+				this.nextBaseCodes[depth] = 0;
+				continue;
+			}
+			scorePartialHammingDistances(depth, baseCode, -1);
+			
+		}
+		
+		//Parallel tasks often finish in fewer nodes than the reporting interval, so their nodes count against the budget here
+		this.searchContext.reportNodesVisited(this.numberOfUnreportedNodes);
+		this.numberOfUnreportedNodes = 0;
+		
+	}
+	
+	/**
+	 * @param position
+	 * @param baseCode
+	 * @return code of the median string prefix that ends with the base at the position. Only meaningful
+	 * for median strings short enough to have a k-mer distance index.
+	 */
+	private int getMedianStringCode(int position, int baseCode) {
+		return this.medianStringCodes[position] | (baseCode << ((position * PackedDnaSequence.BITS_PER_BASE) % Integer.SIZE));
+	}
+	
+	/**
+	 * Offer the full length median string to the incumbent
+	 * @param score
+	 */
+	private void offer(int score) {
+		
+		boolean improved = this.incumbent.offer(this.medianString, score);
+		if (this.searchMetrics != null) {
+			++this.leafEvaluations;
+			if (improved) {
+				++this.incumbentImprovements;
+			}
+		}
+		
+	}
+	
+	/**
+	 * @param position
+	 * @param baseCode
+	 * @param increment
+	 * @return the result of updating the partial hamming distances, timed when metrics are being collected
+	 */
+	private int scorePartialHammingDistances(int position, int baseCode, int increment) {
+		
+		if (this.searchMetrics == null) {
+			return updatePartialHammingDistances(position, baseCode, increment);
+		}
+		long scoringStartTime = System.nanoTime();
+		int totalMinimumHammingDistance = updatePartialHammingDistances(position, baseCode, increment);
+		this.scoringNanoseconds += System.nanoTime() - scoringStartTime;
+		return totalMinimumHammingDistance;
+		
+	}
+	
+	/**
+	 * @param medianStringLength - number of bases in the median string prefix
+	 * @param currentScore - total minimum hamming distance of the median string prefix
+	 * @return true if no median string starting with the prefix can beat the incumbent. The unfilled suffix
+	 * can never score better than its lower bound, so that bound is added to the prefix score.
+	 */
+	private boolean isPruned(int medianStringLength, int currentScore) {
+		
+		int bestScore = this.incumbent.getBestScore();
+		if (medianStringLength >= MedianStringFinder.BRANCH_AND_BOUND_TEST_START_LENGTH && currentScore + this.suffixLowerBounds[this.targetLength - medianStringLength] > bestScore) {
+			if (currentScore > bestScore) {
+				this.searchStatistics.countPrunedByPrefixBound();
+			} else {
+				this.searchStatistics.countPrunedBySuffixBound();
+			}
+			if (this.searchMetrics != null) {
+				++this.nodesPrunedPerDepth[medianStringLength];
+			}
+			return true;
+		}
+		return false;
+		
+	}
+	
+	/**
+	 * @param position - position in the median string of the base being added or removed
+	 * @param baseCode
+	 * @param increment - 1 to add the base to the prefix, -1 to take it back out on backtrack
+	 * @return the total minimum hamming distance of the prefix after the update. For each DNA sequence 
+	 * the partial hamming distance of every window start position is adjusted by the mismatch between the
+	 * base and the DNA sequence base at that start position plus the median string position.
+	 */
+	private int updatePartialHammingDistances(int position, int baseCode, int increment) {
+		
+		if (this.reversePartialHammingDistances != null) {
+			return updatePartialHammingDistancesOnBothStrands(position, baseCode, increment);
+		}
+		
+		int totalMinimumHammingDistance = 0;
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < this.numberOfDnaSequences; ++dnaSequenceCounter) {
+			
+			PackedDnaSequence dnaSequence = this.dnaSequences[dnaSequenceCounter];
+			int[] partialHammingDistance = this.partialHammingDistances[dnaSequenceCounter];
+			int minimumHamingDistance = Integer.MAX_VALUE, numberOfWindows = this.numberOfWindows[dnaSequenceCounter];
+			for (int wordStartPosition = 0; wordStartPosition < numberOfWindows; wordStartPosition += PackedDnaSequence.BASES_PER_WORD) {
+				
+				long mismatchWord = dnaSequence.getMismatchWord(position + wordStartPosition, baseCode);
+				int wordEndPosition = Math.min(wordStartPosition + PackedDnaSequence.BASES_PER_WORD, numberOfWindows);
+				for (int medianStringStartPosition = wordStartPosition; medianStringStartPosition < wordEndPosition; ++medianStringStartPosition) {
+					partialHammingDistance[medianStringStartPosition] += increment * (int) (mismatchWord & 1L);
+					mismatchWord >>>= PackedDnaSequence.BITS_PER_BASE;
+					if (partialHammingDistance[medianStringStartPosition] < minimumHamingDistance) {
+						minimumHamingDistance = partialHammingDistance[medianStringStartPosition];
+					}
+				}
+				
+			}
+			totalMinimumHammingDistance += minimumHamingDistance;
+			
+		}
+		
+		return totalMinimumHammingDistance;
+		
+	}
+	
+	/**
+	 * @param position - position in the median string of the base being added or removed
+	 * @param baseCode
+	 * @param increment - 1 to add the base to the prefix, -1 to take it back out on backtrack
+	 * @return the total minimum hamming distance of the prefix after the update, taking the better strand for
+	 * each window. On the reverse strand the median string base at the position lines up with the complement
+	 * of the DNA sequence base at the start position plus the target length minus one minus the position. Those
+	 * bases are consecutive for consecutive start positions, so one mismatch word covers both strands of the
+	 * same run of windows.
+	 */
+	private int updatePartialHammingDistancesOnBothStrands(int position, int baseCode, int increment) {
+		
+		int totalMinimumHammingDistance = 0, reversePosition = this.targetLength - 1 - position, complementBaseCode = (int) PackedDnaSequence.BASE_CODE_MASK - baseCode;
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < this.numberOfDnaSequences; ++dnaSequenceCounter) {
+			
+			PackedDnaSequence dnaSequence = this.dnaSequences[dnaSequenceCounter];
+			int[] partialHammingDistance = this.partialHammingDistances[dnaSequenceCounter], reversePartialHammingDistance = this.reversePartialHammingDistances[dnaSequenceCounter];
+			int minimumHamingDistance = Integer.MAX_VALUE, numberOfWindows = this.numberOfWindows[dnaSequenceCounter];
+			for (int wordStartPosition = 0; wordStartPosition < numberOfWindows; wordStartPosition += PackedDnaSequence.BASES_PER_WORD) {
+				
+				long mismatchWord = dnaSequence.getMismatchWord(position + wordStartPosition, baseCode);
+				long reverseMismatchWord = dnaSequence.getMismatchWord(reversePosition + wordStartPosition, complementBaseCode);
+				int wordEndPosition = Math.min(wordStartPosition + PackedDnaSequence.BASES_PER_WORD, numberOfWindows);
+				for (int medianStringStartPosition = wordStartPosition; medianStringStartPosition < wordEndPosition; ++medianStringStartPosition) {
+					partialHammingDistance[medianStringStartPosition] += increment * (int) (mismatchWord & 1L);
+					reversePartialHammingDistance[medianStringStartPosition] += increment * (int) (reverseMismatchWord & 1L);
+					mismatchWord >>>= PackedDnaSequence.BITS_PER_BASE;
+					reverseMismatchWord >>>= PackedDnaSequence.BITS_PER_BASE;
+					int windowHammingDistance = Math.min(partialHammingDistance[medianStringStartPosition], reversePartialHammingDistance[medianStringStartPosition]);
+					if (windowHammingDistance < minimumHamingDistance) {
+						minimumHamingDistance = windowHammingDistance;
+					}
+				}
+				
+			}
+			totalMinimumHammingDistance += minimumHamingDistance;
+			
+		}
+		
+		return totalMinimumHammingDistance;
+		
+	}
+
+}
@@ -0,0 +1,155 @@
+/**
+ * Everything that the searches and tasks of one findMedianString call share. None of it changes while
+ * the search runs except for the incumbent and the statistics, which are thread safe.
+ */
+class MedianStringSearchContext {
+
+	private PackedDnaSequence[] dnaSequences;
+	private int[] numberOfWindows;
+	private int targetLength;
+	private int[] suffixLowerBounds;
+	private MedianStringIncumbent incumbent;
+	private SearchStatistics searchStatistics;
+	private SearchMetrics searchMetrics;
+	private boolean reverseComplementScored;
+	private boolean kmerDistanceIndexAllowed;
+	private long kmerDistanceIndexLeafThreshold;
+	private KmerDistanceIndex kmerDistanceIndex;
+	private SearchBudget searchBudget;
+	private MedianStringSearchListener searchListener;
+	private long startTime;
+	private long nextProgressReportTime;
+	private volatile boolean stopped;
+	
+	/**
+	 * Constructor
+	 * @param dnaSequences
+	 * @param numberOfWindows - number of window start positions of each DNA sequence
+	 * @param targetLength - length of the median string being searched for
+	 * @param suffixLowerBounds - lowest total score that any median string of each shorter length can reach
+	 * @param incumbent - best median string found so far
+	 * @param searchStatistics
+	 * @param searchMetrics - detailed counters, or null to skip collecting them
+	 * @param reverseComplementScored - true to score median strings against both strands
+	 * @param kmerDistanceIndexAllowed - true if a k-mer distance index of the target length fits in memory
+	 * @param searchBudget - limits on the search
+	 * @param searchListener - told about progress, or null
+	 * @param startTime - time in milliseconds that the time budget is counted from
+	 */
+	MedianStringSearchContext(PackedDnaSequence[] dnaSequences, int[] numberOfWindows, int targetLength, int[] suffixLowerBounds, MedianStringIncumbent incumbent, SearchStatistics searchStatistics, SearchMetrics searchMetrics, boolean reverseComplementScored, boolean kmerDistanceIndexAllowed, SearchBudget searchBudget, MedianStringSearchListener searchListener, long startTime) {
+		
+		this.dnaSequences = dnaSequences;
+		this.numberOfWindows = numberOfWindows;
+		this.targetLength = targetLength;
+		this.suffixLowerBounds = suffixLowerBounds;
+		this.incumbent = incumbent;
+		this.searchStatistics = searchStatistics;
+		this.searchMetrics = searchMetrics;
+		this.reverseComplementScored = reverseComplementScored;
+		this.kmerDistanceIndexAllowed = kmerDistanceIndexAllowed;
+		this.searchBudget = searchBudget;
+		this.searchListener = searchListener;
+		this.startTime = startTime;
+		this.nextProgressReportTime = startTime + searchBudget.getProgressIntervalMilliseconds();
+		this.kmerDistanceIndexLeafThreshold = kmerDistanceIndexAllowed ? ((1L << (targetLength * PackedDnaSequence.BITS_PER_BASE)) * targetLength * dnaSequences.length) / Math.max(1, getTotalNumberOfWindows(numberOfWindows)) : Long.MAX_VALUE;
+		
+	}
+
+	PackedDnaSequence[] getDnaSequences() {
+		return dnaSequences;
+	}
+
+	/**
+	 * @param numberOfWindows
+	 * @return number of windows of all DNA sequences together
+	 */
+	private static long getTotalNumberOfWindows(int[] numberOfWindows) {
+		
+		long totalNumberOfWindows = 0;
+		for (int dnaSequenceNumberOfWindows : numberOfWindows) {
+			totalNumberOfWindows += dnaSequenceNumberOfWindows;
+		}
+		return totalNumberOfWindows;
+		
+	}
+
+	int[] getNumberOfWindows() {
+		return numberOfWindows;
+	}
+
+	int getTargetLength() {
+		return targetLength;
+	}
+
+	int[] getSuffixLowerBounds() {
+		return suffixLowerBounds;
+	}
+
+	MedianStringIncumbent getIncumbent() {
+		return incumbent;
+	}
+
+	SearchStatistics getSearchStatistics() {
+		return searchStatistics;
+	}
+
+	SearchMetrics getSearchMetrics() {
+		return searchMetrics;
+	}
+
+	boolean isReverseComplementScored() {
+		return reverseComplementScored;
+	}
+	
+	/**
+	 * @return number of leaves a search scores by scanning before it asks for the k-mer distance index. Building
+	 * the index costs about as much as scanning that many leaves, so a search that stays below the threshold
+	 * never pays for the index and one that goes past it spends at most twice what the better choice would.
+	 */
+	long getKmerDistanceIndexLeafThreshold() {
+		return kmerDistanceIndexLeafThreshold;
+	}
+	
+	/**
+	 * @return the k-mer distance index of the target length, built by the first search that asks for it
+	 */
+	synchronized KmerDistanceIndex getKmerDistanceIndex() {
+		
+		if (this.kmerDistanceIndex == null && this.kmerDistanceIndexAllowed) {
+			this.kmerDistanceIndex = new KmerDistanceIndex(this.dnaSequences, this.targetLength, this.numberOfWindows, this.reverseComplementScored);
+		}
+		return this.kmerDistanceIndex;
+		
+	}
+	
+	/**
+	 * @return true once the budget has run out, after which searches return as soon as they notice
+	 */
+	boolean isStopped() {
+		return stopped;
+	}
+	
+	/**
+	 * @param numberOfNodes - nodes a search visited since it last reported
+	 * Count the nodes, stop the search if the budget has run out and send a progress report when one is due
+	 */
+	void reportNodesVisited(long numberOfNodes) {
+		
+		this.searchStatistics.countNodesVisited(numberOfNodes);
+		long currentTime = System.currentTimeMillis(), elapsedMilliseconds = currentTime - this.startTime;
+		if (elapsedMilliseconds >= this.searchBudget.getTimeBudgetMilliseconds() || this.searchStatistics.getNodesVisited() >= this.searchBudget.getNodeBudget()) {
+			this.stopped = true;
+		}
+		
+		if (this.searchListener != null && currentTime >= this.nextProgressReportTime) {
+			synchronized (this) {
+				if (currentTime >= this.nextProgressReportTime) {
+					this.nextProgressReportTime = currentTime + this.searchBudget.getProgressIntervalMilliseconds();
+					this.searchListener.progressReported(this.searchStatistics, this.incumbent.getBestScoredMedianString(), elapsedMilliseconds);
+				}
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,19 @@
+/**
+ * Receives the progress of a median string search. In a parallel search the methods are called from the
+ * worker threads, so implementations need to be thread safe and quick.
+ */
+public interface MedianStringSearchListener {
+
+	/**
+	 * @param scoredMedianString - the median string that just became the best one found so far
+	 */
+	void improvedMedianStringFound(ScoredMedianString scoredMedianString);
+	
+	/**
+	 * @param searchStatistics - counters of the search so far
+	 * @param bestScoredMedianString - the best median string found so far
+	 * @param elapsedMilliseconds - time since the search started
+	 */
+	void progressReported(SearchStatistics searchStatistics, ScoredMedianString bestScoredMedianString, long elapsedMilliseconds);
+	
+}
@@ -0,0 +1,44 @@
+/**
+ * Outcome of a median string search that may have been cut short by its budget.
+ */
+public class MedianStringSearchResult {
+
+	private ScoredMedianString scoredMedianString;
+	private boolean provenOptimal;
+	private SearchStatistics searchStatistics;
+	
+	/**
+	 * Constructor
+	 * @param scoredMedianString - best median string found
+	 * @param provenOptimal - true if the search finished, so no median string scores better
+	 * @param searchStatistics
+	 */
+	public MedianStringSearchResult(ScoredMedianString scoredMedianString, boolean provenOptimal, SearchStatistics searchStatistics) {
+		
+		this.scoredMedianString = scoredMedianString;
+		this.provenOptimal = provenOptimal;
+		this.searchStatistics = searchStatistics;
+		
+	}
+
+	public ScoredMedianString getScoredMedianString() {
+		return scoredMedianString;
+	}
+
+	public boolean isProvenOptimal() {
+		return provenOptimal;
+	}
+
+	public SearchStatistics getSearchStatistics() {
+		return searchStatistics;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.scoredMedianString + (this.provenOptimal ? "" : " (not proven optimal)");
+	}
+	
+}
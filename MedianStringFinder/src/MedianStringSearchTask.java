@@ -0,0 +1,69 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Fork join task for one median string prefix. Prefixes shorter than the split length fork one task per
+ * base, and prefixes at the split length are searched sequentially against the shared incumbent.
+ */
+class MedianStringSearchTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+	public static final int TASKS_PER_THREAD = 16;
+	
+	private MedianStringSearchContext searchContext;
+	private int splitLength;
+	private String medianStringPrefix;
+	
+	/**
+	 * Constructor
+	 * @param searchContext - settings and shared state of the findMedianString call
+	 * @param splitLength - prefix length at which tasks stop forking
+	 * @param medianStringPrefix
+	 */
+	MedianStringSearchTask(MedianStringSearchContext searchContext, int splitLength, String medianStringPrefix) {
+		
+		this.searchContext = searchContext;
+		this.splitLength = splitLength;
+		this.medianStringPrefix = medianStringPrefix;
+		
+	}
+	
+	/**
+	 * @param targetLength
+	 * @param parallelism
+	 * @return the shortest prefix length that gives every thread several tasks to balance the load
+	 */
+	static int getSplitLength(int targetLength, int parallelism) {
+		
+		int splitLength = 0;
+		long numberOfTasks = 1;
+		while (splitLength < targetLength && numberOfTasks < (long) parallelism * TASKS_PER_THREAD) {
+			numberOfTasks *= Nucleotide.validBases.length;
+			++splitLength;
+		}
+		return splitLength;
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.util.concurrent.RecursiveAction#compute()
+	 */
+	@Override
+	protected void compute() {
+		
+		if (this.medianStringPrefix.length() >= this.splitLength) {
+			new MedianStringSearch(this.searchContext).search(this.medianStringPrefix);
+			return;
+		}
+		
+		List<MedianStringSearchTask> childTasks = new ArrayList<MedianStringSearchTask>(Nucleotide.validBases.length);
+		for (char base : Nucleotide.validBases) {
+			childTasks.add(new MedianStringSearchTask(this.searchContext, this.splitLength, this.medianStringPrefix + base));
+		}
+		invokeAll(childTasks);
+		
+	}
+	
+}
@@ -0,0 +1,122 @@
+/**
+ * Finds a good median string quickly, without any guarantee, so that the exact search starts with a
+ * tight upper bound instead of the score of the first leaf it reaches. Windows of the DNA sequences are
+ * scored as median strings, and the best one is then improved one base at a time until no single base
+ * change lowers its score.
+ */
+class MedianStringSeeder {
+
+	public static final int MAXIMUM_NUMBER_OF_CANDIDATE_WINDOWS = 1000;
+	
+	private PackedDnaSequence[] dnaSequences;
+	private int[] numberOfWindows;
+	private boolean reverseComplementScored;
+	private HammingDistanceKernel hammingDistanceKernel;
+	
+	/**
+	 * Constructor
+	 * @param dnaSequences
+	 * @param numberOfWindows - number of window start positions of each DNA sequence
+	 * @param reverseComplementScored - true to score median strings against both strands
+	 * @param hammingDistanceKernel - kernel that scores the candidates
+	 */
+	MedianStringSeeder(PackedDnaSequence[] dnaSequences, int[] numberOfWindows, boolean reverseComplementScored, HammingDistanceKernel hammingDistanceKernel) {
+		
+		this.dnaSequences = dnaSequences;
+		this.numberOfWindows = numberOfWindows;
+		this.reverseComplementScored = reverseComplementScored;
+		this.hammingDistanceKernel = hammingDistanceKernel;
+		
+	}
+	
+	/**
+	 * @param targetLength
+	 * @return a median string of the target length and its score, or null if there are no windows to start from
+	 */
+	ScoredMedianString getSeed(int targetLength) {
+		
+		long totalNumberOfWindows = 0;
+		for (int dnaSequenceNumberOfWindows : this.numberOfWindows) {
+			totalNumberOfWindows += dnaSequenceNumberOfWindows;
+		}
+		if (totalNumberOfWindows == 0 || targetLength == 0) {
+			return null;
+		}
+		
+		//Score evenly spaced windows of all DNA sequences and keep the best
+		long windowStep = Math.max(1, totalNumberOfWindows / MAXIMUM_NUMBER_OF_CANDIDATE_WINDOWS), windowOffset = 0;
+		PackedDnaSequence bestMedianString = null;
+		int bestScore = Integer.MAX_VALUE;
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < this.dnaSequences.length; ++dnaSequenceCounter) {
+			long windowStartPosition = windowOffset;
+			for (; windowStartPosition < this.numberOfWindows[dnaSequenceCounter]; windowStartPosition += windowStep) {
+				PackedDnaSequence candidate = getWindow(this.dnaSequences[dnaSequenceCounter], (int) windowStartPosition, targetLength);
+				int candidateScore = getTotalMinimumHammingDistance(candidate, bestScore);
+				if (candidateScore < bestScore) {
+					bestScore = candidateScore;
+					bestMedianString = candidate;
+				}
+			}
+			windowOffset = windowStartPosition - this.numberOfWindows[dnaSequenceCounter];
+		}
+		
+		//Take the best single base change until none of them helps
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			for (int position = 0; position < targetLength; ++position) {
+				int originalBaseCode = bestMedianString.getBaseCode(position), bestBaseCode = originalBaseCode;
+				for (int baseCode = 0; baseCode < Nucleotide.validBases.length; ++baseCode) {
+					if (baseCode == originalBaseCode) {
+						continue;
+					}
+					bestMedianString.setBaseCode(position, baseCode);
+					int candidateScore = getTotalMinimumHammingDistance(bestMedianString, bestScore);
+					if (candidateScore < bestScore) {
+						bestScore = candidateScore;
+						bestBaseCode = baseCode;
+						improved = true;
+					}
+				}
+				bestMedianString.setBaseCode(position, bestBaseCode);
+			}
+		}
+		
+		return new ScoredMedianString(bestMedianString.toString(), bestScore);
+		
+	}
+	
+	/**
+	 * @param dnaSequence
+	 * @param startPosition
+	 * @param length
+	 * @return a copy of the window of the DNA sequence
+	 */
+	private static PackedDnaSequence getWindow(PackedDnaSequence dnaSequence, int startPosition, int length) {
+		
+		PackedDnaSequence window = new PackedDnaSequence(length);
+		for (int position = 0; position < length; ++position) {
+			window.setBaseCode(position, dnaSequence.getBaseCode(startPosition + position));
+		}
+		return window;
+		
+	}
+	
+	/**
+	 * @param medianString
+	 * @param scoreToBeat
+	 * @return the total minimum hamming distance of the median string, or any value of at least the score to
+	 * beat once the running total reaches it
+	 */
+	private int getTotalMinimumHammingDistance(PackedDnaSequence medianString, int scoreToBeat) {
+		
+		int totalMinimumHammingDistance = 0;
+		PackedDnaSequence reverseComplementMedianString = this.reverseComplementScored ? medianString.getReverseComplement() : null;
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < this.dnaSequences.length && totalMinimumHammingDistance < scoreToBeat; ++dnaSequenceCounter) {
+			totalMinimumHammingDistance += this.hammingDistanceKernel.getMinimumHammingDistance(this.dnaSequences[dnaSequenceCounter], medianString, reverseComplementMedianString, this.numberOfWindows[dnaSequenceCounter]);
+		}
+		return totalMinimumHammingDistance;
+		
+	}
+	
+}
@@ -0,0 +1,434 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Keeps sets of packed DNA sequences in memory by id and finds their median strings for clients that
+ * connect to a socket, so that a query pays neither JVM startup and warmup nor loading its input again.
+ * Each connection sends one request per line and gets one response line back for each:
+ *
+ *   LOAD setId inputFile[,inputFile...]      OK setId numberOfSequences
+ *   OPEN setId storeFile                     OK setId numberOfSequences
+ *   FIND setId targetLength [parallelism=N] [strands=1|2]
+ *                                            OK medianString score milliseconds SEARCHED|SHARED|CACHED
+ *   DROP setId                               OK setId
+ *   STATUS                                   OK sets searches sharedRequests cachedRequests
+ *   QUIT                                     closes the connection
+ *   SHUTDOWN                                 OK, then stops the service
+ *
+ * Input files are FASTA files or plain files holding one sequence, as in MedianStringBatchRunner, and store
+ * files are written by a PackedSequenceStore. A request that fails gets ERROR and a message instead of OK.
+ *
+ * Connections are served at the same time, and searches run on the connection thread that asked first.
+ * A FIND for the same DNA sequences, target length and strands as a search that is still running waits for
+ * that search and shares its result instead of starting another, whatever parallelism it asked for, since
+ * the median string does not depend on it. Finished results are kept in a MedianStringCache. Each loaded
+ * set keeps one finder per strand setting for all of its searches, so whatever its kernel keeps about the
+ * DNA sequences is built once per set and not once per request.
+ */
+public class MedianStringService {
+
+	public static final String LOAD_REQUEST = "LOAD";
+	public static final String OPEN_REQUEST = "OPEN";
+	public static final String FIND_REQUEST = "FIND";
+	public static final String DROP_REQUEST = "DROP";
+	public static final String STATUS_REQUEST = "STATUS";
+	public static final String QUIT_REQUEST = "QUIT";
+	public static final String SHUTDOWN_REQUEST = "SHUTDOWN";
+	public static final String OK_RESPONSE = "OK";
+	public static final String ERROR_RESPONSE = "ERROR";
+	public static final String SEARCHED_SOURCE = "SEARCHED";
+	public static final String SHARED_SOURCE = "SHARED";
+	public static final String CACHED_SOURCE = "CACHED";
+	public static final String FIELD_SEPARATOR = " ";
+	public static final String FIELD_SEPARATOR_REGEX = "\\s+";
+	public static final String INPUT_FILE_SEPARATOR = ",";
+	public static final String PARALLELISM_OPTION = "parallelism=";
+	public static final String STRANDS_OPTION = "strands=";
+	public static final int WARM_UP_DNA_SEQUENCE_LENGTH = 100;
+	public static final int WARM_UP_NUMBER_OF_DNA_SEQUENCES = 10;
+	public static final int WARM_UP_MEDIAN_STRING_LENGTH = 7;
+	public static final int WARM_UP_SEARCHES = 12;
+	
+	private int defaultParallelism;
+	private Semaphore searchSlots;
+	private MedianStringCache medianStringCache;
+	private Map<String, LoadedDnaSequences> loadedDnaSequences = new ConcurrentHashMap<String, LoadedDnaSequences>();
+	private Map<String, FutureTask<ScoredMedianString>> runningSearches = new ConcurrentHashMap<String, FutureTask<ScoredMedianString>>();
+	private AtomicLong numberOfSearches = new AtomicLong();
+	private AtomicLong numberOfSharedRequests = new AtomicLong();
+	private AtomicLong numberOfCachedRequests = new AtomicLong();
+	private ServerSocket serverSocket;
+	
+	/**
+	 * Constructor
+	 * @param maximumConcurrentSearches - number of searches that run at the same time. Later ones wait for a free slot.
+	 * @param defaultParallelism - number of worker threads of a search that does not ask for a number
+	 * @param medianStringCache - cache of finished results
+	 * @throws Exception
+	 */
+	public MedianStringService(int maximumConcurrentSearches, int defaultParallelism, MedianStringCache medianStringCache) throws Exception {
+		
+		if (maximumConcurrentSearches <= 0) {
+			throw new Exception("The service needs room for at least one search at a time.");
+		}
+		if (medianStringCache == null) {
+			throw new Exception("The service needs a cache for its results.");
+		}
+		this.searchSlots = new Semaphore(maximumConcurrentSearches, true);
+		this.defaultParallelism = Math.max(1, defaultParallelism);
+		this.medianStringCache = medianStringCache;
+		
+	}
+	
+	/**
+	 * Search generated DNA sequences a number of times, so that the search code is compiled before the first
+	 * request comes in. The results go nowhere and do not count as searches of the service.
+	 * @throws Exception
+	 */
+	public void warmUp() throws Exception {
+		
+		for (int searchCounter = 0; searchCounter < WARM_UP_SEARCHES; ++searchCounter) {
+			Map<String, Object> generatedDnaSequences = MedianStringFinder.generatePackedDnaSequences(WARM_UP_DNA_SEQUENCE_LENGTH, WARM_UP_NUMBER_OF_DNA_SEQUENCES, WARM_UP_MEDIAN_STRING_LENGTH, WARM_UP_MEDIAN_STRING_LENGTH / 4, searchCounter, 1);
+			MedianStringFinder medianStringFinder = new MedianStringFinder((PackedDnaSequence[]) generatedDnaSequences.get(MedianStringFinder.PACKED_DNA_SEQUENCE_KEY));
+			medianStringFinder.setReverseComplementScored(searchCounter % 2 == 1);
+			medianStringFinder.findScoredMedianString(WARM_UP_MEDIAN_STRING_LENGTH, searchCounter % 2 == 0 ? 1 : this.defaultParallelism);
+		}
+		
+	}
+	
+	/**
+	 * @param serverSocket - socket that clients connect to
+	 * @throws IOException if the socket fails for any reason other than a SHUTDOWN request
+	 * Serve connections until a client asks for a shutdown. Connections that are still open are closed then.
+	 */
+	public void serve(ServerSocket serverSocket) throws IOException {
+		
+		this.serverSocket = serverSocket;
+		
+		//Searches that are still running when the service stops do not keep the JVM alive
+		ExecutorService connectionThreads = Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread connectionThread = new Thread(runnable);
+				connectionThread.setDaemon(true);
+				return connectionThread;
+			}
+		});
+		List<Socket> openSockets = new ArrayList<Socket>();
+		try {
+			while (true) {
+				final Socket socket;
+				try {
+					socket = serverSocket.accept();
+				} catch (IOException e) {
+					if (serverSocket.isClosed()) {
+						return;
+					}
+					throw e;
+				}
+				synchronized (openSockets) {
+					openSockets.add(socket);
+				}
+				connectionThreads.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							serveConnection(socket);
+						} finally {
+							synchronized (openSockets) {
+								openSockets.remove(socket);
+							}
+						}
+					}
+				});
+			}
+		} finally {
+			synchronized (openSockets) {
+				for (Socket socket : openSockets) {
+					socket.close();
+				}
+			}
+			connectionThreads.shutdownNow();
+		}
+		
+	}
+	
+	/**
+	 * @param socket
+	 * Answer the requests of one client until it quits or goes away
+	 */
+	private void serveConnection(Socket socket) {
+		
+		try (Socket connectionSocket = socket) {
+			
+			connectionSocket.setTcpNoDelay(true);
+			BufferedReader requestReader = new BufferedReader(new InputStreamReader(connectionSocket.getInputStream(), StandardCharsets.US_ASCII));
+			PrintWriter responseWriter = new PrintWriter(new BufferedWriter(new OutputStreamWriter(connectionSocket.getOutputStream(), StandardCharsets.US_ASCII)));
+			String request = null;
+			while ((request = requestReader.readLine()) != null) {
+				
+				request = request.trim();
+				if (request.length() == 0) {
+					continue;
+				}
+				if (QUIT_REQUEST.equals(request)) {
+					return;
+				}
+				responseWriter.println(getResponse(request));
+				responseWriter.flush();
+				if (SHUTDOWN_REQUEST.equals(request)) {
+					this.serverSocket.close();
+					return;
+				}
+				
+			}
+			
+		} catch (IOException e) {
+			//The client went away, and nothing is waiting on its answers
+		}
+		
+	}
+	
+	/**
+	 * @param request - one request line
+	 * @return the response line
+	 */
+	private String getResponse(String request) {
+		
+		String[] fields = request.split(FIELD_SEPARATOR_REGEX);
+		try {
+			if (LOAD_REQUEST.equals(fields[0]) && fields.length == 3) {
+				return load(fields[1], getFastaDnaSequences(fields[2].split(INPUT_FILE_SEPARATOR)));
+			} else if (OPEN_REQUEST.equals(fields[0]) && fields.length == 3) {
+				return load(fields[1], getStoredDnaSequences(new File(fields[2])));
+			} else if (FIND_REQUEST.equals(fields[0]) && fields.length >= 3) {
+				return find(fields);
+			} else if (DROP_REQUEST.equals(fields[0]) && fields.length == 2) {
+				if (this.loadedDnaSequences.remove(fields[1]) == null) {
+					throw new Exception("No DNA sequences are loaded as " + fields[1] + ".");
+				}
+				return OK_RESPONSE + FIELD_SEPARATOR + fields[1];
+			} else if (STATUS_REQUEST.equals(fields[0]) && fields.length == 1) {
+				return OK_RESPONSE + FIELD_SEPARATOR + this.loadedDnaSequences.size() + FIELD_SEPARATOR + this.numberOfSearches.get() + FIELD_SEPARATOR + this.numberOfSharedRequests.get() + FIELD_SEPARATOR + this.numberOfCachedRequests.get();
+			} else if (SHUTDOWN_REQUEST.equals(fields[0]) && fields.length == 1) {
+				return OK_RESPONSE;
+			}
+			throw new Exception(request + " is not a valid request.");
+		} catch (Exception e) {
+			return ERROR_RESPONSE + FIELD_SEPARATOR + e.getMessage();
+		}
+		
+	}
+	
+	/**
+	 * @param setId
+	 * @param dnaSequences
+	 * @return the response, after the DNA sequences have replaced any that were loaded under the same id
+	 * @throws Exception if the DNA sequences cannot be searched
+	 */
+	private String load(String setId, PackedDnaSequence[] dnaSequences) throws Exception {
+		
+		this.loadedDnaSequences.put(setId, new LoadedDnaSequences(dnaSequences));
+		return OK_RESPONSE + FIELD_SEPARATOR + setId + FIELD_SEPARATOR + dnaSequences.length;
+		
+	}
+	
+	/**
+	 * @param fields - fields of a FIND request
+	 * @return the response with the median string, its score, the time the request took and where the result came from
+	 * @throws Exception if the request is not valid or its search fails
+	 */
+	private String find(String[] fields) throws Exception {
+		
+		long startTime = System.currentTimeMillis();
+		LoadedDnaSequences dnaSequences = this.loadedDnaSequences.get(fields[1]);
+		if (dnaSequences == null) {
+			throw new Exception("No DNA sequences are loaded as " + fields[1] + ".");
+		}
+		final int targetLength = Integer.parseInt(fields[2]);
+		if (targetLength <= 0) {
+			throw new IllegalArgumentException("Median string length " + targetLength + " is not positive.");
+		}
+		int parallelism = this.defaultParallelism;
+		boolean reverseComplementScored = false;
+		for (int fieldCounter = 3; fieldCounter < fields.length; ++fieldCounter) {
+			if (fields[fieldCounter].startsWith(PARALLELISM_OPTION)) {
+				parallelism = Integer.parseInt(fields[fieldCounter].substring(PARALLELISM_OPTION.length()));
+			} else if (fields[fieldCounter].startsWith(STRANDS_OPTION)) {
+				int numberOfStrands = Integer.parseInt(fields[fieldCounter].substring(STRANDS_OPTION.length()));
+				if (numberOfStrands != 1 && numberOfStrands != 2) {
+					throw new IllegalArgumentException(numberOfStrands + " strands cannot be scored. Use 1 or 2.");
+				}
+				reverseComplementScored = numberOfStrands == 2;
+			} else {
+				throw new Exception(fields[fieldCounter] + " is not a valid option.");
+			}
+		}
+		
+		//The digest names the DNA sequences and not the id, so a set loaded again under its id is not mixed up with the old one
+		String dnaSequencesDigest = reverseComplementScored ? dnaSequences.getDigest() + MedianStringFinder.REVERSE_COMPLEMENT_DIGEST_SUFFIX : dnaSequences.getDigest();
+		ScoredMedianString scoredMedianString = this.medianStringCache.get(dnaSequencesDigest, targetLength);
+		String source = CACHED_SOURCE;
+		if (scoredMedianString == null) {
+			
+			final MedianStringFinder medianStringFinder = dnaSequences.getMedianStringFinder(reverseComplementScored);
+			medianStringFinder.checkTargetLength(targetLength);
+			final int searchParallelism = Math.max(1, parallelism);
+			FutureTask<ScoredMedianString> search = new FutureTask<ScoredMedianString>(new Callable<ScoredMedianString>() {
+				@Override
+				public ScoredMedianString call() throws Exception {
+					searchSlots.acquire();
+					try {
+						return medianStringFinder.findScoredMedianString(targetLength, searchParallelism);
+					} finally {
+						searchSlots.release();
+					}
+				}
+			});
+			
+			String searchKey = dnaSequencesDigest + "-" + targetLength;
+			FutureTask<ScoredMedianString> runningSearch = this.runningSearches.putIfAbsent(searchKey, search);
+			if (runningSearch == null) {
+				try {
+					
+					//A search that finished between the cache lookup and now has already put its result in the cache
+					scoredMedianString = this.medianStringCache.get(dnaSequencesDigest, targetLength);
+					if (scoredMedianString == null) {
+						search.run();
+						scoredMedianString = getResult(search);
+						this.medianStringCache.put(dnaSequencesDigest, targetLength, scoredMedianString);
+						this.numberOfSearches.incrementAndGet();
+						source = SEARCHED_SOURCE;
+					} else {
+						this.numberOfCachedRequests.incrementAndGet();
+					}
+					
+				} finally {
+					this.runningSearches.remove(searchKey, search);
+				}
+			} else {
+				scoredMedianString = getResult(runningSearch);
+				this.numberOfSharedRequests.incrementAndGet();
+				source = SHARED_SOURCE;
+			}
+			
+		} else {
+			this.numberOfCachedRequests.incrementAndGet();
+		}
+		
+		return OK_RESPONSE + FIELD_SEPARATOR + scoredMedianString.getMedianString() + FIELD_SEPARATOR + scoredMedianString.getScore() + FIELD_SEPARATOR + (System.currentTimeMillis() - startTime) + FIELD_SEPARATOR + source;
+		
+	}
+	
+	/**
+	 * @param search
+	 * @return the median string that the search found
+	 * @throws Exception - the exception that the search failed with
+	 */
+	private static ScoredMedianString getResult(FutureTask<ScoredMedianString> search) throws Exception {
+		
+		try {
+			return search.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+		
+	}
+	
+	/**
+	 * @param inputFileNames
+	 * @return every record of every input file
+	 * @throws Exception
+	 */
+	private static PackedDnaSequence[] getFastaDnaSequences(String[] inputFileNames) throws Exception {
+		
+		List<PackedDnaSequence> dnaSequences = new ArrayList<PackedDnaSequence>();
+		for (String inputFileName : inputFileNames) {
+			try (FastaReader fastaReader = new FastaReader(new File(inputFileName))) {
+				PackedDnaSequence dnaSequence = null;
+				while ((dnaSequence = fastaReader.nextDnaSequence()) != null) {
+					dnaSequences.add(dnaSequence);
+				}
+			}
+		}
+		return dnaSequences.toArray(new PackedDnaSequence[dnaSequences.size()]);
+		
+	}
+	
+	/**
+	 * @param storeFile
+	 * @return the sequences of the store, which stay mapped after the store is closed
+	 * @throws Exception
+	 */
+	private static PackedDnaSequence[] getStoredDnaSequences(File storeFile) throws Exception {
+		
+		try (PackedSequenceStore packedSequenceStore = new PackedSequenceStore(storeFile)) {
+			return packedSequenceStore.getDnaSequences();
+		}
+		
+	}
+	
+	/**
+	 * A set of DNA sequences held by the service, with its digest worked out once when it is loaded and the
+	 * finders that all of its searches share. A finder keeps no state of its own between searches apart from
+	 * the statistics of the last one, so searches of different lengths can share it at the same time.
+	 */
+	private static class LoadedDnaSequences {
+		
+		private String digest;
+		private MedianStringFinder medianStringFinder;
+		private MedianStringFinder reverseComplementMedianStringFinder;
+		
+		/**
+		 * Constructor
+		 * @param dnaSequences
+		 * @throws Exception
+		 */
+		LoadedDnaSequences(PackedDnaSequence[] dnaSequences) throws Exception {
+			
+			this.digest = MedianStringCache.getDigest(dnaSequences);
+			this.medianStringFinder = new MedianStringFinder(dnaSequences);
+			this.reverseComplementMedianStringFinder = new MedianStringFinder(dnaSequences);
+			this.reverseComplementMedianStringFinder.setReverseComplementScored(true);
+			
+		}
+		
+		/**
+		 * @param reverseComplementScored
+		 * @return the finder of the set that scores one strand, or both
+		 */
+		MedianStringFinder getMedianStringFinder(boolean reverseComplementScored) {
+			return reverseComplementScored ? reverseComplementMedianStringFinder : medianStringFinder;
+		}
+		
+		String getDigest() {
+			return digest;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,131 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Connection to a MedianStringService. Requests are sent one at a time over the same connection, so a
+ * script that makes many of them pays for the connection once. Since the protocol is one line of text each
+ * way, scripts can just as well talk to the service with any tool that writes lines to a socket.
+ */
+public class MedianStringServiceClient implements Closeable {
+
+	private Socket socket;
+	private BufferedReader responseReader;
+	private PrintWriter requestWriter;
+	
+	/**
+	 * Constructor
+	 * @param host - host of the service
+	 * @param port - port of the service
+	 * @throws IOException if the service cannot be reached
+	 */
+	public MedianStringServiceClient(String host, int port) throws IOException {
+		
+		this.socket = new Socket(host, port);
+		this.socket.setTcpNoDelay(true);
+		this.responseReader = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.US_ASCII));
+		this.requestWriter = new PrintWriter(new BufferedWriter(new OutputStreamWriter(this.socket.getOutputStream(), StandardCharsets.US_ASCII)));
+		
+	}
+	
+	/**
+	 * @param request - one request line
+	 * @return the response line, which starts with OK or ERROR
+	 * @throws IOException if the service goes away before it answers
+	 */
+	public String send(String request) throws IOException {
+		
+		this.requestWriter.println(request);
+		this.requestWriter.flush();
+		String response = this.responseReader.readLine();
+		if (response == null) {
+			throw new IOException("The service closed the connection before answering " + request + ".");
+		}
+		return response;
+		
+	}
+	
+	/**
+	 * @param setId - id to keep the DNA sequences under, replacing any loaded under it before
+	 * @param inputFileNames - FASTA files or plain files holding one sequence, as the service sees them
+	 * @return number of DNA sequences loaded
+	 * @throws Exception if the service could not load them
+	 */
+	public int load(String setId, String... inputFileNames) throws Exception {
+		return Integer.parseInt(getResponseFields(MedianStringService.LOAD_REQUEST + MedianStringService.FIELD_SEPARATOR + setId + MedianStringService.FIELD_SEPARATOR + String.join(MedianStringService.INPUT_FILE_SEPARATOR, inputFileNames))[2]);
+	}
+	
+	/**
+	 * @param setId - id to keep the DNA sequences under, replacing any loaded under it before
+	 * @param storeFileName - packed sequence store, as the service sees it
+	 * @return number of DNA sequences loaded
+	 * @throws Exception if the service could not open the store
+	 */
+	public int open(String setId, String storeFileName) throws Exception {
+		return Integer.parseInt(getResponseFields(MedianStringService.OPEN_REQUEST + MedianStringService.FIELD_SEPARATOR + setId + MedianStringService.FIELD_SEPARATOR + storeFileName)[2]);
+	}
+	
+	/**
+	 * @param setId
+	 * @param targetLength
+	 * @param parallelism - number of worker threads for the search, if one is needed
+	 * @param reverseComplementScored - true to let the median string match a window on either strand
+	 * @return the median string of the DNA sequences loaded under the id and its score
+	 * @throws Exception if the request is not valid or its search failed
+	 */
+	public ScoredMedianString find(String setId, int targetLength, int parallelism, boolean reverseComplementScored) throws Exception {
+		
+		String request = MedianStringService.FIND_REQUEST + MedianStringService.FIELD_SEPARATOR + setId + MedianStringService.FIELD_SEPARATOR + targetLength + MedianStringService.FIELD_SEPARATOR + MedianStringService.PARALLELISM_OPTION + parallelism;
+		if (reverseComplementScored) {
+			request += MedianStringService.FIELD_SEPARATOR + MedianStringService.STRANDS_OPTION + 2;
+		}
+		String[] responseFields = getResponseFields(request);
+		return new ScoredMedianString(responseFields[1], Integer.parseInt(responseFields[2]));
+		
+	}
+	
+	/**
+	 * @param setId
+	 * @throws Exception if nothing was loaded under the id
+	 */
+	public void drop(String setId) throws Exception {
+		getResponseFields(MedianStringService.DROP_REQUEST + MedianStringService.FIELD_SEPARATOR + setId);
+	}
+	
+	/**
+	 * @param request
+	 * @return the fields of an OK response
+	 * @throws Exception with the message of an ERROR response
+	 */
+	private String[] getResponseFields(String request) throws Exception {
+		
+		String response = send(request);
+		if (!response.startsWith(MedianStringService.OK_RESPONSE + MedianStringService.FIELD_SEPARATOR) && !response.equals(MedianStringService.OK_RESPONSE)) {
+			throw new Exception(response.startsWith(MedianStringService.ERROR_RESPONSE) ? response.substring(MedianStringService.ERROR_RESPONSE.length()).trim() : "The service sent " + response + ".");
+		}
+		return response.split(MedianStringService.FIELD_SEPARATOR_REGEX);
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		
+		if (!this.socket.isClosed()) {
+			this.requestWriter.println(MedianStringService.QUIT_REQUEST);
+			this.requestWriter.flush();
+		}
+		this.socket.close();
+		
+	}
+	
+}
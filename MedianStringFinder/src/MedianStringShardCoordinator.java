@@ -0,0 +1,412 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Finds a median string with the help of MedianStringShardWorker processes, which may run on this machine
+ * or on others. The search tree is cut into shards, one for every prefix of the shard length, and each
+ * worker is kept busy with as many shards as it has threads. Whenever a worker finds a better median string
+ * it is passed on to all the others, so every shard prunes against the best median string found anywhere
+ * and the result is the same as the one of a search in a single process. Shards held by a worker whose
+ * connection drops are handed out again, and workers can join at any time until the search is over. The
+ * search gives up when no worker has been connected for the worker timeout.
+ */
+public class MedianStringShardCoordinator {
+
+	public static final int DEFAULT_SHARD_LENGTH = 6;
+	public static final long DEFAULT_WORKER_TIMEOUT = 5L * 60 * 1000;
+	
+	private MedianStringFinder medianStringFinder;
+	private int targetLength;
+	private int shardLength;
+	private int parallelism;
+	private long workerTimeout = DEFAULT_WORKER_TIMEOUT;
+	private SearchStatistics searchStatistics;
+	private MedianStringIncumbent incumbent;
+	private int[] suffixLowerBounds;
+	private Deque<String> unassignedShards;
+	private Set<String> unsearchedShards;
+	private List<WorkerConnection> workerConnections;
+	private CountDownLatch allShardsSearched;
+	private volatile boolean finished;
+	private volatile long workerlessSince;
+	
+	/**
+	 * Constructor
+	 * @param medianStringFinder - finder that holds the DNA sequences and the scoring settings
+	 * @param targetLength
+	 * @param shardLength - length of the prefixes that the search tree is cut at. Lengths longer than the
+	 * target length are cut down to it.
+	 * @param parallelism - number of threads for the suffix lower bound searches, which run in this process
+	 */
+	public MedianStringShardCoordinator(MedianStringFinder medianStringFinder, int targetLength, int shardLength, int parallelism) {
+		
+		this.medianStringFinder = medianStringFinder;
+		this.targetLength = targetLength;
+		this.shardLength = Math.max(0, Math.min(shardLength, targetLength));
+		this.parallelism = parallelism;
+		
+	}
+	
+	/**
+	 * @param workerTimeout - milliseconds to wait while no worker is connected, either before the first one
+	 * connects or after the last one is lost, before the search gives up. 0 waits for as long as it takes.
+	 */
+	public void setWorkerTimeout(long workerTimeout) {
+		this.workerTimeout = workerTimeout > 0 ? workerTimeout : Long.MAX_VALUE;
+	}
+	
+	/**
+	 * @param serverSocket - socket that workers connect to. It is closed once every shard has been searched.
+	 * @return the median string of the target length and its score
+	 * @throws Exception if no worker was connected for the worker timeout before every shard was searched
+	 */
+	public ScoredMedianString search(ServerSocket serverSocket) throws Exception {
+		
+		this.medianStringFinder.checkTargetLength(this.targetLength);
+		this.searchStatistics = new SearchStatistics();
+		this.incumbent = new MedianStringIncumbent();
+		this.suffixLowerBounds = this.medianStringFinder.getSuffixLowerBounds(this.targetLength, this.parallelism);
+		ScoredMedianString seed = this.medianStringFinder.getSeed(this.targetLength, this.searchStatistics);
+		if (seed != null) {
+			this.incumbent.offer(seed.getMedianString(), seed.getScore());
+		}
+		
+		this.unassignedShards = new ArrayDeque<String>();
+		this.unsearchedShards = ConcurrentHashMap.newKeySet();
+		addShards(MedianStringFinder.EMPTY_STRING);
+		this.workerConnections = new CopyOnWriteArrayList<WorkerConnection>();
+		this.allShardsSearched = new CountDownLatch(1);
+		this.finished = false;
+		this.workerlessSince = System.currentTimeMillis();
+		
+		Thread connectionAcceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				acceptWorkerConnections(serverSocket);
+			}
+		});
+		connectionAcceptor.setDaemon(true);
+		connectionAcceptor.start();
+		
+		while (!this.allShardsSearched.await(getRemainingWorkerWait(), TimeUnit.MILLISECONDS)) {
+			if (this.workerConnections.isEmpty() && System.currentTimeMillis() - this.workerlessSince >= this.workerTimeout) {
+				this.finished = true;
+				serverSocket.close();
+				for (WorkerConnection workerConnection : this.workerConnections) {
+					workerConnection.closeSocket();
+				}
+				throw new Exception("No shard worker was connected for " + this.workerTimeout + " (ms), with " + this.unsearchedShards.size() + " shards left to search.");
+			}
+		}
+		this.finished = true;
+		serverSocket.close();
+		for (WorkerConnection workerConnection : this.workerConnections) {
+			workerConnection.sendDone();
+		}
+		return this.incumbent.getBestScoredMedianString();
+		
+	}
+	
+	/**
+	 * @return milliseconds to wait for the shards before checking again whether any worker is connected
+	 */
+	private long getRemainingWorkerWait() {
+		
+		if (!this.workerConnections.isEmpty()) {
+			return this.workerTimeout;
+		}
+		return Math.max(1, this.workerTimeout - (System.currentTimeMillis() - this.workerlessSince));
+		
+	}
+	
+	/**
+	 * @return counters of the last search. Nodes visited are added up from the reports of the workers, and
+	 * workers whose connections dropped are counted with the shards they held.
+	 */
+	public SearchStatistics getSearchStatistics() {
+		return searchStatistics;
+	}
+	
+	/**
+	 * @param medianStringPrefix
+	 * Add a shard for every prefix of the shard length that starts with the median string prefix, in lexicographic order
+	 */
+	private void addShards(String medianStringPrefix) {
+		
+		if (medianStringPrefix.length() == this.shardLength) {
+			this.unassignedShards.addLast(medianStringPrefix);
+			this.unsearchedShards.add(medianStringPrefix);
+			return;
+		}
+		for (char base : Nucleotide.validBases) {
+			addShards(medianStringPrefix + base);
+		}
+		
+	}
+	
+	/**
+	 * @param serverSocket
+	 * Start a connection thread for every worker that connects until the socket is closed
+	 */
+	private void acceptWorkerConnections(ServerSocket serverSocket) {
+		
+		while (!serverSocket.isClosed()) {
+			try {
+				WorkerConnection workerConnection = new WorkerConnection(serverSocket.accept());
+				this.workerConnections.add(workerConnection);
+				Thread connectionThread = new Thread(workerConnection);
+				connectionThread.setDaemon(true);
+				connectionThread.start();
+			} catch (IOException e) {
+				return;
+			}
+		}
+		
+	}
+	
+	/**
+	 * @return the next shard that no worker holds, or null if there is none right now
+	 */
+	private synchronized String takeUnassignedShard() {
+		return this.unassignedShards.pollFirst();
+	}
+	
+	/**
+	 * @param shards - shards of a worker that is gone, which go to the front of the queue
+	 */
+	private synchronized void returnUnassignedShards(List<String> shards) {
+		
+		for (int shardCounter = shards.size() - 1; shardCounter >= 0; --shardCounter) {
+			this.unassignedShards.addFirst(shards.get(shardCounter));
+		}
+		
+	}
+	
+	/**
+	 * @param shard
+	 * @param nodesVisited - nodes the worker visited since its last report
+	 */
+	private void shardSearched(String shard, long nodesVisited) {
+		
+		this.searchStatistics.countNodesVisited(nodesVisited);
+		if (this.unsearchedShards.remove(shard) && this.unsearchedShards.isEmpty()) {
+			this.allShardsSearched.countDown();
+		}
+		
+	}
+	
+	/**
+	 * @param scoredMedianString - median string reported by a worker
+	 * @param reportingConnection - connection of the worker that found it, which does not need to hear it back
+	 */
+	private void offerBound(ScoredMedianString scoredMedianString, WorkerConnection reportingConnection) {
+		
+		if (!this.incumbent.offer(scoredMedianString.getMedianString(), scoredMedianString.getScore())) {
+			return;
+		}
+		for (WorkerConnection workerConnection : this.workerConnections) {
+			if (workerConnection != reportingConnection) {
+				workerConnection.sendBound(scoredMedianString);
+			}
+		}
+		
+	}
+	
+	/**
+	 * The coordinator side of the connection to one worker. Messages from the worker are read on the
+	 * connection thread, and messages to the worker can be sent from any thread.
+	 */
+	private class WorkerConnection implements Runnable {
+		
+		private Socket socket;
+		private DataOutputStream outputStream;
+		private Set<String> assignedShards = new HashSet<String>();
+		private int numberOfThreads;
+		private boolean started;
+		private boolean closed;
+		
+		/**
+		 * Constructor
+		 * @param socket - socket of a worker that just connected
+		 * @throws IOException
+		 */
+		WorkerConnection(Socket socket) throws IOException {
+			
+			this.socket = socket;
+			this.socket.setTcpNoDelay(true);
+			this.outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			
+			try {
+				DataInputStream inputStream = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+				if (inputStream.readByte() != MedianStringShardProtocol.HELLO) {
+					throw new IOException("Worker at " + this.socket.getRemoteSocketAddress() + " did not start with a hello.");
+				}
+				start(inputStream.readInt());
+				assignShards();
+				
+				while (true) {
+					byte messageType = inputStream.readByte();
+					if (messageType == MedianStringShardProtocol.BOUND) {
+						offerBound(MedianStringShardProtocol.readBound(inputStream), this);
+					} else if (messageType == MedianStringShardProtocol.RESULT) {
+						String shard = inputStream.readUTF();
+						long nodesVisited = inputStream.readLong();
+						synchronized (this) {
+							this.assignedShards.remove(shard);
+						}
+						shardSearched(shard, nodesVisited);
+						assignShards();
+					} else {
+						throw new IOException("Worker at " + this.socket.getRemoteSocketAddress() + " sent unknown message type " + messageType + ".");
+					}
+				}
+			} catch (IOException e) {
+				close();
+			}
+			
+		}
+		
+		/**
+		 * @param numberOfThreads - number of shards the worker searches at once
+		 * @throws IOException
+		 * Send the problem and the best median string found so far
+		 */
+		private synchronized void start(int numberOfThreads) throws IOException {
+			
+			this.numberOfThreads = Math.max(1, numberOfThreads);
+			MedianStringShardProtocol.writeProblem(this.outputStream, medianStringFinder.getDnaSequences(), medianStringFinder.isReverseComplementScored(), targetLength, suffixLowerBounds);
+			ScoredMedianString bestScoredMedianString = incumbent.getBestScoredMedianString();
+			if (bestScoredMedianString != MedianStringIncumbent.NO_MEDIAN_STRING) {
+				MedianStringShardProtocol.writeBound(this.outputStream, bestScoredMedianString);
+			}
+			this.started = true;
+			
+		}
+		
+		/**
+		 * Hand out unassigned shards until the worker holds one for each of its threads. A shard is marked as
+		 * assigned before it is sent, so that it is handed out again if sending it fails.
+		 */
+		synchronized void assignShards() {
+			
+			if (!this.started || this.closed) {
+				return;
+			}
+			try {
+				String shard;
+				while (this.assignedShards.size() < this.numberOfThreads && (shard = takeUnassignedShard()) != null) {
+					this.assignedShards.add(shard);
+					this.outputStream.writeByte(MedianStringShardProtocol.SHARD);
+					this.outputStream.writeUTF(shard);
+				}
+				this.outputStream.flush();
+			} catch (IOException e) {
+				closeSocket();
+			}
+			
+		}
+		
+		/**
+		 * @param scoredMedianString - better median string found by another worker
+		 */
+		synchronized void sendBound(ScoredMedianString scoredMedianString) {
+			
+			if (!this.started || this.closed) {
+				return;
+			}
+			try {
+				MedianStringShardProtocol.writeBound(this.outputStream, scoredMedianString);
+			} catch (IOException e) {
+				closeSocket();
+			}
+			
+		}
+		
+		/**
+		 * Tell the worker that every shard has been searched
+		 */
+		synchronized void sendDone() {
+			
+			if (this.closed) {
+				return;
+			}
+			try {
+				this.outputStream.writeByte(MedianStringShardProtocol.DONE);
+				this.outputStream.flush();
+			} catch (IOException e) {
+				closeSocket();
+			}
+			
+		}
+		
+		/**
+		 * Close the socket so that the connection thread stops reading and hands the shards of the worker out again
+		 */
+		void closeSocket() {
+			
+			try {
+				this.socket.close();
+			} catch (IOException e) {
+				//The connection is being dropped anyway
+			}
+			
+		}
+		
+		/**
+		 * Hand the shards that the worker still held to the workers that are left, and count the worker as lost
+		 * in the statistics of the search
+		 */
+		private void close() {
+			
+			List<String> orphanedShards;
+			synchronized (this) {
+				this.closed = true;
+				orphanedShards = new ArrayList<String>(this.assignedShards);
+				this.assignedShards.clear();
+			}
+			closeSocket();
+			workerConnections.remove(this);
+			if (finished) {
+				return;
+			}
+			if (workerConnections.isEmpty()) {
+				workerlessSince = System.currentTimeMillis();
+			}
+			
+			searchStatistics.countLostWorker(orphanedShards.size());
+			if (!orphanedShards.isEmpty()) {
+				returnUnassignedShards(orphanedShards);
+				for (WorkerConnection workerConnection : workerConnections) {
+					workerConnection.assignShards();
+				}
+			}
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,121 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+
+/**
+ * Messages exchanged between a MedianStringShardCoordinator and its MedianStringShardWorker processes.
+ * Each message is a one byte type followed by its fields in DataOutputStream format.
+ *
+ * A worker opens with HELLO and the number of shards it can search at once. The coordinator answers
+ * with PROBLEM, which carries the DNA sequences, the target length and the suffix lower bounds, and then
+ * keeps that many SHARD messages outstanding. The worker answers every shard with RESULT once it has
+ * searched every median string that starts with the shard prefix. Either side sends BOUND when it learns
+ * of a better median string, so that every worker prunes against the best one found anywhere. DONE tells
+ * the worker that every shard has been searched.
+ */
+final class MedianStringShardProtocol {
+
+	public static final byte HELLO = 'H';
+	public static final byte PROBLEM = 'P';
+	public static final byte SHARD = 'S';
+	public static final byte BOUND = 'B';
+	public static final byte RESULT = 'R';
+	public static final byte DONE = 'D';
+	
+	private MedianStringShardProtocol() {
+	}
+	
+	/**
+	 * @param outputStream
+	 * @param dnaSequences
+	 * @param reverseComplementScored
+	 * @param targetLength
+	 * @param suffixLowerBounds
+	 * @throws IOException
+	 */
+	static void writeProblem(DataOutputStream outputStream, PackedDnaSequence[] dnaSequences, boolean reverseComplementScored, int targetLength, int[] suffixLowerBounds) throws IOException {
+		
+		outputStream.writeByte(PROBLEM);
+		outputStream.writeInt(targetLength);
+		outputStream.writeBoolean(reverseComplementScored);
+		outputStream.writeInt(suffixLowerBounds.length);
+		for (int suffixLowerBound : suffixLowerBounds) {
+			outputStream.writeInt(suffixLowerBound);
+		}
+		
+		//Words are read one per 32 bases, so sequences kept off the heap are sent without copying them first
+		outputStream.writeInt(dnaSequences.length);
+		for (PackedDnaSequence dnaSequence : dnaSequences) {
+			outputStream.writeInt(dnaSequence.getLength());
+			int numberOfWords = PackedDnaSequence.getNumberOfWords(dnaSequence.getLength());
+			for (int wordCounter = 0; wordCounter < numberOfWords; ++wordCounter) {
+				outputStream.writeLong(dnaSequence.getWord(wordCounter * PackedDnaSequence.BASES_PER_WORD));
+			}
+		}
+		outputStream.flush();
+		
+	}
+	
+	/**
+	 * @param inputStream - positioned after the target length and the strand flag of a PROBLEM message
+	 * @return the suffix lower bounds of the problem
+	 * @throws IOException
+	 */
+	static int[] readSuffixLowerBounds(DataInputStream inputStream) throws IOException {
+		
+		int[] suffixLowerBounds = new int[inputStream.readInt()];
+		for (int suffixLength = 0; suffixLength < suffixLowerBounds.length; ++suffixLength) {
+			suffixLowerBounds[suffixLength] = inputStream.readInt();
+		}
+		return suffixLowerBounds;
+		
+	}
+	
+	/**
+	 * @param inputStream - positioned after the suffix lower bounds of a PROBLEM message
+	 * @return the DNA sequences of the problem
+	 * @throws IOException
+	 */
+	static PackedDnaSequence[] readDnaSequences(DataInputStream inputStream) throws IOException {
+		
+		PackedDnaSequence[] dnaSequences = new PackedDnaSequence[inputStream.readInt()];
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < dnaSequences.length; ++dnaSequenceCounter) {
+			int length = inputStream.readInt();
+			long[] words = new long[PackedDnaSequence.getNumberOfWords(length)];
+			for (int wordCounter = 0; wordCounter < words.length; ++wordCounter) {
+				words[wordCounter] = inputStream.readLong();
+			}
+			dnaSequences[dnaSequenceCounter] = new PackedDnaSequence(words, length);
+		}
+		return dnaSequences;
+		
+	}
+	
+	/**
+	 * @param outputStream
+	 * @param scoredMedianString
+	 * @throws IOException
+	 */
+	static void writeBound(DataOutputStream outputStream, ScoredMedianString scoredMedianString) throws IOException {
+		
+		outputStream.writeByte(BOUND);
+		outputStream.writeUTF(scoredMedianString.getMedianString());
+		outputStream.writeInt(scoredMedianString.getScore());
+		outputStream.flush();
+		
+	}
+	
+	/**
+	 * @param inputStream - positioned after the BOUND type byte
+	 * @return the median string and score of the bound
+	 * @throws IOException
+	 */
+	static ScoredMedianString readBound(DataInputStream inputStream) throws IOException {
+		
+		String medianString = inputStream.readUTF();
+		return new ScoredMedianString(medianString, inputStream.readInt());
+		
+	}
+	
+}
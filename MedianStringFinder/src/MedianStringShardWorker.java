@@ -0,0 +1,188 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Searches shards of a median string search for a MedianStringShardCoordinator. The worker gets the DNA
+ * sequences and the suffix lower bounds from the coordinator, so it needs nothing but the address of the
+ * coordinator to start. Every median string that beats the incumbent is reported to the coordinator, and
+ * the better median strings that other workers find are offered to the incumbent, which all shards of the
+ * worker share. A shard search that fails closes the connection, so that the coordinator hands the shards
+ * of the worker to the others instead of waiting for them.
+ */
+public class MedianStringShardWorker implements MedianStringSearchListener {
+
+	private int numberOfThreads;
+	private Socket socket;
+	private DataOutputStream outputStream;
+	private volatile ScoredMedianString coordinatorBound;
+	private volatile Throwable searchFailure;
+	private SearchStatistics searchStatistics;
+	private long nodesVisitedReported;
+	
+	/**
+	 * Constructor
+	 * @param numberOfThreads - number of shards to search at once
+	 */
+	public MedianStringShardWorker(int numberOfThreads) {
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+	
+	/**
+	 * @param host - host of the coordinator
+	 * @param port - port of the coordinator
+	 * @return number of shards searched, once the coordinator says that every shard has been searched
+	 * @throws Exception if the coordinator goes away or does not follow the protocol, or a shard search fails
+	 */
+	public int run(String host, int port) throws Exception {
+		
+		try (Socket socket = new Socket(host, port)) {
+			
+			this.socket = socket;
+			this.coordinatorBound = null;
+			this.searchFailure = null;
+			socket.setTcpNoDelay(true);
+			DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			synchronized (this.outputStream) {
+				this.outputStream.writeByte(MedianStringShardProtocol.HELLO);
+				this.outputStream.writeInt(this.numberOfThreads);
+				this.outputStream.flush();
+			}
+			
+			if (inputStream.readByte() != MedianStringShardProtocol.PROBLEM) {
+				throw new Exception("Coordinator at " + host + ":" + port + " did not send a problem.");
+			}
+			int targetLength = inputStream.readInt();
+			boolean reverseComplementScored = inputStream.readBoolean();
+			int[] suffixLowerBounds = MedianStringShardProtocol.readSuffixLowerBounds(inputStream);
+			MedianStringFinder medianStringFinder = new MedianStringFinder(MedianStringShardProtocol.readDnaSequences(inputStream));
+			medianStringFinder.setReverseComplementScored(reverseComplementScored);
+			
+			//One context for all shards, so that the k-mer distance index is built at most once
+			this.searchStatistics = new SearchStatistics();
+			this.nodesVisitedReported = 0;
+			MedianStringIncumbent incumbent = new MedianStringIncumbent(this);
+			MedianStringSearchContext searchContext = medianStringFinder.getSearchContext(targetLength, suffixLowerBounds, this.searchStatistics, null, SearchBudget.UNLIMITED, null, System.currentTimeMillis(), incumbent);
+			
+			ExecutorService searchThreads = Executors.newFixedThreadPool(this.numberOfThreads);
+			int numberOfShards = 0;
+			try {
+				while (true) {
+					byte messageType = inputStream.readByte();
+					if (messageType == MedianStringShardProtocol.BOUND) {
+						
+						//The coordinator already knows its own bounds, so they are not reported back to it
+						ScoredMedianString bound = MedianStringShardProtocol.readBound(inputStream);
+						if (this.coordinatorBound == null || bound.compareTo(this.coordinatorBound) < 0) {
+							this.coordinatorBound = bound;
+						}
+						incumbent.offer(bound.getMedianString(), bound.getScore());
+						
+					} else if (messageType == MedianStringShardProtocol.SHARD) {
+						final String shard = inputStream.readUTF();
+						++numberOfShards;
+						searchThreads.execute(new Runnable() {
+							@Override
+							public void run() {
+								try {
+									new MedianStringSearch(searchContext).search(shard);
+									sendResult(shard);
+								} catch (Throwable t) {
+									searchFailed(t);
+								}
+							}
+						});
+					} else if (messageType == MedianStringShardProtocol.DONE) {
+						return numberOfShards;
+					} else {
+						throw new Exception("Coordinator at " + host + ":" + port + " sent unknown message type " + messageType + ".");
+					}
+				}
+			} catch (IOException e) {
+				if (this.searchFailure != null) {
+					throw new Exception("A shard search failed, so the connection to the coordinator at " + host + ":" + port + " was closed.", this.searchFailure);
+				}
+				throw e;
+			} finally {
+				searchThreads.shutdownNow();
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * @param failure - what a shard search threw
+	 * Keep the first failure and close the connection. The coordinator then hands every shard that this worker
+	 * holds to other workers, and the thread reading from the coordinator stops.
+	 */
+	private void searchFailed(Throwable failure) {
+		
+		synchronized (this.outputStream) {
+			if (this.searchFailure == null) {
+				this.searchFailure = failure;
+			}
+		}
+		try {
+			this.socket.close();
+		} catch (IOException e) {
+			//The connection is being dropped anyway
+		}
+		
+	}
+	
+	/**
+	 * @param shard - prefix whose median strings have all been searched
+	 */
+	private void sendResult(String shard) {
+		
+		synchronized (this.outputStream) {
+			try {
+				long nodesVisited = this.searchStatistics.getNodesVisited();
+				this.outputStream.writeByte(MedianStringShardProtocol.RESULT);
+				this.outputStream.writeUTF(shard);
+				this.outputStream.writeLong(nodesVisited - this.nodesVisitedReported);
+				this.outputStream.flush();
+				this.nodesVisitedReported = nodesVisited;
+			} catch (IOException e) {
+				//The connection is gone and the coordinator hands the shard to another worker
+			}
+		}
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see MedianStringSearchListener#improvedMedianStringFound(ScoredMedianString)
+	 */
+	@Override
+	public void improvedMedianStringFound(ScoredMedianString scoredMedianString) {
+		
+		ScoredMedianString coordinatorBound = this.coordinatorBound;
+		if (coordinatorBound != null && scoredMedianString.compareTo(coordinatorBound) >= 0) {
+			return;
+		}
+		synchronized (this.outputStream) {
+			try {
+				MedianStringShardProtocol.writeBound(this.outputStream, scoredMedianString);
+			} catch (IOException e) {
+				//The connection is gone and the coordinator hands the shard to another worker
+			}
+		}
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see MedianStringSearchListener#progressReported(SearchStatistics, ScoredMedianString, long)
+	 */
+	@Override
+	public void progressReported(SearchStatistics searchStatistics, ScoredMedianString bestScoredMedianString, long elapsedMilliseconds) {
+	}
+	
+}
@@ -66,6 +66,76 @@ public class Nucleotide {
 		
 	}
 	
+	/**
+	 * @param base
+	 * @return the 2 bit code of the base, which is its position in the list of valid bases
+	 * @throws Exception
+	 */
+	public static int getBaseCode(char base) throws Exception {
+		
+		switch (base) {
+		case 'A': case 'a':
+			return 0;
+		case 'C': case 'c':
+			return 1;
+		case 'G': case 'g':
+			return 2;
+		case 'T': case 't':
+			return 3;
+		default:
+			throw new Exception(base + " is not a valid base.");
+		}
+		
+	}
+	
+	/**
+	 * @param nucleotideString
+	 * @return a packed DNA sequence filled straight from the string without creating nucleotides
+	 * @throws Exception
+	 */
+	public static PackedDnaSequence getPackedDnaSequence(String nucleotideString) throws Exception {
+		
+		int nucleotideStringLength = nucleotideString.length();
+		PackedDnaSequence dnaSequence = new PackedDnaSequence(nucleotideStringLength);
+		for (int nucleotideCounter = 0; nucleotideCounter < nucleotideStringLength; ++nucleotideCounter) {
+			dnaSequence.setBaseCode(nucleotideCounter, getBaseCode(nucleotideString.charAt(nucleotideCounter)));
+		}
+		return dnaSequence;
+		
+	}
+	
+	/**
+	 * @param nucleotideBytes - ASCII bases
+	 * @return a packed DNA sequence filled straight from the bytes without creating nucleotides
+	 * @throws Exception
+	 */
+	public static PackedDnaSequence getPackedDnaSequence(byte[] nucleotideBytes) throws Exception {
+		
+		int nucleotideBytesLength = nucleotideBytes.length;
+		PackedDnaSequence dnaSequence = new PackedDnaSequence(nucleotideBytesLength);
+		for (int nucleotideCounter = 0; nucleotideCounter < nucleotideBytesLength; ++nucleotideCounter) {
+			dnaSequence.setBaseCode(nucleotideCounter, getBaseCode((char) nucleotideBytes[nucleotideCounter]));
+		}
+		return dnaSequence;
+		
+	}
+	
+	/**
+	 * @param dnaSequence
+	 * @return a packed copy of the nucleotide list
+	 * @throws Exception
+	 */
+	public static PackedDnaSequence getPackedDnaSequence(List<Nucleotide> dnaSequence) throws Exception {
+		
+		int dnaSequenceLength = dnaSequence.size();
+		PackedDnaSequence packedDnaSequence = new PackedDnaSequence(dnaSequenceLength);
+		for (int nucleotideCounter = 0; nucleotideCounter < dnaSequenceLength; ++nucleotideCounter) {
+			packedDnaSequence.setBaseCode(nucleotideCounter, getBaseCode(dnaSequence.get(nucleotideCounter).getBase()));
+		}
+		return packedDnaSequence;
+		
+	}
+	
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
@@ -0,0 +1,202 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Keeps the median string of a set of DNA sequences up to date while sequences are added and removed.
+ * Instead of searching from scratch after every change, the finder keeps the frontier of its last search,
+ * which is the best median strings found with their scores, and a lower bound on the score of every median
+ * string outside the frontier. A change rescores only the frontier against the added or removed sequence and
+ * moves the bound by the most the change can move an outside score: not at all for an added sequence, since
+ * scores can only go up, and by the median string length for a removed one. While the best frontier median
+ * string stays below the bound it is still the median string, and no search is needed. Otherwise the next
+ * request searches again, starting with the rescored frontier as its incumbent so that it prunes from the
+ * first node, and with the suffix lower bounds of the last search as long as sequences were only added.
+ */
+public class OnlineMedianStringFinder {
+
+	public static final int DEFAULT_FRONTIER_SIZE = 64;
+	
+	private int targetLength;
+	private int frontierSize;
+	private int parallelism;
+	private boolean reverseComplementScored;
+	private HammingDistanceKernel hammingDistanceKernel = new ScalarHammingDistanceKernel();
+	private List<PackedDnaSequence> dnaSequences = new ArrayList<PackedDnaSequence>();
+	private List<ScoredMedianString> frontier = new ArrayList<ScoredMedianString>();
+	private int outsideLowerBound;
+	private int[] suffixLowerBounds;
+	private int numberOfSearches;
+	private SearchStatistics searchStatistics;
+	
+	/**
+	 * Constructor
+	 * @param targetLength - length of the median string to keep up to date
+	 * @param parallelism - number of worker threads for searches
+	 */
+	public OnlineMedianStringFinder(int targetLength, int parallelism) {
+		this(targetLength, parallelism, DEFAULT_FRONTIER_SIZE);
+	}
+	
+	/**
+	 * Constructor
+	 * @param targetLength - length of the median string to keep up to date
+	 * @param parallelism - number of worker threads for searches
+	 * @param frontierSize - number of median strings kept from each search. A larger frontier makes searches
+	 * prune less, but lets more changes go by without a search.
+	 */
+	public OnlineMedianStringFinder(int targetLength, int parallelism, int frontierSize) {
+		
+		this.targetLength = targetLength;
+		this.parallelism = parallelism;
+		this.frontierSize = Math.max(1, frontierSize);
+		
+	}
+	
+	/**
+	 * @param dnaSequence - sequence to add, which needs to be at least as long as the median string
+	 */
+	public synchronized void addSequence(PackedDnaSequence dnaSequence) {
+		
+		if (dnaSequence == null || dnaSequence.getLength() < this.targetLength) {
+			throw new IllegalArgumentException("A DNA sequence needs at least " + this.targetLength + " bases to be added.");
+		}
+		this.dnaSequences.add(dnaSequence);
+		
+		//Outside scores can only go up, so the bound and the suffix lower bounds still hold
+		rescoreFrontier(dnaSequence, 1);
+		
+	}
+	
+	/**
+	 * @param dnaSequence - a sequence that was added before, the same object and not a copy
+	 * @return true if the sequence was found and removed
+	 */
+	public synchronized boolean removeSequence(PackedDnaSequence dnaSequence) {
+		
+		if (!this.dnaSequences.remove(dnaSequence)) {
+			return false;
+		}
+		
+		//An outside median string can lose at most one mismatch per base, and the suffix lower bounds may be too high now
+		rescoreFrontier(dnaSequence, -1);
+		if (this.outsideLowerBound != Integer.MAX_VALUE) {
+			this.outsideLowerBound -= this.targetLength;
+		}
+		this.suffixLowerBounds = null;
+		return true;
+		
+	}
+	
+	/**
+	 * @param dnaSequence - sequence that was added or removed
+	 * @param sign - 1 if it was added and -1 if it was removed
+	 * Add or take away the minimum hamming distance of every frontier median string to the sequence
+	 */
+	private void rescoreFrontier(PackedDnaSequence dnaSequence, int sign) {
+		
+		int numberOfWindows = dnaSequence.getLength() - this.targetLength + 1;
+		for (int frontierCounter = 0; frontierCounter < this.frontier.size(); ++frontierCounter) {
+			ScoredMedianString scoredMedianString = this.frontier.get(frontierCounter);
+			PackedDnaSequence packedMedianString = null;
+			try {
+				packedMedianString = Nucleotide.getPackedDnaSequence(scoredMedianString.getMedianString());
+			} catch (Exception e) {
+				System.err.println(scoredMedianString.getMedianString() + " is not a valid nucleotide sequence.");
+				System.exit(0);
+			}
+			int minimumHammingDistance = this.hammingDistanceKernel.getMinimumHammingDistance(dnaSequence, packedMedianString, this.reverseComplementScored ? packedMedianString.getReverseComplement() : null, numberOfWindows);
+			this.frontier.set(frontierCounter, new ScoredMedianString(scoredMedianString.getMedianString(), scoredMedianString.getScore() + sign * minimumHammingDistance));
+		}
+		Collections.sort(this.frontier);
+		
+	}
+	
+	/**
+	 * @return the median string of the current DNA sequences and its score, searching only if the frontier of the
+	 * last search cannot prove it. Ties go to the lexicographically smaller string, as in MedianStringFinder.
+	 */
+	public synchronized ScoredMedianString getScoredMedianString() {
+		
+		if (this.dnaSequences.isEmpty()) {
+			throw new IllegalStateException("There are no DNA sequences to find a median string for.");
+		}
+		
+		//An outside median string that ties the best frontier score could be lexicographically smaller, so only a strictly lower score is proof
+		if (!this.frontier.isEmpty() && this.frontier.get(0).getScore() < this.outsideLowerBound) {
+			return this.frontier.get(0);
+		}
+		
+		try {
+			MedianStringFinder medianStringFinder = new MedianStringFinder(this.dnaSequences.toArray(new PackedDnaSequence[this.dnaSequences.size()]));
+			medianStringFinder.setReverseComplementScored(this.reverseComplementScored);
+			medianStringFinder.setHammingDistanceKernel(this.hammingDistanceKernel);
+			if (this.suffixLowerBounds == null) {
+				this.suffixLowerBounds = medianStringFinder.getSuffixLowerBounds(this.targetLength, this.parallelism);
+			}
+			this.frontier = new ArrayList<ScoredMedianString>(medianStringFinder.findTopMedianStrings(this.targetLength, this.frontierSize, this.parallelism, this.suffixLowerBounds, this.frontier));
+			this.searchStatistics = medianStringFinder.getSearchStatistics();
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		++this.numberOfSearches;
+		
+		//Every median string outside a full frontier scores at least as much as the worst one inside it
+		this.outsideLowerBound = this.frontier.size() < this.frontierSize ? Integer.MAX_VALUE : this.frontier.get(this.frontier.size() - 1).getScore();
+		return this.frontier.get(0);
+		
+	}
+	
+	/**
+	 * @return the median string of the current DNA sequences
+	 */
+	public String getMedianString() {
+		return getScoredMedianString().getMedianString();
+	}
+	
+	/**
+	 * @param reverseComplementScored - true to let each median string match a window on either strand. Changing
+	 * it drops the frontier, since every score changes.
+	 */
+	public synchronized void setReverseComplementScored(boolean reverseComplementScored) {
+		
+		if (reverseComplementScored != this.reverseComplementScored) {
+			this.reverseComplementScored = reverseComplementScored;
+			this.frontier.clear();
+			this.outsideLowerBound = 0;
+			this.suffixLowerBounds = null;
+		}
+		
+	}
+	
+	/**
+	 * @param hammingDistanceKernel - kernel that rescores the frontier and seeds searches
+	 */
+	public synchronized void setHammingDistanceKernel(HammingDistanceKernel hammingDistanceKernel) {
+		this.hammingDistanceKernel = hammingDistanceKernel;
+	}
+	
+	/**
+	 * @return number of DNA sequences in the set
+	 */
+	public synchronized int getNumberOfDnaSequences() {
+		return this.dnaSequences.size();
+	}
+	
+	/**
+	 * @return number of searches run so far. Changes that the frontier could answer did not need one.
+	 */
+	public synchronized int getNumberOfSearches() {
+		return numberOfSearches;
+	}
+	
+	/**
+	 * @return pruning counts of the last search, or null if there has not been one
+	 */
+	public synchronized SearchStatistics getSearchStatistics() {
+		return searchStatistics;
+	}
+	
+}
@@ -0,0 +1,277 @@
+/**
+ * A DNA sequence stored with 2 bits per base in 64 bit words. Base codes follow the order of
+ * Nucleotide.validBases, so A = 0, C = 1, G = 2 and T = 3. Base i is held in word i / 32 at bit
+ * offset 2 * (i % 32), which means the first base of a word is in its lowest bits. The words are held
+ * in a heap array. BufferedPackedDnaSequence holds them in a LongBuffer instead, so that the array reads
+ * of the scoring loops here do not have to check where the words are.
+ */
+public class PackedDnaSequence {
+
+	public static final int BITS_PER_BASE = 2;
+	public static final int BASES_PER_WORD = Long.SIZE / BITS_PER_BASE;
+	public static final long BASE_CODE_MASK = 3L;
+	public static final long LOW_BITS_MASK = 0x5555555555555555L;
+	
+	private int length;
+	private int numberOfWords;
+	private long[] words;
+	
+	/**
+	 * Constructor
+	 * @param length - number of bases in the sequence. All bases start out as A.
+	 */
+	public PackedDnaSequence(int length) {
+		
+		this.length = length;
+		this.numberOfWords = getNumberOfWords(length);
+		this.words = new long[this.numberOfWords];
+		
+	}
+	
+	/**
+	 * Constructor
+	 * @param words - packed bases, which the sequence takes over without copying
+	 * @param length - number of bases in the words
+	 */
+	PackedDnaSequence(long[] words, int length) {
+		
+		this.length = length;
+		this.numberOfWords = getNumberOfWords(length);
+		this.words = words;
+		
+	}
+	
+	/**
+	 * @param wordIndex
+	 * @return the stored word at the index
+	 */
+	long getStoredWord(int wordIndex) {
+		return this.words[wordIndex];
+	}
+	
+	/**
+	 * @param wordIndex
+	 * @param word
+	 * Overwrite the stored word at the index
+	 */
+	void setStoredWord(int wordIndex, long word) {
+		this.words[wordIndex] = word;
+	}
+	
+	/**
+	 * @param numberOfBases
+	 * @return number of words needed to hold the bases
+	 */
+	public static int getNumberOfWords(int numberOfBases) {
+		return (numberOfBases + BASES_PER_WORD - 1) / BASES_PER_WORD;
+	}
+	
+	/**
+	 * @return number of bases in the sequence
+	 */
+	public int getLength() {
+		return this.length;
+	}
+	
+	/**
+	 * @param position
+	 * @return the 2 bit code of the base at the position
+	 */
+	public int getBaseCode(int position) {
+		return (int) ((getStoredWord(position / BASES_PER_WORD) >>> ((position % BASES_PER_WORD) * BITS_PER_BASE)) & BASE_CODE_MASK);
+	}
+	
+	/**
+	 * @param position
+	 * @param baseCode
+	 * Overwrite the base at the position with the base code
+	 */
+	public void setBaseCode(int position, int baseCode) {
+		
+		int wordIndex = position / BASES_PER_WORD, bitOffset = (position % BASES_PER_WORD) * BITS_PER_BASE;
+		setStoredWord(wordIndex, (getStoredWord(wordIndex) & ~(BASE_CODE_MASK << bitOffset)) | ((baseCode & BASE_CODE_MASK) << bitOffset));
+		
+	}
+	
+	/**
+	 * @param position
+	 * @return the base at the position
+	 */
+	public char getBase(int position) {
+		return Nucleotide.validBases[getBaseCode(position)];
+	}
+	
+	/**
+	 * @param position
+	 * @return the 32 bases starting at the position packed into one word, with the base at the position
+	 * in the lowest bits. Bases past the end of the sequence read as A.
+	 */
+	public long getWord(int position) {
+		
+		int wordIndex = position / BASES_PER_WORD, bitOffset = (position % BASES_PER_WORD) * BITS_PER_BASE;
+		long word = wordIndex < this.numberOfWords ? getStoredWord(wordIndex) >>> bitOffset : 0L;
+		if (bitOffset != 0 && wordIndex + 1 < this.numberOfWords) {
+			word |= getStoredWord(wordIndex + 1) << (Long.SIZE - bitOffset);
+		}
+		return word;
+		
+	}
+	
+	/**
+	 * @param numberOfBases
+	 * @return a mask with the low bit of each of the first number of bases set
+	 */
+	public static long getLowBitsMask(int numberOfBases) {
+		return numberOfBases >= BASES_PER_WORD ? LOW_BITS_MASK : LOW_BITS_MASK & ((1L << (numberOfBases * BITS_PER_BASE)) - 1);
+	}
+	
+	/**
+	 * @param word1
+	 * @param word2
+	 * @param lowBitsMask - selects the bases to compare
+	 * @return number of bases that differ between the two words. The XOR of the words is folded so that
+	 * each differing base leaves exactly one bit set, and the set bits are counted in one step.
+	 */
+	public static int getHammingDistance(long word1, long word2, long lowBitsMask) {
+		
+		long difference = word1 ^ word2;
+		return Long.bitCount((difference | (difference >>> 1)) & lowBitsMask);
+		
+	}
+	
+	/**
+	 * @param position
+	 * @param baseCode
+	 * @return a word with the low bit of base j set when the base at position + j differs from the base code
+	 */
+	public long getMismatchWord(int position, int baseCode) {
+		
+		long difference = getWord(position) ^ (baseCode * LOW_BITS_MASK);
+		return (difference | (difference >>> 1)) & LOW_BITS_MASK;
+		
+	}
+	
+	/**
+	 * @param pattern
+	 * @param numberOfWindows - number of start positions to try, beginning at 0
+	 * @return the minimum hamming distance between the pattern and any window of this sequence
+	 */
+	public int getMinimumHammingDistance(PackedDnaSequence pattern, int numberOfWindows) {
+		return getMinimumHammingDistance(pattern, null, numberOfWindows);
+	}
+	
+	/**
+	 * @param pattern
+	 * @param reverseComplementPattern - the reverse complement of the pattern, or null to only scan the forward strand
+	 * @param numberOfWindows - number of start positions to try, beginning at 0
+	 * @return the minimum hamming distance between the pattern and any window of this sequence on either strand.
+	 * Matching the reverse complement of the pattern against a window is the same as matching the pattern against
+	 * the reverse strand, so both orientations are compared with the same window word in one pass.
+	 */
+	public int getMinimumHammingDistance(PackedDnaSequence pattern, PackedDnaSequence reverseComplementPattern, int numberOfWindows) {
+		
+		int patternLength = pattern.getLength();
+		if (patternLength > BASES_PER_WORD) {
+			return getMinimumHammingDistanceForLongPattern(pattern, reverseComplementPattern, numberOfWindows);
+		}
+		
+		long patternWord = pattern.getWord(0), lowBitsMask = getLowBitsMask(patternLength);
+		long reverseComplementPatternWord = reverseComplementPattern == null ? 0L : reverseComplementPattern.getWord(0);
+		int minimumHammingDistance = Integer.MAX_VALUE, currentHammingDistance = 0;
+		
+		//Slide the window one base at a time by shifting in the next base from the incoming word
+		long window = getWord(0), incomingWord = this.numberOfWords > 1 ? getStoredWord(1) : 0L;
+		int nextWordIndex = 2;
+		for (int startPosition = 0; startPosition < numberOfWindows; ++startPosition) {
+			
+			currentHammingDistance = getHammingDistance(patternWord, window, lowBitsMask);
+			if (reverseComplementPattern != null) {
+				currentHammingDistance = Math.min(currentHammingDistance, getHammingDistance(reverseComplementPatternWord, window, lowBitsMask));
+			}
+			if (currentHammingDistance < minimumHammingDistance) {
+				minimumHammingDistance = currentHammingDistance;
+				if (minimumHammingDistance == 0) {
+					break;
+				}
+			}
+			
+			window = (window >>> BITS_PER_BASE) | ((incomingWord & BASE_CODE_MASK) << (Long.SIZE - BITS_PER_BASE));
+			incomingWord >>>= BITS_PER_BASE;
+			if ((startPosition + 1) % BASES_PER_WORD == 0) {
+				incomingWord = nextWordIndex < this.numberOfWords ? getStoredWord(nextWordIndex) : 0L;
+				++nextWordIndex;
+			}
+			
+		}
+		
+		return minimumHammingDistance;
+		
+	}
+	
+	/**
+	 * @param pattern - a pattern longer than one word
+	 * @param reverseComplementPattern - the reverse complement of the pattern, or null
+	 * @param numberOfWindows
+	 * @return the minimum hamming distance between the pattern and any window of this sequence
+	 */
+	private int getMinimumHammingDistanceForLongPattern(PackedDnaSequence pattern, PackedDnaSequence reverseComplementPattern, int numberOfWindows) {
+		
+		int minimumHammingDistance = Integer.MAX_VALUE;
+		for (int startPosition = 0; startPosition < numberOfWindows; ++startPosition) {
+			minimumHammingDistance = Math.min(minimumHammingDistance, getHammingDistance(pattern, startPosition, minimumHammingDistance));
+			if (reverseComplementPattern != null) {
+				minimumHammingDistance = Math.min(minimumHammingDistance, getHammingDistance(reverseComplementPattern, startPosition, minimumHammingDistance));
+			}
+		}
+		
+		return minimumHammingDistance;
+		
+	}
+	
+	/**
+	 * @param pattern
+	 * @param startPosition
+	 * @param distanceToBeat - comparison stops once the distance reaches this
+	 * @return the hamming distance between the pattern and the window at the start position, or a value at least
+	 * as large as the distance to beat
+	 */
+	int getHammingDistance(PackedDnaSequence pattern, int startPosition, int distanceToBeat) {
+		
+		int patternLength = pattern.getLength(), hammingDistance = 0;
+		for (int patternPosition = 0; patternPosition < patternLength && hammingDistance < distanceToBeat; patternPosition += BASES_PER_WORD) {
+			hammingDistance += getHammingDistance(pattern.getWord(patternPosition), getWord(startPosition + patternPosition), getLowBitsMask(patternLength - patternPosition));
+		}
+		return hammingDistance;
+		
+	}
+	
+	/**
+	 * @return the sequence read backwards on the opposite strand. The code of the complement of a base is
+	 * three minus the code of the base.
+	 */
+	public PackedDnaSequence getReverseComplement() {
+		
+		PackedDnaSequence reverseComplement = new PackedDnaSequence(this.length);
+		for (int position = 0; position < this.length; ++position) {
+			reverseComplement.setBaseCode(this.length - 1 - position, (int) BASE_CODE_MASK - getBaseCode(position));
+		}
+		return reverseComplement;
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 * Return the bases as a string
+	 */
+	@Override
+	public String toString() {
+		
+		StringBuffer bases = new StringBuffer(this.length);
+		for (int position = 0; position < this.length; ++position) {
+			bases.append(getBase(position));
+		}
+		return bases.toString();
+		
+	}
+	
+}
@@ -0,0 +1,292 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Packed DNA sequences kept in a file and read through read only memory mappings, so that their bases live
+ * outside of the Java heap. Finders score the mapped words in place, and every finder that opens the same
+ * file, in this process or in another one, shares the same pages of the operating system cache. The heap
+ * still holds a small object per sequence, and each search adds its own working state on top: one int per
+ * window per strand for the partial hamming distances, and the k-mer distance index when it fits its budget.
+ * 
+ * The file holds a marker, then the words of each sequence one after another in little endian order,
+ * then an index with the word offset and length of each sequence, and finally the number of sequences
+ * and the offset of the index. A mapping holds as many whole sequences as fit in the mapped region size,
+ * and a sequence larger than that gets a mapping of its own.
+ */
+public class PackedSequenceStore implements Closeable {
+
+	public static final String FILE_MARKER = "MSPACK01";
+	public static final long MAPPED_REGION_SIZE = 1024L * 1024 * 1024;
+	public static final int INDEX_ENTRY_SIZE = 2 * Long.BYTES;
+	public static final int TRAILER_SIZE = 2 * Long.BYTES;
+	
+	private RandomAccessFile storeFile;
+	private FileChannel storeChannel;
+	private PackedDnaSequence[] dnaSequences;
+	
+	/**
+	 * Constructor
+	 * @param storeFile - a file written by a PackedSequenceStore.Writer
+	 * @throws Exception if the file is not a packed sequence store
+	 */
+	public PackedSequenceStore(File storeFile) throws Exception {
+		
+		this.storeFile = new RandomAccessFile(storeFile, "r");
+		this.storeChannel = this.storeFile.getChannel();
+		long fileSize = this.storeChannel.size(), headerSize = FILE_MARKER.length();
+		if (fileSize < headerSize + TRAILER_SIZE || !FILE_MARKER.equals(readString(0, FILE_MARKER.length()))) {
+			close();
+			throw new Exception(storeFile + " is not a packed sequence store.");
+		}
+		
+		//Read the index of sequence offsets and lengths from the end of the file
+		ByteBuffer trailer = read(fileSize - TRAILER_SIZE, TRAILER_SIZE);
+		int numberOfDnaSequences = (int) trailer.getLong();
+		long indexOffset = trailer.getLong();
+		ByteBuffer index = read(indexOffset, (long) numberOfDnaSequences * INDEX_ENTRY_SIZE);
+		long[] wordOffsets = new long[numberOfDnaSequences];
+		int[] lengths = new int[numberOfDnaSequences];
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < numberOfDnaSequences; ++dnaSequenceCounter) {
+			wordOffsets[dnaSequenceCounter] = index.getLong();
+			lengths[dnaSequenceCounter] = (int) index.getLong();
+		}
+		
+		//Map runs of whole sequences and hand each sequence its slice of the mapping
+		this.dnaSequences = new PackedDnaSequence[numberOfDnaSequences];
+		int firstDnaSequenceInRegion = 0;
+		while (firstDnaSequenceInRegion < numberOfDnaSequences) {
+			
+			long regionStart = headerSize + wordOffsets[firstDnaSequenceInRegion] * Long.BYTES, regionEnd = regionStart;
+			int endDnaSequenceInRegion = firstDnaSequenceInRegion;
+			while (endDnaSequenceInRegion < numberOfDnaSequences) {
+				long dnaSequenceEnd = headerSize + (wordOffsets[endDnaSequenceInRegion] + PackedDnaSequence.getNumberOfWords(lengths[endDnaSequenceInRegion])) * Long.BYTES;
+				if (endDnaSequenceInRegion > firstDnaSequenceInRegion && dnaSequenceEnd - regionStart > MAPPED_REGION_SIZE) {
+					break;
+				}
+				regionEnd = dnaSequenceEnd;
+				++endDnaSequenceInRegion;
+			}
+			
+			MappedByteBuffer mappedRegion = this.storeChannel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionEnd - regionStart);
+			mappedRegion.order(ByteOrder.LITTLE_ENDIAN);
+			LongBuffer regionWords = mappedRegion.asLongBuffer();
+			for (int dnaSequenceCounter = firstDnaSequenceInRegion; dnaSequenceCounter < endDnaSequenceInRegion; ++dnaSequenceCounter) {
+				int firstWord = (int) (wordOffsets[dnaSequenceCounter] - wordOffsets[firstDnaSequenceInRegion]), numberOfWords = PackedDnaSequence.getNumberOfWords(lengths[dnaSequenceCounter]);
+				LongBuffer dnaSequenceWords = regionWords.duplicate().position(firstWord).limit(firstWord + numberOfWords).slice();
+				this.dnaSequences[dnaSequenceCounter] = new BufferedPackedDnaSequence(dnaSequenceWords, lengths[dnaSequenceCounter]);
+			}
+			firstDnaSequenceInRegion = endDnaSequenceInRegion;
+			
+		}
+		
+	}
+	
+	/**
+	 * @param position
+	 * @param size
+	 * @return the bytes of the file at the position, in little endian order
+	 * @throws IOException
+	 */
+	private ByteBuffer read(long position, long size) throws IOException {
+		
+		ByteBuffer bytes = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+		while (bytes.hasRemaining()) {
+			if (this.storeChannel.read(bytes, position + bytes.position()) < 0) {
+				throw new IOException("Unexpected end of packed sequence store.");
+			}
+		}
+		bytes.flip();
+		return bytes;
+		
+	}
+	
+	/**
+	 * @param position
+	 * @param length
+	 * @return the ASCII characters of the file at the position
+	 * @throws IOException
+	 */
+	private String readString(long position, int length) throws IOException {
+		return new String(read(position, length).array(), StandardCharsets.US_ASCII);
+	}
+	
+	/**
+	 * @return the sequences of the store. They read the mapped file in place and cannot be changed.
+	 */
+	public PackedDnaSequence[] getDnaSequences() {
+		return this.dnaSequences.clone();
+	}
+	
+	/**
+	 * @param storeFile
+	 * @param fastaReader - source of the sequences
+	 * @return number of sequences written
+	 * @throws Exception
+	 */
+	public static int write(File storeFile, FastaReader fastaReader) throws Exception {
+		
+		int numberOfDnaSequences = 0;
+		try (Writer writer = new Writer(storeFile)) {
+			PackedDnaSequence dnaSequence = null;
+			while ((dnaSequence = fastaReader.nextDnaSequence()) != null) {
+				writer.add(dnaSequence);
+				++numberOfDnaSequences;
+			}
+			writer.finish();
+		}
+		return numberOfDnaSequences;
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 * The mappings stay valid until the sequences that read them are garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.storeFile.close();
+	}
+	
+	/**
+	 * Writes a packed sequence store one sequence at a time, so that a store can be built from inputs much
+	 * larger than the heap. Words are written out whenever the buffer fills up. They go to a temporary file
+	 * next to the store file, which only replaces the store file once finish is called, so a writer that is
+	 * closed without finishing, because adding a sequence failed, leaves any older store file as it was.
+	 */
+	public static class Writer implements Closeable {
+		
+		private File storeFile;
+		private File temporaryFile;
+		private RandomAccessFile temporaryStoreFile;
+		private FileChannel storeChannel;
+		private ByteBuffer wordBytes;
+		private List<long[]> index;
+		private long numberOfWords;
+		
+		/**
+		 * Constructor
+		 * @param storeFile - file to create or overwrite once the writer is finished
+		 * @throws IOException
+		 */
+		public Writer(File storeFile) throws IOException {
+			
+			this.storeFile = storeFile;
+			this.temporaryFile = File.createTempFile(storeFile.getName() + ".", ".tmp", storeFile.getAbsoluteFile().getParentFile());
+			this.temporaryStoreFile = new RandomAccessFile(this.temporaryFile, "rw");
+			this.storeChannel = this.temporaryStoreFile.getChannel();
+			this.wordBytes = ByteBuffer.allocateDirect(FastaReader.INITIAL_NUMBER_OF_WORDS * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			this.index = new ArrayList<long[]>();
+			writeFully(ByteBuffer.wrap(FILE_MARKER.getBytes(StandardCharsets.US_ASCII)));
+			
+		}
+		
+		/**
+		 * @param dnaSequence - sequence to append to the store
+		 * @throws IOException
+		 */
+		public void add(PackedDnaSequence dnaSequence) throws IOException {
+			
+			int numberOfDnaSequenceWords = PackedDnaSequence.getNumberOfWords(dnaSequence.getLength());
+			this.index.add(new long[] {this.numberOfWords, dnaSequence.getLength()});
+			for (int wordIndex = 0; wordIndex < numberOfDnaSequenceWords; ++wordIndex) {
+				if (!this.wordBytes.hasRemaining()) {
+					flushWords();
+				}
+				this.wordBytes.putLong(dnaSequence.getWord(wordIndex * PackedDnaSequence.BASES_PER_WORD) & getLastWordMask(dnaSequence.getLength(), wordIndex));
+			}
+			this.numberOfWords += numberOfDnaSequenceWords;
+			
+		}
+		
+		/**
+		 * @param length - number of bases in the sequence
+		 * @param wordIndex
+		 * @return a mask that clears the unused bases of the last word of the sequence
+		 */
+		private static long getLastWordMask(int length, int wordIndex) {
+			
+			int numberOfBasesInWord = Math.min(PackedDnaSequence.BASES_PER_WORD, length - wordIndex * PackedDnaSequence.BASES_PER_WORD);
+			return numberOfBasesInWord == PackedDnaSequence.BASES_PER_WORD ? -1L : (1L << (numberOfBasesInWord * PackedDnaSequence.BITS_PER_BASE)) - 1;
+			
+		}
+		
+		/**
+		 * Write out the words collected so far
+		 * @throws IOException
+		 */
+		private void flushWords() throws IOException {
+			
+			this.wordBytes.flip();
+			writeFully(this.wordBytes);
+			this.wordBytes.clear();
+			
+		}
+		
+		/**
+		 * @param bytes
+		 * @throws IOException
+		 */
+		private void writeFully(ByteBuffer bytes) throws IOException {
+			
+			while (bytes.hasRemaining()) {
+				this.storeChannel.write(bytes);
+			}
+			
+		}
+		
+		/**
+		 * Append the index and the trailer that make the file readable, and move it into place of the store file
+		 * @throws IOException
+		 */
+		public void finish() throws IOException {
+			
+			flushWords();
+			long indexOffset = this.storeChannel.position();
+			ByteBuffer indexBytes = ByteBuffer.allocate(this.index.size() * INDEX_ENTRY_SIZE + TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			for (long[] indexEntry : this.index) {
+				indexBytes.putLong(indexEntry[0]).putLong(indexEntry[1]);
+			}
+			indexBytes.putLong(this.index.size()).putLong(indexOffset);
+			indexBytes.flip();
+			writeFully(indexBytes);
+			this.temporaryStoreFile.close();
+			try {
+				Files.move(this.temporaryFile.toPath(), this.storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(this.temporaryFile.toPath(), this.storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.io.Closeable#close()
+		 * Delete the temporary file, which is still there unless finish moved it into place
+		 */
+		@Override
+		public void close() throws IOException {
+			
+			try {
+				this.temporaryStoreFile.close();
+			} finally {
+				Files.deleteIfExists(this.temporaryFile.toPath());
+			}
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,214 @@
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+/**
+ * Only scores the windows that can beat the best window found so far, and leaves the rest to a full scan
+ * kernel when too many windows survive. The filter rests on the pigeonhole principle: cut the pattern into
+ * k blocks, and any window within k - 1 mismatches of the pattern matches at least one block exactly, so it
+ * also matches the first q bases of that block. A q-gram index of the DNA sequence lists the windows that
+ * do, and if the best of them is within k mismatches it is the best window of the whole sequence.
+ *
+ * The first try uses the longest q-grams that the sequence has about one occurrence of each of, which gives
+ * few survivors but few blocks. Each later try uses q-grams one base shorter, and so more blocks, until the
+ * best window is proven or the survivors stop being much fewer than the windows. The indexes are built on
+ * first use and kept for as long as the sequence is reachable, at up to eight bytes per base for each q-gram
+ * length tried, so the filter pays off on long sequences that are scored many times.
+ */
+public class QgramFilterHammingDistanceKernel implements HammingDistanceKernel {
+
+	public static final int MINIMUM_QGRAM_LENGTH = 3;
+	public static final int MAXIMUM_QGRAM_LENGTH = 12;
+	public static final int MINIMUM_WINDOWS_PER_CANDIDATE = 16;
+	
+	private HammingDistanceKernel fullScanKernel;
+	private Map<PackedDnaSequence, QgramIndex[]> qgramIndexes = Collections.synchronizedMap(new WeakHashMap<PackedDnaSequence, QgramIndex[]>());
+	
+	/**
+	 * Constructor
+	 * Fall back on the scalar kernel
+	 */
+	public QgramFilterHammingDistanceKernel() {
+		this(new ScalarHammingDistanceKernel());
+	}
+	
+	/**
+	 * Constructor
+	 * @param fullScanKernel - kernel that scores every window when the filter lets too many through
+	 */
+	public QgramFilterHammingDistanceKernel(HammingDistanceKernel fullScanKernel) {
+		this.fullScanKernel = fullScanKernel;
+	}
+	
+	/* (non-Javadoc)
+	 * @see HammingDistanceKernel#getMinimumHammingDistance(PackedDnaSequence, PackedDnaSequence, PackedDnaSequence, int)
+	 */
+	@Override
+	public int getMinimumHammingDistance(PackedDnaSequence dnaSequence, PackedDnaSequence pattern, PackedDnaSequence reverseComplementPattern, int numberOfWindows) {
+		
+		int patternLength = pattern.getLength(), minimumHammingDistance = Integer.MAX_VALUE;
+		for (int qgramLength = Math.min(getLongestQgramLength(dnaSequence.getLength()), patternLength); qgramLength >= MINIMUM_QGRAM_LENGTH && numberOfWindows > 0; --qgramLength) {
+			
+			//Windows that are already beaten need no blocks of their own
+			int numberOfBlocks = Math.min(patternLength / qgramLength, minimumHammingDistance), blockLength = patternLength / numberOfBlocks;
+			QgramIndex qgramIndex = getQgramIndex(dnaSequence, qgramLength);
+			long numberOfCandidates = qgramIndex.getNumberOfCandidates(pattern, numberOfBlocks, blockLength);
+			if (reverseComplementPattern != null) {
+				numberOfCandidates += qgramIndex.getNumberOfCandidates(reverseComplementPattern, numberOfBlocks, blockLength);
+			}
+			if (numberOfCandidates * MINIMUM_WINDOWS_PER_CANDIDATE > numberOfWindows) {
+				break;
+			}
+			
+			minimumHammingDistance = qgramIndex.getMinimumHammingDistance(dnaSequence, pattern, numberOfBlocks, blockLength, numberOfWindows, minimumHammingDistance);
+			if (reverseComplementPattern != null) {
+				minimumHammingDistance = qgramIndex.getMinimumHammingDistance(dnaSequence, reverseComplementPattern, numberOfBlocks, blockLength, numberOfWindows, minimumHammingDistance);
+			}
+			
+			//Every window within fewer mismatches than there are blocks has been scored
+			if (minimumHammingDistance <= numberOfBlocks) {
+				return minimumHammingDistance;
+			}
+			
+		}
+		
+		return this.fullScanKernel.getMinimumHammingDistance(dnaSequence, pattern, reverseComplementPattern, numberOfWindows);
+		
+	}
+	
+	/**
+	 * @param dnaSequenceLength
+	 * @return length of the longest q-grams that do not outnumber the positions of the sequence
+	 */
+	private static int getLongestQgramLength(int dnaSequenceLength) {
+		
+		int qgramLength = 0;
+		while (qgramLength < MAXIMUM_QGRAM_LENGTH && 1L << (PackedDnaSequence.BITS_PER_BASE * (qgramLength + 1)) <= dnaSequenceLength) {
+			++qgramLength;
+		}
+		return qgramLength;
+		
+	}
+	
+	/**
+	 * @param dnaSequence
+	 * @param qgramLength
+	 * @return the q-gram index of the sequence, built by the first call that asks for it
+	 */
+	private QgramIndex getQgramIndex(PackedDnaSequence dnaSequence, int qgramLength) {
+		
+		QgramIndex[] dnaSequenceQgramIndexes;
+		synchronized (this.qgramIndexes) {
+			dnaSequenceQgramIndexes = this.qgramIndexes.get(dnaSequence);
+			if (dnaSequenceQgramIndexes == null) {
+				dnaSequenceQgramIndexes = new QgramIndex[MAXIMUM_QGRAM_LENGTH + 1];
+				this.qgramIndexes.put(dnaSequence, dnaSequenceQgramIndexes);
+			}
+		}
+		synchronized (dnaSequenceQgramIndexes) {
+			if (dnaSequenceQgramIndexes[qgramLength] == null) {
+				dnaSequenceQgramIndexes[qgramLength] = new QgramIndex(dnaSequence, qgramLength);
+			}
+			return dnaSequenceQgramIndexes[qgramLength];
+		}
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "q-gram filter over " + this.fullScanKernel;
+	}
+	
+	/**
+	 * Start positions of every q-gram of one DNA sequence, grouped by q-gram code with a counting sort.
+	 * A q-gram code is the packed word of its bases, so it is read straight from the packed sequence.
+	 */
+	private static class QgramIndex {
+		
+		private long qgramMask;
+		private int[] bucketStarts;
+		private int[] positions;
+		
+		/**
+		 * Constructor
+		 * @param dnaSequence
+		 * @param qgramLength
+		 */
+		QgramIndex(PackedDnaSequence dnaSequence, int qgramLength) {
+			
+			this.qgramMask = (1L << (PackedDnaSequence.BITS_PER_BASE * qgramLength)) - 1;
+			int numberOfPositions = Math.max(0, dnaSequence.getLength() - qgramLength + 1);
+			this.bucketStarts = new int[(int) this.qgramMask + 2];
+			this.positions = new int[numberOfPositions];
+			
+			for (int position = 0; position < numberOfPositions; ++position) {
+				++this.bucketStarts[getQgramCode(dnaSequence, position) + 1];
+			}
+			for (int qgramCode = 1; qgramCode < this.bucketStarts.length; ++qgramCode) {
+				this.bucketStarts[qgramCode] += this.bucketStarts[qgramCode - 1];
+			}
+			int[] nextPositions = this.bucketStarts.clone();
+			for (int position = 0; position < numberOfPositions; ++position) {
+				this.positions[nextPositions[getQgramCode(dnaSequence, position)]++] = position;
+			}
+			
+		}
+		
+		/**
+		 * @param dnaSequence - sequence or pattern
+		 * @param position
+		 * @return code of the q-gram that starts at the position
+		 */
+		private int getQgramCode(PackedDnaSequence dnaSequence, int position) {
+			return (int) (dnaSequence.getWord(position) & this.qgramMask);
+		}
+		
+		/**
+		 * @param pattern
+		 * @param numberOfBlocks
+		 * @param blockLength
+		 * @return number of q-gram occurrences that match the start of a block, which bounds the windows to score
+		 */
+		long getNumberOfCandidates(PackedDnaSequence pattern, int numberOfBlocks, int blockLength) {
+			
+			long numberOfCandidates = 0;
+			for (int blockCounter = 0; blockCounter < numberOfBlocks; ++blockCounter) {
+				int qgramCode = getQgramCode(pattern, blockCounter * blockLength);
+				numberOfCandidates += this.bucketStarts[qgramCode + 1] - this.bucketStarts[qgramCode];
+			}
+			return numberOfCandidates;
+			
+		}
+		
+		/**
+		 * @param dnaSequence - the sequence this index was built from
+		 * @param pattern
+		 * @param numberOfBlocks
+		 * @param blockLength
+		 * @param numberOfWindows
+		 * @param distanceToBeat - best distance found so far
+		 * @return the lower of the distance to beat and the distances of the windows where a block matches
+		 */
+		int getMinimumHammingDistance(PackedDnaSequence dnaSequence, PackedDnaSequence pattern, int numberOfBlocks, int blockLength, int numberOfWindows, int distanceToBeat) {
+			
+			int minimumHammingDistance = distanceToBeat;
+			for (int blockCounter = 0; blockCounter < numberOfBlocks && minimumHammingDistance > 0; ++blockCounter) {
+				int blockStart = blockCounter * blockLength, qgramCode = getQgramCode(pattern, blockStart);
+				for (int bucketIndex = this.bucketStarts[qgramCode]; bucketIndex < this.bucketStarts[qgramCode + 1]; ++bucketIndex) {
+					int windowStartPosition = this.positions[bucketIndex] - blockStart;
+					if (windowStartPosition >= 0 && windowStartPosition < numberOfWindows) {
+						minimumHammingDistance = Math.min(minimumHammingDistance, dnaSequence.getHammingDistance(pattern, windowStartPosition, minimumHammingDistance));
+					}
+				}
+			}
+			return minimumHammingDistance;
+			
+		}
+		
+	}
+	
+}
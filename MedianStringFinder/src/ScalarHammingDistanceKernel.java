@@ -0,0 +1,23 @@
+/**
+ * Slides the window through the packed DNA sequence one base at a time and counts mismatches with the
+ * folded XOR and bit count of PackedDnaSequence. Runs on any JVM.
+ */
+public class ScalarHammingDistanceKernel implements HammingDistanceKernel {
+
+	/* (non-Javadoc)
+	 * @see HammingDistanceKernel#getMinimumHammingDistance(PackedDnaSequence, PackedDnaSequence, PackedDnaSequence, int)
+	 */
+	@Override
+	public int getMinimumHammingDistance(PackedDnaSequence dnaSequence, PackedDnaSequence pattern, PackedDnaSequence reverseComplementPattern, int numberOfWindows) {
+		return dnaSequence.getMinimumHammingDistance(pattern, reverseComplementPattern, numberOfWindows);
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "scalar";
+	}
+	
+}
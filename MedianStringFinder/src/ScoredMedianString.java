@@ -0,0 +1,58 @@
+/**
+ * A median string together with its total minimum hamming distance against the DNA sequences.
+ * Ordering is by score first and then lexicographically, so the smallest element is the median string
+ * that a sequential search would report.
+ */
+public class ScoredMedianString implements Comparable<ScoredMedianString> {
+
+	private String medianString;
+	private int score;
+	
+	/**
+	 * Constructor
+	 * @param medianString
+	 * @param score
+	 */
+	public ScoredMedianString(String medianString, int score) {
+		
+		this.medianString = medianString;
+		this.score = score;
+		
+	}
+	
+	/**
+	 * @return the median string
+	 */
+	public String getMedianString() {
+		return this.medianString;
+	}
+	
+	/**
+	 * @return the total minimum hamming distance of the median string
+	 */
+	public int getScore() {
+		return this.score;
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 */
+	@Override
+	public int compareTo(ScoredMedianString otherScoredMedianString) {
+		
+		if (this.score != otherScoredMedianString.score) {
+			return this.score < otherScoredMedianString.score ? -1 : 1;
+		}
+		return this.medianString.compareTo(otherScoredMedianString.medianString);
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.medianString + " (" + this.score + ")";
+	}
+	
+}
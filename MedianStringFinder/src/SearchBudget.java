@@ -0,0 +1,50 @@
+/**
+ * Limits on how long a median string search may run. When a limit is reached the search stops and
+ * returns the best median string found so far.
+ */
+public class SearchBudget {
+
+	public static final long NO_LIMIT = Long.MAX_VALUE;
+	public static final long DEFAULT_PROGRESS_INTERVAL_MILLISECONDS = 1000;
+	public static final SearchBudget UNLIMITED = new SearchBudget(NO_LIMIT, NO_LIMIT);
+	
+	private long timeBudgetMilliseconds;
+	private long nodeBudget;
+	private long progressIntervalMilliseconds;
+	
+	/**
+	 * Constructor
+	 * @param timeBudgetMilliseconds - wall clock time the search may take, or NO_LIMIT
+	 * @param nodeBudget - number of search tree nodes the search may visit, or NO_LIMIT
+	 * @param progressIntervalMilliseconds - time between progress reports to the listener
+	 */
+	public SearchBudget(long timeBudgetMilliseconds, long nodeBudget, long progressIntervalMilliseconds) {
+		
+		this.timeBudgetMilliseconds = timeBudgetMilliseconds;
+		this.nodeBudget = nodeBudget;
+		this.progressIntervalMilliseconds = progressIntervalMilliseconds;
+		
+	}
+	
+	/**
+	 * Constructor with the default progress interval
+	 * @param timeBudgetMilliseconds
+	 * @param nodeBudget
+	 */
+	public SearchBudget(long timeBudgetMilliseconds, long nodeBudget) {
+		this(timeBudgetMilliseconds, nodeBudget, DEFAULT_PROGRESS_INTERVAL_MILLISECONDS);
+	}
+
+	public long getTimeBudgetMilliseconds() {
+		return timeBudgetMilliseconds;
+	}
+
+	public long getNodeBudget() {
+		return nodeBudget;
+	}
+
+	public long getProgressIntervalMilliseconds() {
+		return progressIntervalMilliseconds;
+	}
+	
+}
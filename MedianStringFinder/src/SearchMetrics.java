@@ -0,0 +1,166 @@
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Detailed counters of one median string search, collected only when asked for because timing the
+ * scoring work costs a little on every node. Each worker counts into its own arrays and adds them to
+ * the striped counters here when it finishes, so that metrics can stay on under parallel search.
+ */
+public class SearchMetrics {
+
+	private int targetLength;
+	private LongAdder[] nodesVisitedPerDepth;
+	private LongAdder[] nodesPrunedPerDepth;
+	private LongAdder leafEvaluations = new LongAdder();
+	private LongAdder incumbentImprovements = new LongAdder();
+	private LongAdder scoringNanoseconds = new LongAdder();
+	private LongAdder workerNanoseconds = new LongAdder();
+	
+	/**
+	 * Constructor
+	 * @param targetLength - length of the median string being searched for
+	 */
+	SearchMetrics(int targetLength) {
+		
+		this.targetLength = targetLength;
+		this.nodesVisitedPerDepth = getCounters(targetLength + 1);
+		this.nodesPrunedPerDepth = getCounters(targetLength + 1);
+		
+	}
+	
+	/**
+	 * @param numberOfCounters
+	 * @return counters that all start at zero
+	 */
+	private static LongAdder[] getCounters(int numberOfCounters) {
+		
+		LongAdder[] counters = new LongAdder[numberOfCounters];
+		for (int counter = 0; counter < numberOfCounters; ++counter) {
+			counters[counter] = new LongAdder();
+		}
+		return counters;
+		
+	}
+	
+	/**
+	 * Add the counts of one worker
+	 * @param nodesVisitedPerDepth - nodes visited by the worker at each median string prefix length
+	 * @param nodesPrunedPerDepth - nodes pruned by the worker at each median string prefix length
+	 * @param leafEvaluations - full length median strings the worker scored
+	 * @param incumbentImprovements - times the worker replaced the incumbent
+	 * @param scoringNanoseconds - time the worker spent updating scores
+	 * @param workerNanoseconds - time the worker ran in total
+	 */
+	void add(long[] nodesVisitedPerDepth, long[] nodesPrunedPerDepth, long leafEvaluations, long incumbentImprovements, long scoringNanoseconds, long workerNanoseconds) {
+		
+		for (int depth = 0; depth <= this.targetLength; ++depth) {
+			if (nodesVisitedPerDepth[depth] != 0) {
+				this.nodesVisitedPerDepth[depth].add(nodesVisitedPerDepth[depth]);
+			}
+			if (nodesPrunedPerDepth[depth] != 0) {
+				this.nodesPrunedPerDepth[depth].add(nodesPrunedPerDepth[depth]);
+			}
+		}
+		this.leafEvaluations.add(leafEvaluations);
+		this.incumbentImprovements.add(incumbentImprovements);
+		this.scoringNanoseconds.add(scoringNanoseconds);
+		this.workerNanoseconds.add(workerNanoseconds);
+		
+	}
+	
+	/**
+	 * @return length of the median string that was searched for
+	 */
+	public int getTargetLength() {
+		return this.targetLength;
+	}
+	
+	/**
+	 * @param depth - median string prefix length
+	 * @return number of nodes visited with a prefix of that length
+	 */
+	public long getNodesVisited(int depth) {
+		return this.nodesVisitedPerDepth[depth].sum();
+	}
+	
+	/**
+	 * @param depth - median string prefix length
+	 * @return number of nodes with a prefix of that length that were pruned
+	 */
+	public long getNodesPruned(int depth) {
+		return this.nodesPrunedPerDepth[depth].sum();
+	}
+	
+	/**
+	 * @return number of full length median strings that were scored
+	 */
+	public long getLeafEvaluations() {
+		return this.leafEvaluations.sum();
+	}
+	
+	/**
+	 * @return number of times the search replaced the incumbent
+	 */
+	public long getIncumbentImprovements() {
+		return this.incumbentImprovements.sum();
+	}
+	
+	/**
+	 * @return time in nanoseconds, summed over all workers, spent updating scores and building the k-mer distance index
+	 */
+	public long getScoringNanoseconds() {
+		return this.scoringNanoseconds.sum();
+	}
+	
+	/**
+	 * @return time in nanoseconds, summed over all workers, spent walking the tree outside of scoring
+	 */
+	public long getTraversalNanoseconds() {
+		return Math.max(0, this.workerNanoseconds.sum() - this.scoringNanoseconds.sum());
+	}
+	
+	/**
+	 * @return the metrics as a JSON object
+	 */
+	public String toJson() {
+		
+		StringBuilder json = new StringBuilder();
+		json.append("{\"targetLength\":").append(this.targetLength);
+		json.append(",\"nodesVisitedPerDepth\":");
+		appendJsonArray(json, this.nodesVisitedPerDepth);
+		json.append(",\"nodesPrunedPerDepth\":");
+		appendJsonArray(json, this.nodesPrunedPerDepth);
+		json.append(",\"leafEvaluations\":").append(getLeafEvaluations());
+		json.append(",\"incumbentImprovements\":").append(getIncumbentImprovements());
+		json.append(",\"scoringNanoseconds\":").append(getScoringNanoseconds());
+		json.append(",\"traversalNanoseconds\":").append(getTraversalNanoseconds());
+		return json.append('}').toString();
+		
+	}
+	
+	/**
+	 * @param json
+	 * @param counters
+	 */
+	private static void appendJsonArray(StringBuilder json, LongAdder[] counters) {
+		
+		json.append('[');
+		for (int counter = 0; counter < counters.length; ++counter) {
+			if (counter > 0) {
+				json.append(',');
+			}
+			json.append(counters[counter].sum());
+		}
+		json.append(']');
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return toJson();
+	}
+	
+}
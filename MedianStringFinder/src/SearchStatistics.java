@@ -0,0 +1,110 @@
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counters collected during a median string search. The counters are striped so that parallel workers
+ * can update them without contending on one memory location.
+ */
+public class SearchStatistics {
+
+	private static final String EMPTY_STRING = "";
+	
+	private LongAdder nodesPrunedByPrefixBound = new LongAdder();
+	private LongAdder nodesPrunedBySuffixBound = new LongAdder();
+	private LongAdder nodesVisited = new LongAdder();
+	private volatile int seedScore = Integer.MAX_VALUE;
+	private LongAdder workersLost = new LongAdder();
+	private LongAdder shardsHandedOutAgain = new LongAdder();
+	
+	/**
+	 * Count a node whose prefix score alone was already worse than the incumbent
+	 */
+	void countPrunedByPrefixBound() {
+		this.nodesPrunedByPrefixBound.increment();
+	}
+	
+	/**
+	 * Count a node that was pruned only because the suffix lower bound was added to the prefix score
+	 */
+	void countPrunedBySuffixBound() {
+		this.nodesPrunedBySuffixBound.increment();
+	}
+	
+	/**
+	 * @param numberOfNodes - nodes a worker visited since it last reported
+	 */
+	void countNodesVisited(long numberOfNodes) {
+		this.nodesVisited.add(numberOfNodes);
+	}
+	
+	/**
+	 * @param numberOfShards - shards that the lost worker still held, which are handed out again
+	 * Count a shard worker whose connection dropped before the search was over
+	 */
+	void countLostWorker(int numberOfShards) {
+		
+		this.workersLost.increment();
+		this.shardsHandedOutAgain.add(numberOfShards);
+		
+	}
+	
+	/**
+	 * @return number of shard workers lost during a sharded search
+	 */
+	public long getWorkersLost() {
+		return this.workersLost.sum();
+	}
+	
+	/**
+	 * @return number of shards that lost workers held and that were handed out again
+	 */
+	public long getShardsHandedOutAgain() {
+		return this.shardsHandedOutAgain.sum();
+	}
+	
+	/**
+	 * @return number of search tree nodes visited
+	 */
+	public long getNodesVisited() {
+		return this.nodesVisited.sum();
+	}
+	
+	/**
+	 * @param seedScore - score of the heuristic median string the search started from
+	 */
+	void setSeedScore(int seedScore) {
+		this.seedScore = seedScore;
+	}
+	
+	/**
+	 * @return score of the heuristic median string the search started from, or Integer.MAX_VALUE if there was none
+	 */
+	public int getSeedScore() {
+		return this.seedScore;
+	}
+	
+	/**
+	 * @return number of nodes pruned by the prefix score alone
+	 */
+	public long getNodesPrunedByPrefixBound() {
+		return this.nodesPrunedByPrefixBound.sum();
+	}
+	
+	/**
+	 * @return number of nodes that only the suffix lower bound could prune
+	 */
+	public long getNodesPrunedBySuffixBound() {
+		return this.nodesPrunedBySuffixBound.sum();
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		String seedScoreText = this.seedScore == Integer.MAX_VALUE ? EMPTY_STRING : "Seed score: " + this.seedScore + ", ";
+		String workersLostText = getWorkersLost() == 0 ? EMPTY_STRING : ", workers lost: " + getWorkersLost() + " holding " + getShardsHandedOutAgain() + " shards";
+		return seedScoreText + "Nodes visited: " + getNodesVisited() + ", pruned by prefix bound: " + getNodesPrunedByPrefixBound() + ", pruned by suffix bound: " + getNodesPrunedBySuffixBound() + workersLostText;
+	}
+	
+}
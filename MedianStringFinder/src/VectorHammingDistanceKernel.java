@@ -0,0 +1,105 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * Compares the pattern against as many windows per instruction as the widest long vector holds, using the
+ * incubating Vector API. The packed words of the DNA sequence are copied a chunk at a time into a small
+ * buffer of each thread, and the window words are built from them with lane wise shifts: one shift by s
+ * bases turns a vector of consecutive packed words into the windows that start s bases into each of them.
+ * Nothing is kept once the call returns, so sequences mapped from a file stay off the heap. Patterns longer
+ * than one word go to the scalar kernel. Only built by the vector profile, and needs the JVM option
+ * --add-modules jdk.incubator.vector.
+ */
+public class VectorHammingDistanceKernel implements HammingDistanceKernel {
+
+	public static final int CHUNK_WORDS = 256;
+	
+	private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+	private static final long TWO_BIT_MASK = 0x3333333333333333L;
+	private static final long FOUR_BIT_MASK = 0x0F0F0F0F0F0F0F0FL;
+	private static final long BYTE_SUM_MULTIPLIER = 0x0101010101010101L;
+	private static final int BYTE_SUM_SHIFT = Long.SIZE - Byte.SIZE;
+	
+	//One word more than a chunk, so that the windows starting in the last word of the chunk can be completed
+	private ThreadLocal<long[]> packedWordChunks = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[CHUNK_WORDS + 1];
+		}
+	};
+	private ScalarHammingDistanceKernel scalarHammingDistanceKernel = new ScalarHammingDistanceKernel();
+	
+	/* (non-Javadoc)
+	 * @see HammingDistanceKernel#getMinimumHammingDistance(PackedDnaSequence, PackedDnaSequence, PackedDnaSequence, int)
+	 */
+	@Override
+	public int getMinimumHammingDistance(PackedDnaSequence dnaSequence, PackedDnaSequence pattern, PackedDnaSequence reverseComplementPattern, int numberOfWindows) {
+		
+		int patternLength = pattern.getLength();
+		if (patternLength > PackedDnaSequence.BASES_PER_WORD) {
+			return this.scalarHammingDistanceKernel.getMinimumHammingDistance(dnaSequence, pattern, reverseComplementPattern, numberOfWindows);
+		}
+		
+		long patternWord = pattern.getWord(0), lowBitsMask = PackedDnaSequence.getLowBitsMask(patternLength);
+		long reverseComplementPatternWord = reverseComplementPattern == null ? 0L : reverseComplementPattern.getWord(0);
+		long[] packedWordChunk = this.packedWordChunks.get();
+		LongVector minimumHammingDistances = LongVector.broadcast(SPECIES, Long.MAX_VALUE);
+		int numberOfWindowWords = PackedDnaSequence.getNumberOfWords(numberOfWindows);
+		
+		for (int chunkStartWord = 0; chunkStartWord < numberOfWindowWords; chunkStartWord += CHUNK_WORDS) {
+			
+			//Words past the end of the sequence read as A, and their windows are masked out below
+			for (int wordCounter = 0; wordCounter < packedWordChunk.length; ++wordCounter) {
+				packedWordChunk[wordCounter] = dnaSequence.getWord((chunkStartWord + wordCounter) * PackedDnaSequence.BASES_PER_WORD);
+			}
+			
+			for (int shift = 0; shift < PackedDnaSequence.BASES_PER_WORD && shift < numberOfWindows; ++shift) {
+				
+				//Windows that start this many bases into a word, counted in words
+				int numberOfShiftedWindows = PackedDnaSequence.getNumberOfWords(numberOfWindows - shift);
+				for (int wordCounter = 0; wordCounter < CHUNK_WORDS && chunkStartWord + wordCounter < numberOfShiftedWindows; wordCounter += SPECIES.length()) {
+					LongVector windows = LongVector.fromArray(SPECIES, packedWordChunk, wordCounter);
+					if (shift != 0) {
+						windows = windows.lanewise(VectorOperators.LSHR, shift * PackedDnaSequence.BITS_PER_BASE).or(LongVector.fromArray(SPECIES, packedWordChunk, wordCounter + 1).lanewise(VectorOperators.LSHL, Long.SIZE - shift * PackedDnaSequence.BITS_PER_BASE));
+					}
+					LongVector hammingDistances = getHammingDistances(windows.lanewise(VectorOperators.XOR, patternWord), lowBitsMask);
+					if (reverseComplementPattern != null) {
+						hammingDistances = hammingDistances.min(getHammingDistances(windows.lanewise(VectorOperators.XOR, reverseComplementPatternWord), lowBitsMask));
+					}
+					minimumHammingDistances = minimumHammingDistances.lanewise(VectorOperators.MIN, hammingDistances, SPECIES.indexInRange(chunkStartWord + wordCounter, numberOfShiftedWindows));
+				}
+				
+			}
+			
+		}
+		
+		return (int) Math.min(Integer.MAX_VALUE, minimumHammingDistances.reduceLanes(VectorOperators.MIN));
+		
+	}
+	
+	/**
+	 * @param differences - XOR of the pattern and the windows
+	 * @param lowBitsMask - selects the bases to compare
+	 * @return number of differing bases in each lane. JDK 17 has no lane wise bit count, so the folded bits
+	 * are added up pairwise into nibbles and bytes and the bytes are summed with one multiply.
+	 */
+	private static LongVector getHammingDistances(LongVector differences, long lowBitsMask) {
+		
+		LongVector mismatches = differences.or(differences.lanewise(VectorOperators.LSHR, 1)).and(lowBitsMask);
+		mismatches = mismatches.and(TWO_BIT_MASK).add(mismatches.lanewise(VectorOperators.LSHR, 2).and(TWO_BIT_MASK));
+		mismatches = mismatches.add(mismatches.lanewise(VectorOperators.LSHR, 4)).and(FOUR_BIT_MASK);
+		return mismatches.mul(BYTE_SUM_MULTIPLIER).lanewise(VectorOperators.LSHR, BYTE_SUM_SHIFT);
+		
+	}
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "vector";
+	}
+	
+}
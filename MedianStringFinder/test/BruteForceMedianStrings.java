@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Reference answers for the tests, worked out on plain strings one base at a time without any of the
+ * packing, bounds or indexes of the code under test. Only usable for short median strings, since every
+ * one of the 4^l candidates is scored.
+ */
+final class BruteForceMedianStrings {
+
+	private BruteForceMedianStrings() {
+	}
+	
+	/**
+	 * @param randomNumberGenerator
+	 * @param length
+	 * @return a random DNA sequence
+	 */
+	static String getRandomDnaSequence(Random randomNumberGenerator, int length) {
+		
+		StringBuffer dnaSequence = new StringBuffer(length);
+		for (int position = 0; position < length; ++position) {
+			dnaSequence.append(Nucleotide.validBases[randomNumberGenerator.nextInt(Nucleotide.validBases.length)]);
+		}
+		return dnaSequence.toString();
+		
+	}
+	
+	/**
+	 * @param randomNumberGenerator
+	 * @param numberOfDnaSequences
+	 * @param minimumLength
+	 * @param maximumLength
+	 * @param motif - planted with up to one mutation at a random position of every other sequence, or null for none
+	 * @return random DNA sequences with lengths between the minimum and the maximum
+	 */
+	static List<String> getRandomDnaSequences(Random randomNumberGenerator, int numberOfDnaSequences, int minimumLength, int maximumLength, String motif) {
+		
+		List<String> dnaSequences = new ArrayList<String>();
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < numberOfDnaSequences; ++dnaSequenceCounter) {
+			char[] dnaSequence = getRandomDnaSequence(randomNumberGenerator, minimumLength + randomNumberGenerator.nextInt(maximumLength - minimumLength + 1)).toCharArray();
+			if (motif != null && dnaSequenceCounter % 2 == 0 && motif.length() <= dnaSequence.length) {
+				int motifStart = randomNumberGenerator.nextInt(dnaSequence.length - motif.length() + 1);
+				motif.getChars(0, motif.length(), dnaSequence, motifStart);
+				dnaSequence[motifStart + randomNumberGenerator.nextInt(motif.length())] = Nucleotide.validBases[randomNumberGenerator.nextInt(Nucleotide.validBases.length)];
+			}
+			dnaSequences.add(new String(dnaSequence));
+		}
+		return dnaSequences;
+		
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @return packed copies of the DNA sequences
+	 * @throws Exception
+	 */
+	static PackedDnaSequence[] getPackedDnaSequences(List<String> dnaSequences) throws Exception {
+		
+		PackedDnaSequence[] packedDnaSequences = new PackedDnaSequence[dnaSequences.size()];
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < packedDnaSequences.length; ++dnaSequenceCounter) {
+			packedDnaSequences[dnaSequenceCounter] = Nucleotide.getPackedDnaSequence(dnaSequences.get(dnaSequenceCounter));
+		}
+		return packedDnaSequences;
+		
+	}
+	
+	/**
+	 * @param dnaSequence
+	 * @return the reverse complement of the DNA sequence
+	 */
+	static String getReverseComplement(String dnaSequence) {
+		
+		StringBuffer reverseComplement = new StringBuffer(dnaSequence.length());
+		for (int position = dnaSequence.length() - 1; position >= 0; --position) {
+			reverseComplement.append("TGCA".charAt("ACGT".indexOf(dnaSequence.charAt(position))));
+		}
+		return reverseComplement.toString();
+		
+	}
+	
+	/**
+	 * @param dnaSequence
+	 * @param pattern
+	 * @param windowStartPosition
+	 * @return number of bases of the pattern that differ from the window at the start position
+	 */
+	static int getHammingDistance(String dnaSequence, String pattern, int windowStartPosition) {
+		
+		int hammingDistance = 0;
+		for (int position = 0; position < pattern.length(); ++position) {
+			if (dnaSequence.charAt(windowStartPosition + position) != pattern.charAt(position)) {
+				++hammingDistance;
+			}
+		}
+		return hammingDistance;
+		
+	}
+	
+	/**
+	 * @param dnaSequence
+	 * @param pattern
+	 * @param numberOfWindows - number of start positions to try, beginning at 0
+	 * @param bothStrands - true to also match the reverse complement of the pattern
+	 * @return the minimum hamming distance of the pattern to any of the windows, or Integer.MAX_VALUE if there are none
+	 */
+	static int getMinimumHammingDistance(String dnaSequence, String pattern, int numberOfWindows, boolean bothStrands) {
+		
+		String reverseComplementPattern = getReverseComplement(pattern);
+		int minimumHammingDistance = Integer.MAX_VALUE;
+		for (int windowStartPosition = 0; windowStartPosition < numberOfWindows; ++windowStartPosition) {
+			minimumHammingDistance = Math.min(minimumHammingDistance, getHammingDistance(dnaSequence, pattern, windowStartPosition));
+			if (bothStrands) {
+				minimumHammingDistance = Math.min(minimumHammingDistance, getHammingDistance(dnaSequence, reverseComplementPattern, windowStartPosition));
+			}
+		}
+		return minimumHammingDistance;
+		
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @param medianString
+	 * @param bothStrands
+	 * @return the sum over the DNA sequences of the minimum hamming distance of the median string to any of their windows
+	 */
+	static int getScore(List<String> dnaSequences, String medianString, boolean bothStrands) {
+		
+		int score = 0;
+		for (String dnaSequence : dnaSequences) {
+			score += getMinimumHammingDistance(dnaSequence, medianString, dnaSequence.length() - medianString.length() + 1, bothStrands);
+		}
+		return score;
+		
+	}
+	
+	/**
+	 * @param length
+	 * @return every string of the length over A, C, G and T, in lexicographic order
+	 */
+	static List<String> getAllCandidates(int length) {
+		
+		List<String> candidates = new ArrayList<String>();
+		candidates.add("");
+		for (int position = 0; position < length; ++position) {
+			List<String> longerCandidates = new ArrayList<String>();
+			for (String candidate : candidates) {
+				for (char base : Nucleotide.validBases) {
+					longerCandidates.add(candidate + base);
+				}
+			}
+			candidates = longerCandidates;
+		}
+		return candidates;
+		
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @param length
+	 * @param bothStrands
+	 * @return every candidate of the length with its score, best first and ties in lexicographic order
+	 */
+	static List<ScoredMedianString> getScoredCandidates(List<String> dnaSequences, int length, boolean bothStrands) {
+		
+		List<ScoredMedianString> scoredCandidates = new ArrayList<ScoredMedianString>();
+		for (String candidate : getAllCandidates(length)) {
+			scoredCandidates.add(new ScoredMedianString(candidate, getScore(dnaSequences, candidate, bothStrands)));
+		}
+		Collections.sort(scoredCandidates);
+		return scoredCandidates;
+		
+	}
+	
+}
@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * FASTA records read into packed DNA sequences, with and without ambiguous bases split out
+ */
+public class FastaReaderTest {
+
+	@TempDir
+	File temporaryDirectory;
+	
+	@Test
+	public void recordsReadBackExactly() throws Exception {
+		
+		Random randomNumberGenerator = new Random(101);
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 6, 1, 150, null);
+		StringBuffer fasta = new StringBuffer();
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < dnaSequences.size(); ++dnaSequenceCounter) {
+			fasta.append(">record").append(dnaSequenceCounter).append("\r\n");
+			String dnaSequence = dnaSequences.get(dnaSequenceCounter);
+			for (int lineStart = 0; lineStart < dnaSequence.length(); lineStart += 60) {
+				fasta.append(dnaSequence, lineStart, Math.min(dnaSequence.length(), lineStart + 60)).append("\r\n");
+			}
+		}
+		
+		try (FastaReader fastaReader = new FastaReader(writeFasta(fasta.toString()))) {
+			for (int dnaSequenceCounter = 0; dnaSequenceCounter < dnaSequences.size(); ++dnaSequenceCounter) {
+				assertEquals(dnaSequences.get(dnaSequenceCounter), fastaReader.nextDnaSequence().toString());
+				assertEquals("record" + dnaSequenceCounter, fastaReader.getHeader());
+				assertEquals(0, fastaReader.getRecordPosition());
+			}
+			assertNull(fastaReader.nextDnaSequence());
+		}
+		
+	}
+	
+	@Test
+	public void ambiguousBasesAreRejectedByDefault() throws Exception {
+		
+		try (FastaReader fastaReader = new FastaReader(writeFasta(">chr1\nACGTNNNNACGT\n"))) {
+			fastaReader.nextDnaSequence();
+			fail("A record with N was read without splitting it.");
+		} catch (Exception e) {
+			assertTrue(e.getMessage().contains("ambiguous"), e.getMessage());
+		}
+		
+	}
+	
+	@Test
+	public void recordsAreSplitAtAmbiguousBases() throws Exception {
+		
+		//The long piece spans several packed words, so leftover bits of it would show up in the next piece
+		String longPiece = BruteForceMedianStrings.getRandomDnaSequence(new Random(102), 75);
+		String fasta = ">chr1 first\nACGTNNNNACGGT\nTTnAC\n>chr2\nNNGATTACA\n" + longPiece + "RYKM\nCCA\n>chr3\nNNNN\n>chr4\nAAAAN\n";
+		List<String> dnaSequences = new ArrayList<String>(), headers = new ArrayList<String>();
+		List<Integer> recordPositions = new ArrayList<Integer>();
+		try (FastaReader fastaReader = new FastaReader(writeFasta(fasta))) {
+			fastaReader.setAmbiguousBasesSplit(true);
+			PackedDnaSequence dnaSequence = null;
+			while ((dnaSequence = fastaReader.nextDnaSequence()) != null) {
+				dnaSequences.add(dnaSequence.toString());
+				headers.add(fastaReader.getHeader());
+				recordPositions.add(fastaReader.getRecordPosition());
+			}
+		}
+		assertEquals(List.of("ACGT", "ACGGTTT", "AC", "GATTACA" + longPiece, "CCA", "AAAA"), dnaSequences);
+		assertEquals(List.of("chr1 first", "chr1 first", "chr1 first", "chr2", "chr2", "chr4"), headers);
+		assertEquals(List.of(0, 8, 16, 2, 13 + longPiece.length(), 0), recordPositions);
+		
+	}
+	
+	@Test
+	public void shortPiecesAreSkipped() throws Exception {
+		
+		List<String> dnaSequences = new ArrayList<String>();
+		try (FastaReader fastaReader = new FastaReader(writeFasta(">chr1\nACGTNNNNACGGTNAC\n>chr2\nGA\n>chr3\nTTTTT\n"))) {
+			fastaReader.setAmbiguousBasesSplit(true);
+			fastaReader.setMinimumLength(4);
+			PackedDnaSequence dnaSequence = null;
+			while ((dnaSequence = fastaReader.nextDnaSequence()) != null) {
+				dnaSequences.add(fastaReader.getHeader() + ":" + fastaReader.getRecordPosition() + ":" + dnaSequence);
+			}
+		}
+		assertEquals(List.of("chr1:0:ACGT", "chr1:8:ACGGT", "chr3:0:TTTTT"), dnaSequences);
+		
+	}
+	
+	@Test
+	public void otherCharactersAreRejectedWhenSplitting() throws Exception {
+		
+		try (FastaReader fastaReader = new FastaReader(writeFasta(">chr1\nACGTNNXACGT\n"))) {
+			fastaReader.setAmbiguousBasesSplit(true);
+			assertEquals("ACGT", fastaReader.nextDnaSequence().toString());
+			fastaReader.nextDnaSequence();
+			fail("A record with X was read.");
+		} catch (Exception e) {
+			assertEquals("X is not a valid base.", e.getMessage());
+		}
+		
+	}
+	
+	/**
+	 * @param fasta
+	 * @return a file in the temporary directory holding the FASTA text
+	 * @throws Exception
+	 */
+	private File writeFasta(String fasta) throws Exception {
+		
+		File fastaFile = new File(this.temporaryDirectory, "dnaSequences.fasta");
+		Files.write(fastaFile.toPath(), fasta.getBytes(StandardCharsets.US_ASCII));
+		return fastaFile;
+		
+	}
+	
+}
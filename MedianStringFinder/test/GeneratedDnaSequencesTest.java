@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Generated DNA sequences against themselves: the same seed has to give the same sequences however many threads
+ * make them, and whether they are kept in memory or streamed to a store in batches
+ */
+public class GeneratedDnaSequencesTest {
+
+	@TempDir
+	File temporaryDirectory;
+	
+	@Test
+	public void theSameSeedGivesTheSameSequencesWhateverTheParallelism() throws Exception {
+		
+		Map<String, Object> generatedDnaSequences = MedianStringFinder.generatePackedDnaSequences(70, 203, 9, 2, 141, 1);
+		String medianString = (String) generatedDnaSequences.get(MedianStringFinder.MEDIAN_STRING_KEY);
+		PackedDnaSequence[] dnaSequences = (PackedDnaSequence[]) generatedDnaSequences.get(MedianStringFinder.PACKED_DNA_SEQUENCE_KEY);
+		assertEquals(203, dnaSequences.length);
+		assertEquals(9, medianString.length());
+		
+		//Every sequence holds the median string with at most the given number of mutations
+		for (PackedDnaSequence dnaSequence : dnaSequences) {
+			assertEquals(70 + 9, dnaSequence.getLength());
+			assertTrue(BruteForceMedianStrings.getMinimumHammingDistance(dnaSequence.toString(), medianString, 70 + 1, false) <= 2, dnaSequence + " does not hold " + medianString);
+		}
+		
+		for (int parallelism : new int[] {2, 3, 8, 300}) {
+			Map<String, Object> parallelGeneratedDnaSequences = MedianStringFinder.generatePackedDnaSequences(70, 203, 9, 2, 141, parallelism);
+			assertEquals(medianString, parallelGeneratedDnaSequences.get(MedianStringFinder.MEDIAN_STRING_KEY));
+			assertSameDnaSequences(dnaSequences, (PackedDnaSequence[]) parallelGeneratedDnaSequences.get(MedianStringFinder.PACKED_DNA_SEQUENCE_KEY), "parallelism " + parallelism);
+		}
+		
+		//Another seed gives other sequences
+		assertNotEquals(dnaSequences[0].toString(), ((PackedDnaSequence[]) MedianStringFinder.generatePackedDnaSequences(70, 203, 9, 2, 142, 1).get(MedianStringFinder.PACKED_DNA_SEQUENCE_KEY))[0].toString());
+		
+	}
+	
+	@Test
+	public void theStoreHoldsTheSameSequencesAcrossBatches() throws Exception {
+		
+		//Two full batches and part of a third
+		int numberOfDnaSequences = 2 * MedianStringFinder.GENERATED_DNA_SEQUENCES_PER_BATCH + 17;
+		Map<String, Object> generatedDnaSequences = MedianStringFinder.generatePackedDnaSequences(40, numberOfDnaSequences, 6, 1, 143, 3);
+		File storeFile = new File(this.temporaryDirectory, "generated.pack");
+		String medianString = MedianStringFinder.generateDnaSequences(storeFile, 40, numberOfDnaSequences, 6, 1, 143, 2);
+		assertEquals(generatedDnaSequences.get(MedianStringFinder.MEDIAN_STRING_KEY), medianString);
+		
+		try (PackedSequenceStore packedSequenceStore = new PackedSequenceStore(storeFile)) {
+			assertSameDnaSequences((PackedDnaSequence[]) generatedDnaSequences.get(MedianStringFinder.PACKED_DNA_SEQUENCE_KEY), packedSequenceStore.getDnaSequences(), "store");
+		}
+		
+	}
+	
+	/**
+	 * @param expectedDnaSequences
+	 * @param dnaSequences
+	 * @param message
+	 */
+	private static void assertSameDnaSequences(PackedDnaSequence[] expectedDnaSequences, PackedDnaSequence[] dnaSequences, String message) {
+		
+		assertEquals(expectedDnaSequences.length, dnaSequences.length, message);
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < expectedDnaSequences.length; ++dnaSequenceCounter) {
+			assertEquals(expectedDnaSequences[dnaSequenceCounter].toString(), dnaSequences[dnaSequenceCounter].toString(), message + ", DNA sequence " + dnaSequenceCounter);
+		}
+		
+	}
+	
+}
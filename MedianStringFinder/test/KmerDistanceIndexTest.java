@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * The dynamic program of the k-mer distance index against scanning the windows of plain strings for every k-mer
+ */
+public class KmerDistanceIndexTest {
+
+	@Test
+	public void everyKmerHasTheMinimumDistanceOfEachSequence() throws Exception {
+		checkEveryKmer(new Random(31), false);
+	}
+	
+	@Test
+	public void everyKmerHasTheMinimumDistanceOfEachSequenceOnBothStrands() throws Exception {
+		checkEveryKmer(new Random(32), true);
+	}
+	
+	@Test
+	public void totalsAddUpOverTheSequences() throws Exception {
+		
+		Random randomNumberGenerator = new Random(33);
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 6, 8, 40, "ACCGT");
+		int[] numberOfWindows = new int[dnaSequences.size()];
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < numberOfWindows.length; ++dnaSequenceCounter) {
+			numberOfWindows[dnaSequenceCounter] = dnaSequences.get(dnaSequenceCounter).length() - 5 + 1;
+		}
+		KmerDistanceIndex kmerDistanceIndex = new KmerDistanceIndex(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences), 5, numberOfWindows, false);
+		for (String kmer : BruteForceMedianStrings.getAllCandidates(5)) {
+			assertEquals(BruteForceMedianStrings.getScore(dnaSequences, kmer, false), kmerDistanceIndex.getTotalMinimumHammingDistance(getKmerCode(kmer)), kmer);
+		}
+		
+	}
+	
+	@Test
+	public void reverseComplementCodesMatchTheStrings() throws Exception {
+		
+		for (String kmer : BruteForceMedianStrings.getAllCandidates(4)) {
+			assertEquals(getKmerCode(BruteForceMedianStrings.getReverseComplement(kmer)), KmerDistanceIndex.getReverseComplement(getKmerCode(kmer), kmer.length()), kmer);
+		}
+		
+	}
+	
+	@Test
+	public void memoryBudgetLimitsTheKmerLength() {
+		
+		assertTrue(KmerDistanceIndex.fitsInMemoryBudget(4, 6, 4L * 4096));
+		assertFalse(KmerDistanceIndex.fitsInMemoryBudget(4, 6, 4L * 4096 - 1));
+		assertFalse(KmerDistanceIndex.fitsInMemoryBudget(1, 16, Long.MAX_VALUE));
+		
+	}
+	
+	/**
+	 * @param randomNumberGenerator
+	 * @param reverseComplementScored
+	 * Build an index of one sequence at a time, so that each entry is the distance to that sequence alone,
+	 * including sequences with a single window and with fewer windows than they have room for
+	 * @throws Exception
+	 */
+	private void checkEveryKmer(Random randomNumberGenerator, boolean reverseComplementScored) throws Exception {
+		
+		for (int kmerLength = 1; kmerLength <= 5; ++kmerLength) {
+			for (int caseCounter = 0; caseCounter < 6; ++caseCounter) {
+				String dnaSequence = BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, kmerLength + randomNumberGenerator.nextInt(30));
+				int numberOfWindows = caseCounter == 0 ? 1 : Math.max(1, dnaSequence.length() - kmerLength + 1 - randomNumberGenerator.nextInt(2));
+				KmerDistanceIndex kmerDistanceIndex = new KmerDistanceIndex(BruteForceMedianStrings.getPackedDnaSequences(Collections.singletonList(dnaSequence)), kmerLength, new int[] {numberOfWindows}, reverseComplementScored);
+				for (String kmer : BruteForceMedianStrings.getAllCandidates(kmerLength)) {
+					assertEquals(BruteForceMedianStrings.getMinimumHammingDistance(dnaSequence, kmer, numberOfWindows, reverseComplementScored), kmerDistanceIndex.getTotalMinimumHammingDistance(getKmerCode(kmer)), dnaSequence + " " + kmer + " windows " + numberOfWindows);
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * @param kmer
+	 * @return the code of the k-mer, with the first base in the lowest two bits
+	 * @throws Exception
+	 */
+	private static int getKmerCode(String kmer) throws Exception {
+		return (int) Nucleotide.getPackedDnaSequence(kmer).getWord(0);
+	}
+	
+}
@@ -0,0 +1,156 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Manifests run by a batch runner against a finder of their own for each job
+ */
+public class MedianStringBatchRunnerTest {
+
+	@TempDir
+	File temporaryDirectory;
+	
+	@Test
+	public void everyJobGetsOneResultLine() throws Exception {
+		
+		Random randomNumberGenerator = new Random(151);
+		List<String> slowDnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 10, 300, 400, "CCGATTAG");
+		List<String> firstDnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 4, 20, 30, "ACGTA");
+		List<String> secondDnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 5, 20, 30, "TTGCA");
+		String slowFastaFileName = writeFasta("slow.fasta", slowDnaSequences).getPath();
+		String firstFastaFileName = writeFasta("first.fasta", firstDnaSequences).getPath(), secondFastaFileName = writeFasta("second.fasta", secondDnaSequences).getPath();
+		
+		//The slow job comes first, so the jobs after it finish before it does
+		StringBuffer manifest = new StringBuffer();
+		manifest.append("# Jobs of the test\n");
+		manifest.append("slow 8 ").append(slowFastaFileName).append('\n');
+		manifest.append('\n');
+		manifest.append("   \n");
+		manifest.append("first 5 ").append(firstFastaFileName).append(" parallelism=2\n");
+		manifest.append("  # an indented comment\n");
+		manifest.append("both 5 ").append(firstFastaFileName).append(',').append(secondFastaFileName).append('\n');
+		manifest.append("second 4 ").append(secondFastaFileName).append('\n');
+		File outputFile = new File(this.temporaryDirectory, "results.tsv");
+		
+		MedianStringBatchRunner medianStringBatchRunner = new MedianStringBatchRunner(3);
+		assertEquals(4, medianStringBatchRunner.run(writeManifest(manifest.toString()), outputFile));
+		
+		Map<String, String[]> results = readResults(outputFile, 4);
+		assertResult(results.get("slow"), slowDnaSequences, 8);
+		assertResult(results.get("first"), firstDnaSequences, 5);
+		List<String> bothDnaSequences = new ArrayList<String>(firstDnaSequences);
+		bothDnaSequences.addAll(secondDnaSequences);
+		assertResult(results.get("both"), bothDnaSequences, 5);
+		assertResult(results.get("second"), secondDnaSequences, 4);
+		
+	}
+	
+	@Test
+	public void failedJobsGetErrorLinesAndTheOthersStillRun() throws Exception {
+		
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(152), 4, 20, 30, "GATC");
+		String fastaFileName = writeFasta("dnaSequences.fasta", dnaSequences).getPath();
+		
+		StringBuffer manifest = new StringBuffer();
+		manifest.append("missingFile 4 ").append(new File(this.temporaryDirectory, "missing.fasta").getPath()).append('\n');
+		manifest.append("noInput 4\n");
+		manifest.append("badLength four ").append(fastaFileName).append('\n');
+		manifest.append("tooLong 31 ").append(fastaFileName).append('\n');
+		manifest.append("badOption 4 ").append(fastaFileName).append(" threads=2\n");
+		manifest.append("good 4 ").append(fastaFileName).append('\n');
+		File outputFile = new File(this.temporaryDirectory, "results.tsv");
+		
+		assertEquals(6, new MedianStringBatchRunner(2).run(writeManifest(manifest.toString()), outputFile));
+		
+		Map<String, String[]> results = readResults(outputFile, 6);
+		for (String jobId : new String[] {"missingFile", "noInput", "badLength", "tooLong", "badOption"}) {
+			String[] fields = results.get(jobId);
+			assertEquals(3, fields.length, jobId);
+			assertEquals(MedianStringBatchRunner.ERROR_RESULT, fields[1], jobId);
+			assertTrue(fields[2].length() > 0, jobId);
+			assertNotEquals("null", fields[2], jobId);
+		}
+		assertResult(results.get("good"), dnaSequences, 4);
+		
+	}
+	
+	/**
+	 * @param fields - fields of a result line
+	 * @param dnaSequences - DNA sequences of the job
+	 * @param medianStringLength
+	 * @throws Exception
+	 */
+	private static void assertResult(String[] fields, List<String> dnaSequences, int medianStringLength) throws Exception {
+		
+		ScoredMedianString scoredMedianString = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences)).findScoredMedianString(medianStringLength, 1);
+		assertEquals(4, fields.length, fields[0]);
+		assertEquals(scoredMedianString.getMedianString(), fields[1], fields[0]);
+		assertEquals(scoredMedianString.getScore(), Integer.parseInt(fields[2]), fields[0]);
+		assertTrue(Long.parseLong(fields[3]) >= 0, fields[0]);
+		
+	}
+	
+	/**
+	 * @param outputFile
+	 * @param numberOfJobs
+	 * @return the fields of each result line by job id, after checking that every job has exactly one line
+	 * @throws Exception
+	 */
+	private static Map<String, String[]> readResults(File outputFile, int numberOfJobs) throws Exception {
+		
+		List<String> resultLines = Files.readAllLines(outputFile.toPath(), StandardCharsets.US_ASCII);
+		assertEquals(numberOfJobs, resultLines.size(), resultLines.toString());
+		Map<String, String[]> results = new HashMap<String, String[]>();
+		for (String resultLine : resultLines) {
+			String[] fields = resultLine.split(MedianStringBatchRunner.OUTPUT_FIELD_SEPARATOR);
+			assertEquals(null, results.put(fields[0], fields), "Second result line for " + fields[0]);
+		}
+		return results;
+		
+	}
+	
+	/**
+	 * @param manifest
+	 * @return a manifest file in the temporary directory
+	 * @throws Exception
+	 */
+	private File writeManifest(String manifest) throws Exception {
+		
+		File manifestFile = new File(this.temporaryDirectory, "manifest.txt");
+		Files.write(manifestFile.toPath(), manifest.getBytes(StandardCharsets.US_ASCII));
+		return manifestFile;
+		
+	}
+	
+	/**
+	 * @param fileName
+	 * @param dnaSequences
+	 * @return a FASTA file in the temporary directory with one record per DNA sequence
+	 * @throws Exception
+	 */
+	private File writeFasta(String fileName, List<String> dnaSequences) throws Exception {
+		
+		StringBuffer fasta = new StringBuffer();
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < dnaSequences.size(); ++dnaSequenceCounter) {
+			fasta.append(">sequence").append(dnaSequenceCounter).append('\n').append(dnaSequences.get(dnaSequenceCounter)).append('\n');
+		}
+		File fastaFile = new File(this.temporaryDirectory, fileName);
+		Files.write(fastaFile.toPath(), fasta.toString().getBytes(StandardCharsets.US_ASCII));
+		return fastaFile;
+		
+	}
+	
+}
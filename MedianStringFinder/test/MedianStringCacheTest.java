@@ -0,0 +1,124 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * The memory tier, the disk tier and the keys that finders give their results in a median string cache
+ */
+public class MedianStringCacheTest {
+
+	@TempDir
+	File temporaryDirectory;
+	
+	@Test
+	public void theLeastRecentlyUsedEntryIsDropped() throws Exception {
+		
+		MedianStringCache medianStringCache = new MedianStringCache(2, null);
+		medianStringCache.put("first", 5, new ScoredMedianString("ACGTA", 3));
+		medianStringCache.put("second", 5, new ScoredMedianString("CCGTA", 4));
+		
+		//Reading the first entry makes the second one the least recently used
+		assertEquals("ACGTA", medianStringCache.get("first", 5).getMedianString());
+		medianStringCache.put("third", 5, new ScoredMedianString("GCGTA", 2));
+		assertEquals(2, medianStringCache.size());
+		assertNull(medianStringCache.get("second", 5));
+		assertEquals(3, medianStringCache.get("first", 5).getScore());
+		assertEquals(2, medianStringCache.get("third", 5).getScore());
+		
+		//The same digest with another target length is another entry
+		assertNull(medianStringCache.get("first", 6));
+		
+	}
+	
+	@Test
+	public void entriesOnDiskOutliveTheCache() throws Exception {
+		
+		File cacheFolder = new File(this.temporaryDirectory, "cache");
+		MedianStringCache medianStringCache = new MedianStringCache(1, cacheFolder);
+		medianStringCache.put("first", 4, new ScoredMedianString("ACGT", 7));
+		medianStringCache.put("second", 6, new ScoredMedianString("TTTACG", 11));
+		
+		//The first entry has left memory, but is read back from disk
+		assertEquals(1, medianStringCache.size());
+		assertEquals("ACGT", medianStringCache.get("first", 4).getMedianString());
+		
+		MedianStringCache reopenedMedianStringCache = new MedianStringCache(MedianStringCache.DEFAULT_MAXIMUM_NUMBER_OF_ENTRIES, cacheFolder);
+		assertEquals(0, reopenedMedianStringCache.size());
+		ScoredMedianString scoredMedianString = reopenedMedianStringCache.get("second", 6);
+		assertEquals("TTTACG", scoredMedianString.getMedianString());
+		assertEquals(11, scoredMedianString.getScore());
+		assertEquals(7, reopenedMedianStringCache.get("first", 4).getScore());
+		assertNull(reopenedMedianStringCache.get("second", 4));
+		
+		//Only the entries themselves are left in the folder
+		String[] entryFileNames = cacheFolder.list();
+		Arrays.sort(entryFileNames);
+		assertEquals(Arrays.asList("first-4" + MedianStringCache.CACHE_FILE_EXTENSION, "second-6" + MedianStringCache.CACHE_FILE_EXTENSION), Arrays.asList(entryFileNames));
+		
+	}
+	
+	@Test
+	public void aFailedWriteLeavesNoTemporaryFile() throws Exception {
+		
+		//A folder that is not empty where the entry should go makes the move fail
+		File cacheFolder = new File(this.temporaryDirectory, "cache");
+		File blockingFolder = new File(cacheFolder, "blocked-4" + MedianStringCache.CACHE_FILE_EXTENSION);
+		assertTrue(blockingFolder.mkdirs());
+		Files.createFile(new File(blockingFolder, "content").toPath());
+		
+		MedianStringCache medianStringCache = new MedianStringCache(1, cacheFolder);
+		medianStringCache.put("blocked", 4, new ScoredMedianString("ACGT", 7));
+		
+		//The entry is still kept in memory
+		assertEquals(7, medianStringCache.get("blocked", 4).getScore());
+		assertEquals(Arrays.asList(blockingFolder.getName()), Arrays.asList(cacheFolder.list()));
+		
+	}
+	
+	@Test
+	public void singleAndBothStrandResultsHaveTheirOwnEntries() throws Exception {
+		
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(161), 5, 20, 30, "AACGTG");
+		PackedDnaSequence[] packedDnaSequences = BruteForceMedianStrings.getPackedDnaSequences(dnaSequences);
+		String digest = MedianStringCache.getDigest(packedDnaSequences);
+		MedianStringCache medianStringCache = new MedianStringCache(MedianStringCache.DEFAULT_MAXIMUM_NUMBER_OF_ENTRIES, new File(this.temporaryDirectory, "cache"));
+		
+		MedianStringFinder medianStringFinder = new MedianStringFinder(packedDnaSequences);
+		medianStringFinder.setMedianStringCache(medianStringCache);
+		ScoredMedianString singleStrandMedianString = medianStringFinder.findScoredMedianString(6, 1);
+		medianStringFinder.setReverseComplementScored(true);
+		ScoredMedianString bothStrandMedianString = medianStringFinder.findScoredMedianString(6, 1);
+		
+		assertEquals(2, medianStringCache.size());
+		assertEquals(singleStrandMedianString.getScore(), medianStringCache.get(digest, 6).getScore());
+		assertEquals(bothStrandMedianString.getScore(), medianStringCache.get(digest + MedianStringFinder.REVERSE_COMPLEMENT_DIGEST_SUFFIX, 6).getScore());
+		assertEquals(BruteForceMedianStrings.getScore(dnaSequences, singleStrandMedianString.getMedianString(), false), singleStrandMedianString.getScore());
+		assertEquals(BruteForceMedianStrings.getScore(dnaSequences, bothStrandMedianString.getMedianString(), true), bothStrandMedianString.getScore());
+		
+		//An entry planted under one strand key is only answered to finders with that strand setting
+		medianStringCache.put(digest + MedianStringFinder.REVERSE_COMPLEMENT_DIGEST_SUFFIX, 7, new ScoredMedianString("AAAAAAA", -1));
+		assertEquals(-1, medianStringFinder.findScoredMedianString(7, 1).getScore());
+		medianStringFinder.setReverseComplementScored(false);
+		ScoredMedianString searchedMedianString = medianStringFinder.findScoredMedianString(7, 1);
+		assertEquals(BruteForceMedianStrings.getScore(dnaSequences, searchedMedianString.getMedianString(), false), searchedMedianString.getScore());
+		assertEquals(4, medianStringCache.size());
+		
+		//A digest of other DNA sequences has no entries
+		String otherDigest = MedianStringCache.getDigest(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences.subList(1, dnaSequences.size())));
+		assertNotEquals(digest, otherDigest);
+		assertNull(medianStringCache.get(otherDigest, 6));
+		
+	}
+	
+}
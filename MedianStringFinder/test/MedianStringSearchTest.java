@@ -0,0 +1,69 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * The incremental branch and bound search against scoring every candidate
+ */
+public class MedianStringSearchTest {
+
+	private static final long KMER_DISTANCE_INDEX_MEMORY_BUDGET = MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET;
+	
+	@AfterEach
+	public void restoreKmerDistanceIndexMemoryBudget() {
+		MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET = KMER_DISTANCE_INDEX_MEMORY_BUDGET;
+	}
+	
+	@Test
+	public void incrementalScoresFindTheBestCandidate() throws Exception {
+		
+		//Without the k-mer index every leaf is scored by the incremental mismatch counts
+		MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET = 0;
+		checkAgainstEveryCandidate(new Random(11));
+		
+	}
+	
+	@Test
+	public void searchWithKmerDistanceIndexFindsTheBestCandidate() throws Exception {
+		checkAgainstEveryCandidate(new Random(12));
+	}
+	
+	@Test
+	public void searchWithoutSeedFindsTheBestCandidate() throws Exception {
+		
+		Random randomNumberGenerator = new Random(13);
+		for (int caseCounter = 0; caseCounter < 10; ++caseCounter) {
+			int medianStringLength = 1 + caseCounter % 5;
+			List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 5, 12, 30, BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, medianStringLength));
+			MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+			medianStringFinder.setHeuristicSeedingEnabled(false);
+			assertEquals(BruteForceMedianStrings.getScoredCandidates(dnaSequences, medianStringLength, false).get(0).toString(), medianStringFinder.findScoredMedianString(medianStringLength, 1).toString());
+		}
+		
+	}
+	
+	/**
+	 * @param randomNumberGenerator
+	 * Search small random problems at every parallelism and compare with the best candidate, ties included
+	 * @throws Exception
+	 */
+	private void checkAgainstEveryCandidate(Random randomNumberGenerator) throws Exception {
+		
+		for (int caseCounter = 0; caseCounter < 24; ++caseCounter) {
+			int medianStringLength = 1 + caseCounter % 6;
+			List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 3 + randomNumberGenerator.nextInt(5), 10, 40, BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, medianStringLength));
+			String expectedMedianString = BruteForceMedianStrings.getScoredCandidates(dnaSequences, medianStringLength, false).get(0).toString();
+			for (int parallelism = 1; parallelism <= 3; ++parallelism) {
+				MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+				assertEquals(expectedMedianString, medianStringFinder.findScoredMedianString(medianStringLength, parallelism).toString(), dnaSequences + " parallelism " + parallelism);
+			}
+		}
+		
+	}
+	
+}
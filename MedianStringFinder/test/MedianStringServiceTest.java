@@ -0,0 +1,285 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Requests sent to a service that listens on a socket in this process
+ */
+public class MedianStringServiceTest {
+
+	private static final String LOCAL_HOST = "127.0.0.1";
+	
+	@TempDir
+	File temporaryDirectory;
+	
+	private ServerSocket serverSocket;
+	private Thread serviceThread;
+	private AtomicReference<Exception> serviceFailure = new AtomicReference<Exception>();
+	
+	@BeforeEach
+	public void startService() throws Exception {
+		
+		MedianStringService medianStringService = new MedianStringService(2, 1, new MedianStringCache());
+		this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName(LOCAL_HOST));
+		this.serviceThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					medianStringService.serve(serverSocket);
+				} catch (Exception e) {
+					serviceFailure.set(e);
+				}
+			}
+		});
+		this.serviceThread.start();
+		
+	}
+	
+	@AfterEach
+	public void stopService() throws Exception {
+		
+		if (!this.serverSocket.isClosed()) {
+			try (MedianStringServiceClient medianStringServiceClient = newClient()) {
+				medianStringServiceClient.send(MedianStringService.SHUTDOWN_REQUEST);
+			}
+		}
+		this.serviceThread.join(30000);
+		this.serverSocket.close();
+		if (this.serviceFailure.get() != null) {
+			throw this.serviceFailure.get();
+		}
+		
+	}
+	
+	@Test
+	public void identicalFindsAtTheSameTimeRunOneSearch() throws Exception {
+		
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(121), 12, 300, 400, "CATGGTCA");
+		String expectedMedianString = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences)).findScoredMedianString(8, 1).toString();
+		try (MedianStringServiceClient medianStringServiceClient = newClient()) {
+			assertEquals(dnaSequences.size(), medianStringServiceClient.load("motif", writeFasta("motif.fasta", dnaSequences).getPath()));
+		}
+		
+		//Every client sends the same FIND as soon as all of them are connected
+		int numberOfClients = 6;
+		CountDownLatch startSignal = new CountDownLatch(1);
+		ExecutorService clientThreads = Executors.newFixedThreadPool(numberOfClients);
+		List<Future<String>> responses = new ArrayList<Future<String>>();
+		try {
+			for (int clientCounter = 0; clientCounter < numberOfClients; ++clientCounter) {
+				final MedianStringServiceClient medianStringServiceClient = newClient();
+				responses.add(clientThreads.submit(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						try {
+							startSignal.await();
+							return medianStringServiceClient.send("FIND motif 8 parallelism=1");
+						} finally {
+							medianStringServiceClient.close();
+						}
+					}
+				}));
+			}
+			startSignal.countDown();
+			
+			int numberOfSearchedResponses = 0;
+			for (Future<String> response : responses) {
+				String[] fields = response.get().split(MedianStringService.FIELD_SEPARATOR_REGEX);
+				assertEquals(MedianStringService.OK_RESPONSE, fields[0], response.get());
+				assertEquals(expectedMedianString, new ScoredMedianString(fields[1], Integer.parseInt(fields[2])).toString());
+				if (MedianStringService.SEARCHED_SOURCE.equals(fields[4])) {
+					++numberOfSearchedResponses;
+				} else {
+					assertTrue(MedianStringService.SHARED_SOURCE.equals(fields[4]) || MedianStringService.CACHED_SOURCE.equals(fields[4]), response.get());
+				}
+			}
+			assertEquals(1, numberOfSearchedResponses);
+		} finally {
+			clientThreads.shutdownNow();
+		}
+		
+		//STATUS gives sets, searches, shared requests and cached requests
+		try (MedianStringServiceClient medianStringServiceClient = newClient()) {
+			String[] fields = medianStringServiceClient.send(MedianStringService.STATUS_REQUEST).split(MedianStringService.FIELD_SEPARATOR_REGEX);
+			assertEquals("1", fields[1]);
+			assertEquals("1", fields[2]);
+			assertEquals(numberOfClients - 1, Integer.parseInt(fields[3]) + Integer.parseInt(fields[4]));
+		}
+		
+	}
+	
+	@Test
+	public void repeatedFindsComeFromTheCacheAndStrandsAreKeptApart() throws Exception {
+		
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(122), 8, 30, 50, "GATTC");
+		try (MedianStringServiceClient medianStringServiceClient = newClient()) {
+			medianStringServiceClient.load("motif", writeFasta("motif.fasta", dnaSequences).getPath());
+			
+			String singleStrandMedianString = getExpectedMedianString(dnaSequences, 5, false), bothStrandMedianString = getExpectedMedianString(dnaSequences, 5, true);
+			assertFind(medianStringServiceClient, "FIND motif 5", singleStrandMedianString, MedianStringService.SEARCHED_SOURCE);
+			assertFind(medianStringServiceClient, "FIND motif 5 strands=1", singleStrandMedianString, MedianStringService.CACHED_SOURCE);
+			assertFind(medianStringServiceClient, "FIND motif 5 strands=2", bothStrandMedianString, MedianStringService.SEARCHED_SOURCE);
+			assertFind(medianStringServiceClient, "FIND motif 5 strands=2 parallelism=2", bothStrandMedianString, MedianStringService.CACHED_SOURCE);
+		}
+		
+	}
+	
+	@Test
+	public void loadReplacesTheSetUnderTheSameId() throws Exception {
+		
+		List<String> firstDnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(123), 8, 30, 50, "AAAACC");
+		List<String> secondDnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(124), 8, 30, 50, "GTGTGT");
+		String firstMedianString = getExpectedMedianString(firstDnaSequences, 6, false), secondMedianString = getExpectedMedianString(secondDnaSequences, 6, false);
+		assertNotEquals(firstMedianString, secondMedianString);
+		
+		try (MedianStringServiceClient medianStringServiceClient = newClient()) {
+			medianStringServiceClient.load("motif", writeFasta("first.fasta", firstDnaSequences).getPath());
+			assertFind(medianStringServiceClient, "FIND motif 6", firstMedianString, MedianStringService.SEARCHED_SOURCE);
+			
+			//The cached result of the first set is not given for the second one
+			medianStringServiceClient.load("motif", writeFasta("second.fasta", secondDnaSequences).getPath());
+			assertFind(medianStringServiceClient, "FIND motif 6", secondMedianString, MedianStringService.SEARCHED_SOURCE);
+			
+			medianStringServiceClient.drop("motif");
+			assertTrue(medianStringServiceClient.send("FIND motif 6").startsWith(MedianStringService.ERROR_RESPONSE));
+		}
+		
+	}
+	
+	@Test
+	public void invalidRequestsGetErrors() throws Exception {
+		
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(125), 4, 20, 30, null);
+		try (MedianStringServiceClient medianStringServiceClient = newClient()) {
+			medianStringServiceClient.load("random", writeFasta("random.fasta", dnaSequences).getPath());
+			
+			String[] invalidRequests = {
+				"FIND missing 4",
+				"FIND random 0",
+				"FIND random 31",
+				"FIND random four",
+				"FIND random 4 strands=0",
+				"FIND random 4 strands=3",
+				"FIND random 4 strands=two",
+				"FIND random 4 threads=2",
+				"LOAD other " + new File(this.temporaryDirectory, "missing.fasta").getPath(),
+				"OPEN other " + new File(this.temporaryDirectory, "missing.pack").getPath(),
+				"DROP missing",
+				"FIND",
+				"STATUS now",
+				"SEARCH random 4"
+			};
+			for (String invalidRequest : invalidRequests) {
+				assertTrue(medianStringServiceClient.send(invalidRequest).startsWith(MedianStringService.ERROR_RESPONSE + MedianStringService.FIELD_SEPARATOR), invalidRequest);
+			}
+			
+			//The connection and the set are still usable after the errors
+			assertTrue(medianStringServiceClient.send("FIND random 4 strands=1").startsWith(MedianStringService.OK_RESPONSE), "FIND after errors");
+			assertEquals("OK 1 1 0 0", medianStringServiceClient.send(MedianStringService.STATUS_REQUEST));
+		}
+		
+	}
+	
+	@Test
+	public void shutdownClosesOpenConnections() throws Exception {
+		
+		try (MedianStringServiceClient idleClient = newClient(); MedianStringServiceClient medianStringServiceClient = newClient()) {
+			
+			//The idle client is served before the shutdown, so its connection is open when the service stops
+			assertTrue(idleClient.send(MedianStringService.STATUS_REQUEST).startsWith(MedianStringService.OK_RESPONSE));
+			assertEquals(MedianStringService.OK_RESPONSE, medianStringServiceClient.send(MedianStringService.SHUTDOWN_REQUEST));
+			this.serviceThread.join(30000);
+			assertTrue(!this.serviceThread.isAlive(), "The service is still serving after SHUTDOWN.");
+			
+			try {
+				idleClient.send(MedianStringService.STATUS_REQUEST);
+				fail("A connection is still answered after SHUTDOWN.");
+			} catch (IOException e) {
+				//The service closed the connection
+			}
+		}
+		
+	}
+	
+	/**
+	 * @param medianStringServiceClient
+	 * @param findRequest
+	 * @param expectedMedianString - median string and score
+	 * @param expectedSource - where the result should come from
+	 * @throws IOException
+	 */
+	private static void assertFind(MedianStringServiceClient medianStringServiceClient, String findRequest, String expectedMedianString, String expectedSource) throws IOException {
+		
+		String response = medianStringServiceClient.send(findRequest);
+		String[] fields = response.split(MedianStringService.FIELD_SEPARATOR_REGEX);
+		assertEquals(MedianStringService.OK_RESPONSE, fields[0], response);
+		assertEquals(expectedMedianString, new ScoredMedianString(fields[1], Integer.parseInt(fields[2])).toString(), findRequest);
+		assertEquals(expectedSource, fields[4], findRequest);
+		
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @param medianStringLength
+	 * @param reverseComplementScored
+	 * @return median string and score that a finder of its own gives
+	 * @throws Exception
+	 */
+	private static String getExpectedMedianString(List<String> dnaSequences, int medianStringLength, boolean reverseComplementScored) throws Exception {
+		
+		MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+		medianStringFinder.setReverseComplementScored(reverseComplementScored);
+		return medianStringFinder.findScoredMedianString(medianStringLength, 1).toString();
+		
+	}
+	
+	/**
+	 * @return a client connected to the service
+	 * @throws IOException
+	 */
+	private MedianStringServiceClient newClient() throws IOException {
+		return new MedianStringServiceClient(LOCAL_HOST, this.serverSocket.getLocalPort());
+	}
+	
+	/**
+	 * @param fileName
+	 * @param dnaSequences
+	 * @return a FASTA file in the temporary directory with one record per DNA sequence
+	 * @throws Exception
+	 */
+	private File writeFasta(String fileName, List<String> dnaSequences) throws Exception {
+		
+		StringBuffer fasta = new StringBuffer();
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < dnaSequences.size(); ++dnaSequenceCounter) {
+			fasta.append(">sequence").append(dnaSequenceCounter).append('\n').append(dnaSequences.get(dnaSequenceCounter)).append('\n');
+		}
+		File fastaFile = new File(this.temporaryDirectory, fileName);
+		Files.write(fastaFile.toPath(), fasta.toString().getBytes(StandardCharsets.US_ASCII));
+		return fastaFile;
+		
+	}
+	
+}
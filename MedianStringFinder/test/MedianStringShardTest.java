@@ -0,0 +1,184 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Sharded searches with coordinators and workers that talk over sockets in this process
+ */
+public class MedianStringShardTest {
+
+	private static final String LOCAL_HOST = "127.0.0.1";
+	
+	@Test
+	public void shardedSearchMatchesTheLocalSearch() throws Exception {
+		
+		PackedDnaSequence[] dnaSequences = BruteForceMedianStrings.getPackedDnaSequences(BruteForceMedianStrings.getRandomDnaSequences(new Random(111), 10, 40, 60, "TACGGA"));
+		MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+		ScoredMedianString localMedianString = medianStringFinder.findScoredMedianString(6, 1);
+		
+		try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName(LOCAL_HOST))) {
+			MedianStringShardCoordinator medianStringShardCoordinator = new MedianStringShardCoordinator(medianStringFinder, 6, 2, 1);
+			medianStringShardCoordinator.setWorkerTimeout(30000);
+			List<Thread> workerThreads = new ArrayList<Thread>();
+			for (int workerCounter = 1; workerCounter <= 2; ++workerCounter) {
+				workerThreads.add(startWorker(serverSocket.getLocalPort(), workerCounter, new AtomicReference<Exception>()));
+			}
+			assertEquals(localMedianString.toString(), medianStringShardCoordinator.search(serverSocket).toString());
+			assertEquals(0, medianStringShardCoordinator.getSearchStatistics().getWorkersLost());
+			for (Thread workerThread : workerThreads) {
+				workerThread.join(30000);
+			}
+		}
+		
+	}
+	
+	@Test
+	public void lostWorkersAreCountedAndTheirShardsSearchedByOthers() throws Exception {
+		
+		PackedDnaSequence[] dnaSequences = BruteForceMedianStrings.getPackedDnaSequences(BruteForceMedianStrings.getRandomDnaSequences(new Random(112), 8, 30, 50, "GGCATC"));
+		MedianStringFinder medianStringFinder = new MedianStringFinder(dnaSequences);
+		ScoredMedianString localMedianString = medianStringFinder.findScoredMedianString(6, 1);
+		
+		try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName(LOCAL_HOST))) {
+			MedianStringShardCoordinator medianStringShardCoordinator = new MedianStringShardCoordinator(medianStringFinder, 6, 2, 1);
+			medianStringShardCoordinator.setWorkerTimeout(30000);
+			
+			//A worker that takes four shards and goes away without answering
+			Thread lostWorkerThread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try (Socket socket = new Socket(LOCAL_HOST, serverSocket.getLocalPort())) {
+						DataOutputStream outputStream = new DataOutputStream(socket.getOutputStream());
+						outputStream.writeByte(MedianStringShardProtocol.HELLO);
+						outputStream.writeInt(4);
+						outputStream.flush();
+						DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+						int numberOfShards = 0;
+						while (numberOfShards < 4) {
+							byte messageType = inputStream.readByte();
+							if (messageType == MedianStringShardProtocol.PROBLEM) {
+								inputStream.readInt();
+								inputStream.readBoolean();
+								MedianStringShardProtocol.readSuffixLowerBounds(inputStream);
+								MedianStringShardProtocol.readDnaSequences(inputStream);
+							} else if (messageType == MedianStringShardProtocol.BOUND) {
+								MedianStringShardProtocol.readBound(inputStream);
+							} else if (messageType == MedianStringShardProtocol.SHARD) {
+								inputStream.readUTF();
+								++numberOfShards;
+							}
+						}
+					} catch (Exception e) {
+						//The coordinator only needs to see the connection drop
+					}
+				}
+			});
+			lostWorkerThread.start();
+			lostWorkerThread.join(30000);
+			
+			Thread workerThread = startWorker(serverSocket.getLocalPort(), 2, new AtomicReference<Exception>());
+			assertEquals(localMedianString.toString(), medianStringShardCoordinator.search(serverSocket).toString());
+			assertEquals(1, medianStringShardCoordinator.getSearchStatistics().getWorkersLost());
+			assertEquals(4, medianStringShardCoordinator.getSearchStatistics().getShardsHandedOutAgain());
+			workerThread.join(30000);
+		}
+		
+	}
+	
+	@Test
+	public void coordinatorGivesUpWithoutWorkers() throws Exception {
+		
+		MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(List.of("ACGTACGTAC", "GATTACAGAT")));
+		try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName(LOCAL_HOST))) {
+			MedianStringShardCoordinator medianStringShardCoordinator = new MedianStringShardCoordinator(medianStringFinder, 4, 2, 1);
+			medianStringShardCoordinator.setWorkerTimeout(200);
+			long startTime = System.currentTimeMillis();
+			try {
+				medianStringShardCoordinator.search(serverSocket);
+				fail("The search finished without any worker.");
+			} catch (Exception e) {
+				assertTrue(e.getMessage().contains("No shard worker"), e.getMessage());
+			}
+			assertTrue(System.currentTimeMillis() - startTime < 10000);
+			assertTrue(serverSocket.isClosed());
+		}
+		
+	}
+	
+	@Test
+	public void workerDoesNotEchoCoordinatorBounds() throws Exception {
+		
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(113), 6, 20, 30, "CAGT");
+		PackedDnaSequence[] packedDnaSequences = BruteForceMedianStrings.getPackedDnaSequences(dnaSequences);
+		ScoredMedianString medianString = BruteForceMedianStrings.getScoredCandidates(dnaSequences, 4, false).get(0);
+		
+		//Play the coordinator: send the median string itself as the bound and the whole tree as one shard
+		try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName(LOCAL_HOST))) {
+			AtomicReference<Exception> workerFailure = new AtomicReference<Exception>();
+			Thread workerThread = startWorker(serverSocket.getLocalPort(), 1, workerFailure);
+			try (Socket socket = serverSocket.accept()) {
+				DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				assertEquals(MedianStringShardProtocol.HELLO, inputStream.readByte());
+				inputStream.readInt();
+				MedianStringShardProtocol.writeProblem(outputStream, packedDnaSequences, false, 4, new int[5]);
+				MedianStringShardProtocol.writeBound(outputStream, medianString);
+				outputStream.writeByte(MedianStringShardProtocol.SHARD);
+				outputStream.writeUTF(MedianStringFinder.EMPTY_STRING);
+				outputStream.flush();
+				
+				byte messageType = inputStream.readByte();
+				if (messageType == MedianStringShardProtocol.BOUND) {
+					fail("The worker sent back " + MedianStringShardProtocol.readBound(inputStream) + ", which it got from the coordinator.");
+				}
+				assertEquals(MedianStringShardProtocol.RESULT, messageType);
+				assertEquals(MedianStringFinder.EMPTY_STRING, inputStream.readUTF());
+				outputStream.writeByte(MedianStringShardProtocol.DONE);
+				outputStream.flush();
+			}
+			workerThread.join(30000);
+			assertEquals(null, workerFailure.get());
+		}
+		
+	}
+	
+	/**
+	 * @param port - port of the coordinator
+	 * @param numberOfThreads
+	 * @param workerFailure - set to what the worker throws, if anything
+	 * @return the thread that runs the worker until the coordinator is done with it
+	 */
+	private static Thread startWorker(final int port, final int numberOfThreads, final AtomicReference<Exception> workerFailure) {
+		
+		Thread workerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					new MedianStringShardWorker(numberOfThreads).run(LOCAL_HOST, port);
+				} catch (Exception e) {
+					workerFailure.set(e);
+				}
+			}
+		});
+		workerThread.setDaemon(true);
+		workerThread.start();
+		return workerThread;
+		
+	}
+	
+}
@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * A sweep over a range of median string lengths against a separate search of each length. Every score of the
+ * sweep becomes a suffix lower bound of the longer lengths, so a score that is not exact would show up here.
+ */
+public class MedianStringSweepTest {
+
+	private final int suffixLowerBoundExactLength = MedianStringFinder.SUFFIX_LOWER_BOUND_EXACT_LENGTH;
+	
+	@AfterEach
+	public void restoreTunables() {
+		MedianStringFinder.SUFFIX_LOWER_BOUND_EXACT_LENGTH = suffixLowerBoundExactLength;
+	}
+	
+	@Test
+	public void everyLengthMatchesItsOwnSearch() throws Exception {
+		
+		Random randomNumberGenerator = new Random(131);
+		for (int caseCounter = 0; caseCounter < 16; ++caseCounter) {
+			
+			//Short exactly solved lengths leave most of the bounds to the sweep
+			MedianStringFinder.SUFFIX_LOWER_BOUND_EXACT_LENGTH = caseCounter % 3;
+			boolean reverseComplementScored = caseCounter % 2 == 1;
+			int minimumLength = 1 + caseCounter % 3, maximumLength = minimumLength + 3 + caseCounter % 3;
+			List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 3 + caseCounter % 4, 12, 40, BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, maximumLength));
+			
+			MedianStringFinder sweepMedianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+			sweepMedianStringFinder.setReverseComplementScored(reverseComplementScored);
+			List<ScoredMedianString> sweptMedianStrings = sweepMedianStringFinder.findMedianStrings(minimumLength, maximumLength, 1 + caseCounter % 2);
+			assertEquals(maximumLength - minimumLength + 1, sweptMedianStrings.size());
+			
+			for (int targetLength = minimumLength; targetLength <= maximumLength; ++targetLength) {
+				MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+				medianStringFinder.setReverseComplementScored(reverseComplementScored);
+				ScoredMedianString scoredMedianString = medianStringFinder.findScoredMedianString(targetLength, 1);
+				ScoredMedianString sweptMedianString = sweptMedianStrings.get(targetLength - minimumLength);
+				
+				//Tied median strings may differ, but the scores may not, and the swept one must really have its score
+				String message = dnaSequences + " length " + targetLength + (reverseComplementScored ? " on both strands" : "");
+				assertEquals(targetLength, sweptMedianString.getMedianString().length(), message);
+				assertEquals(scoredMedianString.getScore(), sweptMedianString.getScore(), message);
+				assertEquals(BruteForceMedianStrings.getScore(dnaSequences, sweptMedianString.getMedianString(), reverseComplementScored), sweptMedianString.getScore(), message);
+			}
+			
+		}
+		
+	}
+	
+	@Test
+	public void rangesThatAreNotPositiveLengthsAreRejected() throws Exception {
+		
+		MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(BruteForceMedianStrings.getRandomDnaSequences(new Random(132), 3, 10, 10, null)));
+		int[][] invalidRanges = {{0, 4}, {-2, 4}, {5, 4}, {3, 11}};
+		for (int[] invalidRange : invalidRanges) {
+			try {
+				medianStringFinder.findMedianStrings(invalidRange[0], invalidRange[1], 1);
+				fail("Median string lengths " + invalidRange[0] + " to " + invalidRange[1] + " were searched.");
+			} catch (IllegalArgumentException e) {
+				//The range is rejected before any search
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * The online finder against every candidate scored from scratch after each added or removed sequence
+ */
+public class OnlineMedianStringFinderTest {
+
+	@Test
+	public void medianStringsStayExactThroughAddsAndRemoves() throws Exception {
+		
+		Random randomNumberGenerator = new Random(81);
+		for (int frontierSize : new int[] {1, 4, OnlineMedianStringFinder.DEFAULT_FRONTIER_SIZE}) {
+			for (int strandCounter = 0; strandCounter < 2; ++strandCounter) {
+				boolean bothStrands = strandCounter == 1;
+				int medianStringLength = 3 + strandCounter + frontierSize % 3;
+				String motif = BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, medianStringLength);
+				OnlineMedianStringFinder onlineMedianStringFinder = new OnlineMedianStringFinder(medianStringLength, 2, frontierSize);
+				onlineMedianStringFinder.setReverseComplementScored(bothStrands);
+				List<String> dnaSequences = new ArrayList<String>();
+				List<PackedDnaSequence> packedDnaSequences = new ArrayList<PackedDnaSequence>();
+				
+				for (int stepCounter = 0; stepCounter < 40; ++stepCounter) {
+					if (dnaSequences.size() > 1 && randomNumberGenerator.nextInt(3) == 0) {
+						int dnaSequenceCounter = randomNumberGenerator.nextInt(dnaSequences.size());
+						dnaSequences.remove(dnaSequenceCounter);
+						assertTrue(onlineMedianStringFinder.removeSequence(packedDnaSequences.remove(dnaSequenceCounter)));
+					} else {
+						String dnaSequence = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 1, medianStringLength, 30, stepCounter % 2 == 0 ? motif : null).get(0);
+						PackedDnaSequence packedDnaSequence = Nucleotide.getPackedDnaSequence(dnaSequence);
+						dnaSequences.add(dnaSequence);
+						packedDnaSequences.add(packedDnaSequence);
+						onlineMedianStringFinder.addSequence(packedDnaSequence);
+					}
+					assertEquals(dnaSequences.size(), onlineMedianStringFinder.getNumberOfDnaSequences());
+					assertEquals(BruteForceMedianStrings.getScoredCandidates(dnaSequences, medianStringLength, bothStrands).get(0).toString(), onlineMedianStringFinder.getScoredMedianString().toString(), "frontier " + frontierSize + " step " + stepCounter + " " + dnaSequences);
+				}
+			}
+		}
+		
+	}
+	
+	@Test
+	public void frontierAnswersWithoutSearching() throws Exception {
+		
+		//Every added sequence holds the motif exactly, so once there are a few it stays the only median string scoring zero
+		String motif = "GGATCCTA";
+		Random randomNumberGenerator = new Random(82);
+		OnlineMedianStringFinder onlineMedianStringFinder = new OnlineMedianStringFinder(motif.length(), 1);
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < 10; ++dnaSequenceCounter) {
+			onlineMedianStringFinder.addSequence(Nucleotide.getPackedDnaSequence(BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, 15) + motif + BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, 15)));
+			if (dnaSequenceCounter >= 2) {
+				assertEquals(motif + " (0)", onlineMedianStringFinder.getScoredMedianString().toString());
+			}
+		}
+		assertTrue(onlineMedianStringFinder.getNumberOfSearches() < 8, onlineMedianStringFinder.getNumberOfSearches() + " searches");
+		
+	}
+	
+	@Test
+	public void onlyTheAddedSequenceObjectIsRemoved() throws Exception {
+		
+		OnlineMedianStringFinder onlineMedianStringFinder = new OnlineMedianStringFinder(3, 1);
+		PackedDnaSequence dnaSequence = Nucleotide.getPackedDnaSequence("ACGTTGCA");
+		onlineMedianStringFinder.addSequence(dnaSequence);
+		assertFalse(onlineMedianStringFinder.removeSequence(Nucleotide.getPackedDnaSequence("ACGTTGCA")));
+		assertTrue(onlineMedianStringFinder.removeSequence(dnaSequence));
+		assertFalse(onlineMedianStringFinder.removeSequence(dnaSequence));
+		assertEquals(0, onlineMedianStringFinder.getNumberOfDnaSequences());
+		
+	}
+	
+}
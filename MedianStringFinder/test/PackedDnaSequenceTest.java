@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * The packed XOR and bit count kernel against base by base comparison of plain strings
+ */
+public class PackedDnaSequenceTest {
+
+	@Test
+	public void packedSequencesKeepTheirBases() throws Exception {
+		
+		Random randomNumberGenerator = new Random(1);
+		for (int length = 0; length <= 3 * PackedDnaSequence.BASES_PER_WORD + 1; ++length) {
+			String dnaSequence = BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, length);
+			PackedDnaSequence packedDnaSequence = Nucleotide.getPackedDnaSequence(dnaSequence);
+			assertEquals(length, packedDnaSequence.getLength());
+			assertEquals(dnaSequence, packedDnaSequence.toString());
+			assertEquals(BruteForceMedianStrings.getReverseComplement(dnaSequence), packedDnaSequence.getReverseComplement().toString());
+		}
+		
+	}
+	
+	@Test
+	public void wordsCountMismatchedBases() throws Exception {
+		
+		Random randomNumberGenerator = new Random(2);
+		for (int caseCounter = 0; caseCounter < 2000; ++caseCounter) {
+			String dnaSequence = BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, 1 + randomNumberGenerator.nextInt(100));
+			String pattern = BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, 1 + randomNumberGenerator.nextInt(Math.min(dnaSequence.length(), PackedDnaSequence.BASES_PER_WORD)));
+			int windowStartPosition = randomNumberGenerator.nextInt(dnaSequence.length() - pattern.length() + 1);
+			long patternWord = Nucleotide.getPackedDnaSequence(pattern).getWord(0), windowWord = Nucleotide.getPackedDnaSequence(dnaSequence).getWord(windowStartPosition);
+			assertEquals(BruteForceMedianStrings.getHammingDistance(dnaSequence, pattern, windowStartPosition), PackedDnaSequence.getHammingDistance(patternWord, windowWord, PackedDnaSequence.getLowBitsMask(pattern.length())));
+		}
+		
+	}
+	
+	@Test
+	public void slidingWindowFindsTheMinimumHammingDistance() throws Exception {
+		
+		//Patterns up to and past one word, and sequences that end anywhere in a word
+		Random randomNumberGenerator = new Random(3);
+		for (int caseCounter = 0; caseCounter < 5000; ++caseCounter) {
+			String dnaSequence = BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, 1 + randomNumberGenerator.nextInt(200));
+			String pattern = BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, 1 + randomNumberGenerator.nextInt(Math.min(dnaSequence.length(), 2 * PackedDnaSequence.BASES_PER_WORD + 3)));
+			int numberOfWindows = dnaSequence.length() - pattern.length() + 1;
+			if (caseCounter % 4 == 0) {
+				numberOfWindows = randomNumberGenerator.nextInt(numberOfWindows) + 1;
+			}
+			PackedDnaSequence packedDnaSequence = Nucleotide.getPackedDnaSequence(dnaSequence), packedPattern = Nucleotide.getPackedDnaSequence(pattern);
+			int expectedHammingDistance = BruteForceMedianStrings.getMinimumHammingDistance(dnaSequence, pattern, numberOfWindows, false);
+			assertEquals(expectedHammingDistance, packedDnaSequence.getMinimumHammingDistance(packedPattern, numberOfWindows), dnaSequence + " " + pattern);
+			assertEquals(expectedHammingDistance, new ScalarHammingDistanceKernel().getMinimumHammingDistance(packedDnaSequence, packedPattern, null, numberOfWindows));
+		}
+		
+	}
+	
+	@Test
+	public void totalMinimumHammingDistanceMatchesEveryCandidate() throws Exception {
+		
+		Random randomNumberGenerator = new Random(4);
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 6, 20, 70, null);
+		MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+		for (String candidate : BruteForceMedianStrings.getAllCandidates(4)) {
+			assertEquals(BruteForceMedianStrings.getScore(dnaSequences, candidate, false), medianStringFinder.getTotalMinimumHammingDistance(candidate), candidate);
+		}
+		
+	}
+	
+}
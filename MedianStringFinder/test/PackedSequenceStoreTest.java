@@ -0,0 +1,139 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Sequences written to a packed sequence store and searched through its mappings
+ */
+public class PackedSequenceStoreTest {
+
+	@TempDir
+	File temporaryDirectory;
+	
+	private final int suffixLowerBoundExactLength = MedianStringFinder.SUFFIX_LOWER_BOUND_EXACT_LENGTH;
+	private final long kmerDistanceIndexMemoryBudget = MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET;
+	
+	@AfterEach
+	public void restoreTunables() {
+		
+		MedianStringFinder.SUFFIX_LOWER_BOUND_EXACT_LENGTH = suffixLowerBoundExactLength;
+		MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET = kmerDistanceIndexMemoryBudget;
+		
+	}
+	
+	@Test
+	public void storedSequencesReadBackExactly() throws Exception {
+		
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(91), 20, 1, 200, null);
+		File storeFile = writeStore(dnaSequences);
+		try (PackedSequenceStore packedSequenceStore = new PackedSequenceStore(storeFile)) {
+			PackedDnaSequence[] storedDnaSequences = packedSequenceStore.getDnaSequences();
+			assertEquals(dnaSequences.size(), storedDnaSequences.length);
+			for (int dnaSequenceCounter = 0; dnaSequenceCounter < storedDnaSequences.length; ++dnaSequenceCounter) {
+				assertEquals(dnaSequences.get(dnaSequenceCounter), storedDnaSequences[dnaSequenceCounter].toString());
+			}
+		}
+		
+	}
+	
+	@Test
+	public void failedWriteLeavesTheOldStore() throws Exception {
+		
+		List<String> dnaSequences = Arrays.asList("ACGTACGT", "TTTTGGGG");
+		File storeFile = writeStore(dnaSequences);
+		File fastaFile = new File(this.temporaryDirectory, "broken.fasta");
+		Files.write(fastaFile.toPath(), ">first\nCCCCAAAA\n>second\nACGXT\n".getBytes(StandardCharsets.US_ASCII));
+		try (FastaReader fastaReader = new FastaReader(fastaFile)) {
+			PackedSequenceStore.write(storeFile, fastaReader);
+			fail("A FASTA file with an invalid base was written to the store.");
+		} catch (Exception e) {
+			//The reader fails on the second record, after the writer has taken the first one
+		}
+		
+		try (PackedSequenceStore packedSequenceStore = new PackedSequenceStore(storeFile)) {
+			PackedDnaSequence[] storedDnaSequences = packedSequenceStore.getDnaSequences();
+			assertEquals(dnaSequences.size(), storedDnaSequences.length);
+			for (int dnaSequenceCounter = 0; dnaSequenceCounter < storedDnaSequences.length; ++dnaSequenceCounter) {
+				assertEquals(dnaSequences.get(dnaSequenceCounter), storedDnaSequences[dnaSequenceCounter].toString());
+			}
+		}
+		String[] fileNames = this.temporaryDirectory.list();
+		Arrays.sort(fileNames);
+		assertArrayEquals(new String[] {fastaFile.getName(), storeFile.getName()}, fileNames);
+		
+	}
+	
+	@Test
+	public void searchDoesNotCopyTheMappedSequencesOntoTheHeap() throws Exception {
+		
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+		
+		//Only the search itself allocates, so its partial hamming distances are all it should need on top of small objects
+		MedianStringFinder.SUFFIX_LOWER_BOUND_EXACT_LENGTH = 0;
+		MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET = 0;
+		int medianStringLength = 4;
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(92), 8, 40000, 60000, "GTCA");
+		long packedBytes = 0, partialHammingDistanceBytes = 0;
+		for (String dnaSequence : dnaSequences) {
+			packedBytes += (long) PackedDnaSequence.getNumberOfWords(dnaSequence.length()) * Long.BYTES;
+			partialHammingDistanceBytes += (long) (dnaSequence.length() - medianStringLength + 1) * Integer.BYTES;
+		}
+		
+		File storeFile = writeStore(dnaSequences);
+		try (PackedSequenceStore packedSequenceStore = new PackedSequenceStore(storeFile)) {
+			PackedDnaSequence[] storedDnaSequences = packedSequenceStore.getDnaSequences();
+			MedianStringFinder medianStringFinder = new MedianStringFinder(storedDnaSequences);
+			medianStringFinder.setHeuristicSeedingEnabled(false);
+			for (int dnaSequenceCounter = 0; dnaSequenceCounter < storedDnaSequences.length; ++dnaSequenceCounter) {
+				assertSame(storedDnaSequences[dnaSequenceCounter], medianStringFinder.getDnaSequences()[dnaSequenceCounter]);
+			}
+			
+			//The first search loads and compiles classes, which allocates on the same thread
+			ScoredMedianString scoredMedianString = medianStringFinder.findScoredMedianString(medianStringLength, 1);
+			long allocatedBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			ScoredMedianString repeatedScoredMedianString = medianStringFinder.findScoredMedianString(medianStringLength, 1);
+			allocatedBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBytes;
+			
+			assertEquals(scoredMedianString.toString(), repeatedScoredMedianString.toString());
+			assertTrue(allocatedBytes - partialHammingDistanceBytes < packedBytes / 4, allocatedBytes + " bytes allocated by a search of " + packedBytes + " packed bytes with " + partialHammingDistanceBytes + " bytes of partial hamming distances");
+			assertEquals(new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences)).findScoredMedianString(medianStringLength, 1).toString(), scoredMedianString.toString());
+		}
+		
+	}
+	
+	/**
+	 * @param dnaSequences
+	 * @return a store file in the temporary directory holding the DNA sequences
+	 * @throws Exception
+	 */
+	private File writeStore(List<String> dnaSequences) throws Exception {
+		
+		File storeFile = new File(this.temporaryDirectory, "dnaSequences.pack");
+		try (PackedSequenceStore.Writer writer = new PackedSequenceStore.Writer(storeFile)) {
+			for (String dnaSequence : dnaSequences) {
+				writer.add(Nucleotide.getPackedDnaSequence(dnaSequence));
+			}
+	writer.finish();
+		}
+		return storeFile;
+		
+	}
+	
+}
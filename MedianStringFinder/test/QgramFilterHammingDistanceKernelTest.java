@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * The q-gram filter against the scalar kernel and against plain string window scans, on sequences long
+ * enough for the filter to engage and with patterns planted within a few mismatches
+ */
+public class QgramFilterHammingDistanceKernelTest {
+
+	@Test
+	public void filteredDistancesMatchFullScans() throws Exception {
+		
+		Random randomNumberGenerator = new Random(71);
+		final AtomicInteger numberOfFullScans = new AtomicInteger();
+		final HammingDistanceKernel scalarHammingDistanceKernel = new ScalarHammingDistanceKernel();
+		HammingDistanceKernel qgramFilterHammingDistanceKernel = new QgramFilterHammingDistanceKernel(new HammingDistanceKernel() {
+			@Override
+			public int getMinimumHammingDistance(PackedDnaSequence dnaSequence, PackedDnaSequence pattern, PackedDnaSequence reverseComplementPattern, int numberOfWindows) {
+				numberOfFullScans.incrementAndGet();
+				return scalarHammingDistanceKernel.getMinimumHammingDistance(dnaSequence, pattern, reverseComplementPattern, numberOfWindows);
+			}
+		});
+		
+		int numberOfCases = 0;
+		for (int dnaSequenceLength : new int[] {700, 5000, 20000}) {
+			String dnaSequence = BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, dnaSequenceLength);
+			PackedDnaSequence packedDnaSequence = Nucleotide.getPackedDnaSequence(dnaSequence);
+			for (int patternLength : new int[] {3, 8, 13, 21, 32, 40}) {
+				for (int numberOfMutations = 0; numberOfMutations <= 6; ++numberOfMutations) {
+					for (int strandCounter = 0; strandCounter < 2; ++strandCounter) {
+						boolean bothStrands = strandCounter == 1;
+						String pattern = getPlantedPattern(randomNumberGenerator, dnaSequence, patternLength, numberOfMutations, bothStrands);
+						PackedDnaSequence packedPattern = Nucleotide.getPackedDnaSequence(pattern);
+						PackedDnaSequence reverseComplementPattern = bothStrands ? packedPattern.getReverseComplement() : null;
+						
+						//All the windows, and only the first part of them as a search with a longer median string would
+						for (int numberOfWindows : new int[] {dnaSequenceLength - patternLength + 1, dnaSequenceLength / 3}) {
+							int expectedHammingDistance = BruteForceMedianStrings.getMinimumHammingDistance(dnaSequence, pattern, numberOfWindows, bothStrands);
+							assertEquals(expectedHammingDistance, scalarHammingDistanceKernel.getMinimumHammingDistance(packedDnaSequence, packedPattern, reverseComplementPattern, numberOfWindows));
+							assertEquals(expectedHammingDistance, qgramFilterHammingDistanceKernel.getMinimumHammingDistance(packedDnaSequence, packedPattern, reverseComplementPattern, numberOfWindows), pattern + " in " + dnaSequenceLength + " bases over " + numberOfWindows + " windows");
+							++numberOfCases;
+						}
+					}
+				}
+			}
+		}
+		
+		//Close matches in long sequences are proven by the filter alone
+		assertTrue(numberOfFullScans.get() < numberOfCases / 2, numberOfFullScans + " full scans for " + numberOfCases + " distances");
+		
+	}
+	
+	@Test
+	public void filteredScoresMatchTheScalarKernel() throws Exception {
+		
+		Random randomNumberGenerator = new Random(72);
+		String motif = "ACGGTCATTGCA";
+		PackedDnaSequence[] dnaSequences = BruteForceMedianStrings.getPackedDnaSequences(BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 6, 3000, 6000, motif));
+		for (int strandCounter = 0; strandCounter < 2; ++strandCounter) {
+			MedianStringFinder scalarMedianStringFinder = new MedianStringFinder(dnaSequences);
+			MedianStringFinder qgramFilterMedianStringFinder = new MedianStringFinder(dnaSequences);
+			qgramFilterMedianStringFinder.setHammingDistanceKernel(new QgramFilterHammingDistanceKernel());
+			scalarMedianStringFinder.setReverseComplementScored(strandCounter == 1);
+			qgramFilterMedianStringFinder.setReverseComplementScored(strandCounter == 1);
+			for (int candidateCounter = 0; candidateCounter < 200; ++candidateCounter) {
+				char[] candidate = motif.toCharArray();
+				for (int mutationCounter = candidateCounter % 5; mutationCounter > 0; --mutationCounter) {
+					candidate[randomNumberGenerator.nextInt(candidate.length)] = Nucleotide.validBases[randomNumberGenerator.nextInt(Nucleotide.validBases.length)];
+				}
+				String proposedMedianString = new String(candidate);
+				assertEquals(scalarMedianStringFinder.getTotalMinimumHammingDistance(proposedMedianString), qgramFilterMedianStringFinder.getTotalMinimumHammingDistance(proposedMedianString), proposedMedianString);
+			}
+		}
+		
+	}
+	
+	/**
+	 * @param randomNumberGenerator
+	 * @param dnaSequence
+	 * @param patternLength
+	 * @param numberOfMutations
+	 * @param reverseComplement - true to take the pattern from the other strand
+	 * @return a window of the DNA sequence with up to the number of mutations
+	 */
+	private static String getPlantedPattern(Random randomNumberGenerator, String dnaSequence, int patternLength, int numberOfMutations, boolean reverseComplement) {
+		
+		int windowStartPosition = randomNumberGenerator.nextInt(dnaSequence.length() - patternLength + 1);
+		char[] pattern = dnaSequence.substring(windowStartPosition, windowStartPosition + patternLength).toCharArray();
+		for (int mutationCounter = 0; mutationCounter < numberOfMutations; ++mutationCounter) {
+			pattern[randomNumberGenerator.nextInt(patternLength)] = Nucleotide.validBases[randomNumberGenerator.nextInt(Nucleotide.validBases.length)];
+		}
+		return reverseComplement ? BruteForceMedianStrings.getReverseComplement(new String(pattern)) : new String(pattern);
+		
+	}
+	
+}
@@ -0,0 +1,97 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Scoring on both strands against every candidate, scored by matching it and its reverse complement
+ * against every window
+ */
+public class ReverseComplementScoringTest {
+
+	private final long kmerDistanceIndexMemoryBudget = MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET;
+	
+	@AfterEach
+	public void restoreTunables() {
+		MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET = kmerDistanceIndexMemoryBudget;
+	}
+	
+	@Test
+	public void totalMinimumHammingDistancesMatchBothStrands() throws Exception {
+		
+		Random randomNumberGenerator = new Random(51);
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 5, 6, 30, null);
+		MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+		medianStringFinder.setReverseComplementScored(true);
+		for (int medianStringLength = 1; medianStringLength <= 4; ++medianStringLength) {
+			for (String candidate : BruteForceMedianStrings.getAllCandidates(medianStringLength)) {
+				assertEquals(BruteForceMedianStrings.getScore(dnaSequences, candidate, true), medianStringFinder.getTotalMinimumHammingDistance(candidate), candidate);
+			}
+		}
+		
+	}
+	
+	@Test
+	public void medianStringsMatchBothStrands() throws Exception {
+		
+		Random randomNumberGenerator = new Random(52);
+		for (long kmerDistanceIndexMemoryBudget : new long[] {0, this.kmerDistanceIndexMemoryBudget}) {
+			MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET = kmerDistanceIndexMemoryBudget;
+			for (int caseCounter = 0; caseCounter < 10; ++caseCounter) {
+				int medianStringLength = 1 + caseCounter % 6;
+				List<String> dnaSequences = getStrandMixedDnaSequences(randomNumberGenerator, 6, medianStringLength);
+				List<ScoredMedianString> scoredCandidates = BruteForceMedianStrings.getScoredCandidates(dnaSequences, medianStringLength, true);
+				for (int parallelism = 1; parallelism <= 2; ++parallelism) {
+					MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+					medianStringFinder.setReverseComplementScored(true);
+					assertEquals(scoredCandidates.get(0).toString(), medianStringFinder.findScoredMedianString(medianStringLength, parallelism).toString(), dnaSequences + " budget " + kmerDistanceIndexMemoryBudget);
+					assertEquals(scoredCandidates.subList(0, Math.min(5, scoredCandidates.size())).toString(), medianStringFinder.findTopMedianStrings(medianStringLength, 5, parallelism).toString(), dnaSequences + " budget " + kmerDistanceIndexMemoryBudget);
+				}
+			}
+		}
+		
+	}
+	
+	@Test
+	public void motifPlantedOnTheOtherStrandIsOnlyFoundOnBothStrands() throws Exception {
+		
+		String motif = "GATTACA";
+		Random randomNumberGenerator = new Random(53);
+		List<String> dnaSequences = new ArrayList<String>();
+		for (int dnaSequenceCounter = 0; dnaSequenceCounter < 8; ++dnaSequenceCounter) {
+			String plantedMotif = dnaSequenceCounter % 2 == 0 ? motif : BruteForceMedianStrings.getReverseComplement(motif);
+			dnaSequences.add(BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, 20) + plantedMotif + BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, 20));
+		}
+		MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+		medianStringFinder.setReverseComplementScored(true);
+		ScoredMedianString scoredMedianString = medianStringFinder.findScoredMedianString(motif.length(), 2);
+		assertEquals(0, scoredMedianString.getScore());
+		assertTrue(scoredMedianString.getMedianString().equals(motif) || scoredMedianString.getMedianString().equals(BruteForceMedianStrings.getReverseComplement(motif)), scoredMedianString.toString());
+		assertTrue(BruteForceMedianStrings.getScore(dnaSequences, motif, false) > 0);
+		
+	}
+	
+	/**
+	 * @param randomNumberGenerator
+	 * @param numberOfDnaSequences
+	 * @param motifLength
+	 * @return random DNA sequences with a motif planted in every other one, alternating between its two strands
+	 */
+	private static List<String> getStrandMixedDnaSequences(Random randomNumberGenerator, int numberOfDnaSequences, int motifLength) {
+		
+		String motif = BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, motifLength);
+		List<String> dnaSequences = new ArrayList<String>();
+		for (String dnaSequence : BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, numberOfDnaSequences, motifLength + 4, 24, motif)) {
+			dnaSequences.add(dnaSequences.size() % 4 == 2 ? BruteForceMedianStrings.getReverseComplement(dnaSequence) : dnaSequence);
+		}
+		return dnaSequences;
+		
+	}
+	
+}
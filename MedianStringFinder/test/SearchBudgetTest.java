@@ -0,0 +1,86 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Searches that are given a budget: one that runs out has to return the best median string found so far without
+ * claiming it is optimal, and one that does not has to return what the search without a budget returns
+ */
+public class SearchBudgetTest {
+
+	@Test
+	public void anExhaustedNodeBudgetReturnsTheBestMedianStringSoFar() throws Exception {
+		
+		//Without a seed or a motif the search visits far more nodes than the budget allows
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(171), 12, 200, 300, null);
+		int optimalScore = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences)).findScoredMedianString(9, 2).getScore();
+		for (int parallelism : new int[] {1, 2}) {
+			
+			MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+			medianStringFinder.setHeuristicSeedingEnabled(false);
+			final List<ScoredMedianString> improvedMedianStrings = Collections.synchronizedList(new ArrayList<ScoredMedianString>());
+			MedianStringSearchResult medianStringSearchResult = medianStringFinder.findMedianString(9, parallelism, new SearchBudget(SearchBudget.NO_LIMIT, 1), new MedianStringSearchListener() {
+				@Override
+				public void improvedMedianStringFound(ScoredMedianString scoredMedianString) {
+					improvedMedianStrings.add(scoredMedianString);
+				}
+				@Override
+				public void progressReported(SearchStatistics searchStatistics, ScoredMedianString bestScoredMedianString, long elapsedMilliseconds) {
+				}
+			});
+			
+			String message = "parallelism " + parallelism;
+			assertFalse(medianStringSearchResult.isProvenOptimal(), message);
+			ScoredMedianString scoredMedianString = medianStringSearchResult.getScoredMedianString();
+			assertEquals(9, scoredMedianString.getMedianString().length(), message);
+			assertEquals(BruteForceMedianStrings.getScore(dnaSequences, scoredMedianString.getMedianString(), false), scoredMedianString.getScore(), message);
+			assertTrue(scoredMedianString.getScore() >= optimalScore, message);
+			
+			//The listener was told about the returned median string or one that scores the same
+			int bestImprovedScore = Integer.MAX_VALUE;
+			for (ScoredMedianString improvedMedianString : improvedMedianStrings) {
+				bestImprovedScore = Math.min(bestImprovedScore, improvedMedianString.getScore());
+			}
+			assertEquals(bestImprovedScore, scoredMedianString.getScore(), message);
+			
+		}
+		
+	}
+	
+	@Test
+	public void anUnlimitedBudgetReturnsTheOptimalMedianString() throws Exception {
+		
+		Random randomNumberGenerator = new Random(172);
+		for (int caseCounter = 0; caseCounter < 8; ++caseCounter) {
+			
+			int targetLength = 4 + caseCounter % 4;
+			List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 3 + caseCounter % 5, 20, 60, BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, targetLength));
+			ScoredMedianString scoredMedianString = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences)).findScoredMedianString(targetLength, 1);
+			
+			//A budget that is large but finite must not cut the search short either
+			for (SearchBudget searchBudget : new SearchBudget[] {SearchBudget.UNLIMITED, new SearchBudget(SearchBudget.NO_LIMIT, Long.MAX_VALUE - 1)}) {
+				MedianStringSearchResult medianStringSearchResult = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences)).findMedianString(targetLength, 1, searchBudget, null);
+				String message = dnaSequences + " length " + targetLength;
+				assertTrue(medianStringSearchResult.isProvenOptimal(), message);
+				assertEquals(scoredMedianString.getMedianString(), medianStringSearchResult.getScoredMedianString().getMedianString(), message);
+				assertEquals(scoredMedianString.getScore(), medianStringSearchResult.getScoredMedianString().getScore(), message);
+			}
+			
+			//A parallel search may pick another of tied median strings, but not another score
+			MedianStringSearchResult parallelSearchResult = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences)).findMedianString(targetLength, 3, SearchBudget.UNLIMITED, null);
+			assertTrue(parallelSearchResult.isProvenOptimal());
+			assertEquals(scoredMedianString.getScore(), parallelSearchResult.getScoredMedianString().getScore());
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * The suffix lower bounds against the best score of every shorter length, and the pruning they are used for
+ */
+public class SuffixLowerBoundTest {
+
+	private static final int SUFFIX_LOWER_BOUND_EXACT_LENGTH = MedianStringFinder.SUFFIX_LOWER_BOUND_EXACT_LENGTH;
+	
+	@AfterEach
+	public void restoreSuffixLowerBoundExactLength() {
+		MedianStringFinder.SUFFIX_LOWER_BOUND_EXACT_LENGTH = SUFFIX_LOWER_BOUND_EXACT_LENGTH;
+	}
+	
+	@Test
+	public void shortSuffixLowerBoundsAreExact() throws Exception {
+		
+		Random randomNumberGenerator = new Random(21);
+		for (int caseCounter = 0; caseCounter < 5; ++caseCounter) {
+			List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 4, 15, 40, "ACGTTG");
+			int[] suffixLowerBounds = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences)).getSuffixLowerBounds(7, 1);
+			assertEquals(0, suffixLowerBounds[0]);
+			for (int suffixLength = 1; suffixLength < 7; ++suffixLength) {
+				assertEquals(BruteForceMedianStrings.getScoredCandidates(dnaSequences, suffixLength, false).get(0).getScore(), suffixLowerBounds[suffixLength], "suffix length " + suffixLength);
+			}
+		}
+		
+	}
+	
+	@Test
+	public void combinedSuffixLowerBoundsNeverExceedTheBestScore() throws Exception {
+		
+		//Only lengths 1 and 2 are searched, and longer ones are added up from them
+		MedianStringFinder.SUFFIX_LOWER_BOUND_EXACT_LENGTH = 2;
+		Random randomNumberGenerator = new Random(22);
+		for (int caseCounter = 0; caseCounter < 5; ++caseCounter) {
+			List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 4, 15, 40, "GATTACA");
+			int[] suffixLowerBounds = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences)).getSuffixLowerBounds(7, 2);
+			for (int suffixLength = 1; suffixLength < 7; ++suffixLength) {
+				int bestScore = BruteForceMedianStrings.getScoredCandidates(dnaSequences, suffixLength, false).get(0).getScore();
+				assertTrue(suffixLowerBounds[suffixLength] <= bestScore, "suffix length " + suffixLength + " bound " + suffixLowerBounds[suffixLength] + " best score " + bestScore);
+			}
+		}
+		
+	}
+	
+	@Test
+	public void searchWithCombinedSuffixLowerBoundsFindsTheBestCandidate() throws Exception {
+		
+		MedianStringFinder.SUFFIX_LOWER_BOUND_EXACT_LENGTH = 2;
+		Random randomNumberGenerator = new Random(23);
+		for (int caseCounter = 0; caseCounter < 8; ++caseCounter) {
+			int medianStringLength = 3 + caseCounter % 4;
+			List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 5, 12, 35, BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, medianStringLength));
+			MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+			assertEquals(BruteForceMedianStrings.getScoredCandidates(dnaSequences, medianStringLength, false).get(0).toString(), medianStringFinder.findScoredMedianString(medianStringLength, 2).toString());
+		}
+		
+	}
+	
+	@Test
+	public void suffixLowerBoundsPruneNodes() throws Exception {
+		
+		//Short sequences have few windows, so even short suffixes have high best scores
+		Random randomNumberGenerator = new Random(24);
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 12, 12, 12, "CATTAGGT");
+		MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+		assertEquals(BruteForceMedianStrings.getScoredCandidates(dnaSequences, 8, false).get(0).toString(), medianStringFinder.findScoredMedianString(8, 1).toString());
+		SearchStatistics searchStatistics = medianStringFinder.getSearchStatistics();
+		assertTrue(searchStatistics.getNodesPrunedBySuffixBound() > 0, searchStatistics.toString());
+		assertTrue(searchStatistics.getNodesVisited() < (1 << (PackedDnaSequence.BITS_PER_BASE * 8)), searchStatistics.toString());
+		
+	}
+	
+}
@@ -0,0 +1,52 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * The top median strings against the start of the list of every candidate, sorted by score and then lexicographically
+ */
+public class TopMedianStringsTest {
+
+	@Test
+	public void topMedianStringsAreTheBestCandidatesInOrder() throws Exception {
+		
+		Random randomNumberGenerator = new Random(41);
+		for (int caseCounter = 0; caseCounter < 12; ++caseCounter) {
+			int medianStringLength = 2 + caseCounter % 4;
+			List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 4, 8, 25, BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, medianStringLength));
+			List<ScoredMedianString> scoredCandidates = BruteForceMedianStrings.getScoredCandidates(dnaSequences, medianStringLength, false);
+			for (int numberOfMedianStrings : new int[] {1, 2, 7, 40}) {
+				for (int parallelism = 1; parallelism <= 3; parallelism += 2) {
+					MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+					assertEquals(scoredCandidates.subList(0, Math.min(numberOfMedianStrings, scoredCandidates.size())).toString(), medianStringFinder.findTopMedianStrings(medianStringLength, numberOfMedianStrings, parallelism).toString(), dnaSequences + " top " + numberOfMedianStrings);
+				}
+			}
+		}
+		
+	}
+	
+	@Test
+	public void tiesAreBrokenLexicographically() throws Exception {
+		
+		//Every base and every pair of bases occurs, so all 16 candidates of length 2 tie at zero
+		List<String> dnaSequences = List.of("AACAGATCCGCTGGTTA", "TTGTCTAGGCGACCAAT");
+		MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+		List<ScoredMedianString> topMedianStrings = medianStringFinder.findTopMedianStrings(2, 5, 2);
+		assertEquals("[AA (0), AC (0), AG (0), AT (0), CA (0)]", topMedianStrings.toString());
+		
+	}
+	
+	@Test
+	public void askingForMoreThanEveryCandidateReturnsEveryCandidate() throws Exception {
+		
+		List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(new Random(42), 3, 6, 10, null);
+		MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+		assertEquals(BruteForceMedianStrings.getScoredCandidates(dnaSequences, 2, false).toString(), medianStringFinder.findTopMedianStrings(2, 100, 1).toString());
+		
+	}
+	
+}
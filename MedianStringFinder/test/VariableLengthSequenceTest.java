@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * DNA sequences of different lengths, where each one has its own number of windows and the last window
+ * ends on its last base
+ */
+public class VariableLengthSequenceTest {
+
+	private final long kmerDistanceIndexMemoryBudget = MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET;
+	
+	@AfterEach
+	public void restoreTunables() {
+		MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET = kmerDistanceIndexMemoryBudget;
+	}
+	
+	@Test
+	public void medianStringsOfMixedLengthSequencesMatchEveryCandidate() throws Exception {
+		
+		Random randomNumberGenerator = new Random(61);
+		for (long kmerDistanceIndexMemoryBudget : new long[] {0, this.kmerDistanceIndexMemoryBudget}) {
+			MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET = kmerDistanceIndexMemoryBudget;
+			for (int caseCounter = 0; caseCounter < 12; ++caseCounter) {
+				int medianStringLength = 1 + caseCounter % 5;
+				boolean bothStrands = caseCounter % 3 == 0;
+				
+				//The shortest sequence has exactly one window and the longest spans several packed words
+				List<String> dnaSequences = BruteForceMedianStrings.getRandomDnaSequences(randomNumberGenerator, 5, medianStringLength, 70, BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, medianStringLength));
+				dnaSequences.add(BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, medianStringLength));
+				List<ScoredMedianString> scoredCandidates = BruteForceMedianStrings.getScoredCandidates(dnaSequences, medianStringLength, bothStrands);
+				
+				MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+				medianStringFinder.setReverseComplementScored(bothStrands);
+				assertEquals(medianStringLength, medianStringFinder.getDnaSequenceLength());
+				assertEquals(scoredCandidates.get(0).toString(), medianStringFinder.findScoredMedianString(medianStringLength, 1 + caseCounter % 2).toString(), dnaSequences + " budget " + kmerDistanceIndexMemoryBudget);
+				for (ScoredMedianString scoredCandidate : scoredCandidates) {
+					assertEquals(scoredCandidate.getScore(), medianStringFinder.getTotalMinimumHammingDistance(scoredCandidate.getMedianString()), dnaSequences + " " + scoredCandidate);
+				}
+			}
+		}
+		
+	}
+	
+	@Test
+	public void motifInTheLastWindowIsFound() throws Exception {
+		
+		String motif = "TGCATG";
+		Random randomNumberGenerator = new Random(62);
+		List<String> dnaSequences = new ArrayList<String>();
+		dnaSequences.add(motif);
+		for (int dnaSequenceLength : new int[] {26, 32, 33, 64, 65}) {
+			dnaSequences.add(BruteForceMedianStrings.getRandomDnaSequence(randomNumberGenerator, dnaSequenceLength - motif.length()) + motif);
+		}
+		for (long kmerDistanceIndexMemoryBudget : new long[] {0, this.kmerDistanceIndexMemoryBudget}) {
+			MedianStringFinder.KMER_DISTANCE_INDEX_MEMORY_BUDGET = kmerDistanceIndexMemoryBudget;
+			MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+			assertEquals(0, medianStringFinder.getTotalMinimumHammingDistance(motif));
+			assertEquals(motif + " (0)", medianStringFinder.findScoredMedianString(motif.length(), 2).toString());
+		}
+		
+	}
+	
+	@Test
+	public void medianStringLongerThanTheShortestSequenceIsRejected() throws Exception {
+		
+		List<String> dnaSequences = List.of("ACGTACGTAC", "GATTACA", "CCGGTTAACCGG");
+		MedianStringFinder medianStringFinder = new MedianStringFinder(BruteForceMedianStrings.getPackedDnaSequences(dnaSequences));
+		assertEquals(7, medianStringFinder.getDnaSequenceLength());
+		assertEquals(BruteForceMedianStrings.getScoredCandidates(dnaSequences, 7, false).get(0).toString(), medianStringFinder.findScoredMedianString(7, 1).toString());
+		try {
+			medianStringFinder.findScoredMedianString(8, 1);
+			fail("A median string of 8 bases was searched for in a DNA sequence of 7.");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			medianStringFinder.findTopMedianStrings(8, 3, 1);
+			fail("Top median strings of 8 bases were searched for in a DNA sequence of 7.");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			medianStringFinder.getTotalMinimumHammingDistance("GATTACAA");
+			fail("A median string of 8 bases was scored against a DNA sequence of 7.");
+		} catch (IllegalArgumentException e) {
+		}
+		
+	}
+	
+}
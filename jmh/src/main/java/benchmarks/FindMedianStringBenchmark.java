@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Full branch and bound search on generated DNA sequences. Run with -prof gc to see the allocation per
+ * search, which should not grow with the number of nodes visited.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindMedianStringBenchmark {
+
+	@Param({"25"})
+	public int numberOfDnaSequences;
+	
+	@Param({"200"})
+	public int dnaSequenceLength;
+	
+	@Param({"6", "8"})
+	public int medianStringLength;
+	
+	@Param({"0", "2"})
+	public int numberOfMedianStringMutations;
+	
+	private Object medianStringFinder;
+	
+	@Setup
+	public void setUp() throws Throwable {
+		
+		Map<String, Object> generatedDnaSequencesAndMedianString = MedianStringFinderHandles.generateDnaSequences(this.dnaSequenceLength, this.numberOfDnaSequences, this.medianStringLength, this.numberOfMedianStringMutations);
+		this.medianStringFinder = MedianStringFinderHandles.newMedianStringFinder(generatedDnaSequencesAndMedianString);
+		
+	}
+	
+	@Benchmark
+	public String findMedianString() throws Throwable {
+		return (String) MedianStringFinderHandles.FIND_MEDIAN_STRING.invokeExact(this.medianStringFinder, this.medianStringLength);
+	}
+	
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Synthetic data generation with a fixed seed per invocation, as nucleotide lists and as packed sequences
+ * generated on one thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateDnaSequencesBenchmark {
+
+	@Param({"25", "1000"})
+	public int numberOfDnaSequences;
+	
+	@Param({"200"})
+	public int dnaSequenceLength;
+	
+	@Param({"10"})
+	public int medianStringLength;
+	
+	@Param({"2"})
+	public int numberOfMedianStringMutations;
+	
+	@Benchmark
+	public Map<String, Object> generateDnaSequences() throws Throwable {
+		return MedianStringFinderHandles.generateDnaSequences(this.dnaSequenceLength, this.numberOfDnaSequences, this.medianStringLength, this.numberOfMedianStringMutations);
+	}
+	
+	@Benchmark
+	public Map<String, Object> generatePackedDnaSequences() throws Throwable {
+		return MedianStringFinderHandles.generatePackedDnaSequences(this.dnaSequenceLength, this.numberOfDnaSequences, this.medianStringLength, this.numberOfMedianStringMutations, 1);
+	}
+	
+}
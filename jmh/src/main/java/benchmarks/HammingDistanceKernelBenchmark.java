@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Scalar and q-gram filter scoring kernels side by side on the total minimum hamming distance of the
+ * planted median string. The vector kernel is only built by the vector profile, so after building with
+ * -Pvector add it with -p hammingDistanceKernel=ScalarHammingDistanceKernel,VectorHammingDistanceKernel
+ * and run the benchmarks with java --add-modules=jdk.incubator.vector. The forks inherit the module from
+ * the host JVM, and the default runs do not load it at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HammingDistanceKernelBenchmark {
+
+	@Param({"ScalarHammingDistanceKernel", "QgramFilterHammingDistanceKernel"})
+	public String hammingDistanceKernel;
+	
+	@Param({"25"})
+	public int numberOfDnaSequences;
+	
+	@Param({"200", "2000"})
+	public int dnaSequenceLength;
+	
+	@Param({"8", "16"})
+	public int medianStringLength;
+	
+	@Param({"2"})
+	public int numberOfMedianStringMutations;
+	
+	private Object medianStringFinder;
+	private String medianString;
+	
+	@Setup
+	public void setUp() throws Throwable {
+		
+		Map<String, Object> generatedDnaSequencesAndMedianString = MedianStringFinderHandles.generateDnaSequences(this.dnaSequenceLength, this.numberOfDnaSequences, this.medianStringLength, this.numberOfMedianStringMutations);
+		this.medianStringFinder = MedianStringFinderHandles.newMedianStringFinder(generatedDnaSequencesAndMedianString);
+		MedianStringFinderHandles.SET_HAMMING_DISTANCE_KERNEL.invokeExact(this.medianStringFinder, MedianStringFinderHandles.newHammingDistanceKernel(this.hammingDistanceKernel));
+		this.medianString = (String) generatedDnaSequencesAndMedianString.get(MedianStringFinderHandles.MEDIAN_STRING_KEY);
+		
+	}
+	
+	@Benchmark
+	public int getTotalMinimumHammingDistance() throws Throwable {
+		return (int) MedianStringFinderHandles.GET_TOTAL_MINIMUM_HAMMING_DISTANCE.invokeExact(this.medianStringFinder, this.medianString);
+	}
+	
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ * Method handles into the median string classes. Those classes live in the default package, which code
+ * in a named package cannot import, and JMH does not accept benchmarks in the default package. The
+ * handles are static final so the JIT treats them as constants and the calls cost the same as direct ones.
+ */
+final class MedianStringFinderHandles {
+
+	public static final String MEDIAN_STRING_FINDER_CLASS = "MedianStringFinder";
+	public static final String HAMMING_DISTANCE_KERNEL_CLASS = "HammingDistanceKernel";
+	public static final String MEDIAN_STRING_KEY = "MEDIAN_STRING_KEY";
+	public static final String DNA_SEQUENCE_KEY = "DNA_SEQUENCE_KEY";
+	public static final long SEED = 20161017L;
+	
+	/** (int dnaSequenceLength, int numberOfDnaSequences, int medianStringLength, int numberOfMedianStringMutations, Random) -> Map */
+	static final MethodHandle GENERATE_DNA_SEQUENCES;
+	/** (int dnaSequenceLength, int numberOfDnaSequences, int medianStringLength, int numberOfMedianStringMutations, long seed, int parallelism) -> Map */
+	static final MethodHandle GENERATE_PACKED_DNA_SEQUENCES;
+	/** (List dnaSequences) -> MedianStringFinder as Object */
+	static final MethodHandle NEW_MEDIAN_STRING_FINDER;
+	/** (MedianStringFinder as Object, int targetLength) -> String */
+	static final MethodHandle FIND_MEDIAN_STRING;
+	/** (MedianStringFinder as Object, String proposedMedianString) -> int */
+	static final MethodHandle GET_TOTAL_MINIMUM_HAMMING_DISTANCE;
+	/** (MedianStringFinder as Object, HammingDistanceKernel as Object) -> void */
+	static final MethodHandle SET_HAMMING_DISTANCE_KERNEL;
+	
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> medianStringFinderClass = Class.forName(MEDIAN_STRING_FINDER_CLASS);
+			GENERATE_DNA_SEQUENCES = lookup.findStatic(medianStringFinderClass, "generateDnaSequences", MethodType.methodType(Map.class, int.class, int.class, int.class, int.class, Random.class));
+			GENERATE_PACKED_DNA_SEQUENCES = lookup.findStatic(medianStringFinderClass, "generatePackedDnaSequences", MethodType.methodType(Map.class, int.class, int.class, int.class, int.class, long.class, int.class));
+			NEW_MEDIAN_STRING_FINDER = lookup.findConstructor(medianStringFinderClass, MethodType.methodType(void.class, List.class)).asType(MethodType.methodType(Object.class, List.class));
+			FIND_MEDIAN_STRING = lookup.findVirtual(medianStringFinderClass, "findMedianString", MethodType.methodType(String.class, int.class)).asType(MethodType.methodType(String.class, Object.class, int.class));
+			SET_HAMMING_DISTANCE_KERNEL = lookup.findVirtual(medianStringFinderClass, "setHammingDistanceKernel", MethodType.methodType(void.class, Class.forName(HAMMING_DISTANCE_KERNEL_CLASS))).asType(MethodType.methodType(void.class, Object.class, Object.class));
+			GET_TOTAL_MINIMUM_HAMMING_DISTANCE = lookup.findVirtual(medianStringFinderClass, "getTotalMinimumHammingDistance", MethodType.methodType(int.class, String.class)).asType(MethodType.methodType(int.class, Object.class, String.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	private MedianStringFinderHandles() {
+	}
+	
+	/**
+	 * @return generated DNA sequences and the median string planted in them, from a fixed seed
+	 */
+	@SuppressWarnings("unchecked")
+	static Map<String, Object> generateDnaSequences(int dnaSequenceLength, int numberOfDnaSequences, int medianStringLength, int numberOfMedianStringMutations) throws Throwable {
+		return (Map<String, Object>) GENERATE_DNA_SEQUENCES.invokeExact(dnaSequenceLength, numberOfDnaSequences, medianStringLength, numberOfMedianStringMutations, new Random(SEED));
+	}
+	
+	/**
+	 * @return generated packed DNA sequences and the median string planted in them, from a fixed seed
+	 */
+	@SuppressWarnings("unchecked")
+	static Map<String, Object> generatePackedDnaSequences(int dnaSequenceLength, int numberOfDnaSequences, int medianStringLength, int numberOfMedianStringMutations, int parallelism) throws Throwable {
+		return (Map<String, Object>) GENERATE_PACKED_DNA_SEQUENCES.invokeExact(dnaSequenceLength, numberOfDnaSequences, medianStringLength, numberOfMedianStringMutations, SEED, parallelism);
+	}
+	
+	/**
+	 * @param hammingDistanceKernelClass - name of a HammingDistanceKernel implementation
+	 * @return a new instance of the kernel
+	 */
+	static Object newHammingDistanceKernel(String hammingDistanceKernelClass) throws ReflectiveOperationException {
+		return Class.forName(hammingDistanceKernelClass).getDeclaredConstructor().newInstance();
+	}
+	
+	/**
+	 * @return a median string finder over the DNA sequences in the generated map
+	 */
+	static Object newMedianStringFinder(Map<String, Object> generatedDnaSequencesAndMedianString) throws Throwable {
+		return (Object) NEW_MEDIAN_STRING_FINDER.invokeExact((List<?>) generatedDnaSequencesAndMedianString.get(DNA_SEQUENCE_KEY));
+	}
+	
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Scoring kernel alone: the total minimum hamming distance of the planted median string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TotalMinimumHammingDistanceBenchmark {
+
+	@Param({"25"})
+	public int numberOfDnaSequences;
+	
+	@Param({"200", "2000"})
+	public int dnaSequenceLength;
+	
+	@Param({"8", "16"})
+	public int medianStringLength;
+	
+	@Param({"2"})
+	public int numberOfMedianStringMutations;
+	
+	private Object medianStringFinder;
+	private String medianString;
+	
+	@Setup
+	public void setUp() throws Throwable {
+		
+		Map<String, Object> generatedDnaSequencesAndMedianString = MedianStringFinderHandles.generateDnaSequences(this.dnaSequenceLength, this.numberOfDnaSequences, this.medianStringLength, this.numberOfMedianStringMutations);
+		this.medianStringFinder = MedianStringFinderHandles.newMedianStringFinder(generatedDnaSequencesAndMedianString);
+		this.medianString = (String) generatedDnaSequencesAndMedianString.get(MedianStringFinderHandles.MEDIAN_STRING_KEY);
+		
+	}
+	
+	@Benchmark
+	public int getTotalMinimumHammingDistance() throws Throwable {
+		return (int) MedianStringFinderHandles.GET_TOTAL_MINIMUM_HAMMING_DISTANCE.invokeExact(this.medianStringFinder, this.medianString);
+	}
+	
+}